@@ -1,17 +1,25 @@
 package de.uni_leipzig;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.Multiset;
 
+import de.uni_leipzig.life.csv2fhir.CodeSystemMapperRegistry;
 import de.uni_leipzig.life.csv2fhir.ucum.UcumCodesExtractor;
 import de.uni_leipzig.life.csv2fhir.utils.BothDirectionResourceMapper;
 
 /**
+ * Normalises the unit strings from the tables to valid UCUM codes and their
+ * display units. The results are memoised per distinct unit string, so the
+ * replacements and lookups run only once per unit. All methods can be called
+ * by multiple threads at the same time.
+ *
  * @author AXS (10.12.2021)
  */
 public class UcumMapper {
@@ -19,8 +27,12 @@ public class UcumMapper {
     /** Logger for this class */
     private static Logger LOG = LoggerFactory.getLogger(UcumMapper.class);
 
-    /** Collection of all invalid UCUM codes during FHIR creation */
-    public static List<String> invalidUcumCodes = new ArrayList<>();
+    /**
+     * All invalid UCUM codes during FHIR creation with the count of their
+     * occurrences. The multiset is concurrent because the patients can be
+     * converted in parallel.
+     */
+    private static final Multiset<String> invalidUcumCodes = ConcurrentHashMultiset.create();
 
     /**
      * Name of the map file that maps from a synonym to the correct UCUM code.
@@ -28,18 +40,97 @@ public class UcumMapper {
      */
     public static final String UCUM_MANUAL_CREATED_SYNONYM_TO_UCUM_CODE_MAP_RESOURCE_FILE_NAME = "ucum/UCUM_Synonyms_manual.map";
 
+    /**
+     * Unit strings are only memoised until the memo has this size, so free
+     * text units cannot fill the memory.
+     */
+    private static final int MAX_MEMO_SIZE = 10_000;
+
     /**
      * Maps from a correct UCUM unit to its human readable code. One entry could
      * be UCUM unit 'kg' -> UCUM code 'kilogram'.
      */
-    private final BothDirectionResourceMapper validUcumCodeToDisplay = new BothDirectionResourceMapper(UcumCodesExtractor.UCUM_CODE_TO_DISPLAY_MAP_RESOURCE_FILE_NAME);
+    private static final BothDirectionResourceMapper validUcumCodeToDisplay = CodeSystemMapperRegistry.getMapper(UcumCodesExtractor.UCUM_CODE_TO_DISPLAY_MAP_RESOURCE_FILE_NAME);
 
     /** Maps from a synonym to the correct ucum unit */
-    private final BothDirectionResourceMapper synonymUcumCodeToValidUcumCode = new BothDirectionResourceMapper(UcumCodesExtractor.UCUM_AUTOMATIC_CREATED_SYNONYM_TO_UCUM_CODE_MAP_RESOURCE_FILE_NAME,
+    private static final BothDirectionResourceMapper synonymUcumCodeToValidUcumCode = CodeSystemMapperRegistry.getMapper(UcumCodesExtractor.UCUM_AUTOMATIC_CREATED_SYNONYM_TO_UCUM_CODE_MAP_RESOURCE_FILE_NAME,
             UCUM_MANUAL_CREATED_SYNONYM_TO_UCUM_CODE_MAP_RESOURCE_FILE_NAME);
 
-    /** Singleton */
-    private static UcumMapper mapper;
+    /** Maps from the unit strings to their normalised UCUM codes */
+    private static final Map<String, NormalisedUcumCode> memo = new ConcurrentHashMap<>();
+
+    /**
+     * The result of the normalisation of one unit string.
+     */
+    public static final class NormalisedUcumCode {
+
+        /**
+         * The valid UCUM code or the unchanged unit string if it is not a valid
+         * UCUM code
+         */
+        private final String code;
+
+        /** The display of the UCUM code or <code>null</code> if there is none */
+        private final String display;
+
+        /** <code>true</code> if the code is a valid UCUM code */
+        private final boolean valid;
+
+        /**
+         * @param code
+         * @param display
+         * @param valid
+         */
+        private NormalisedUcumCode(String code, String display, boolean valid) {
+            this.code = code;
+            this.display = display;
+            this.valid = valid;
+        }
+
+        /**
+         * @return the valid UCUM code or the unchanged unit string if it is not
+         *         a valid UCUM code
+         */
+        public String getCode() {
+            return code;
+        }
+
+        /**
+         * @return the human readable unit of the UCUM code or the code itself if
+         *         there is no display for the code
+         */
+        public String getUnit() {
+            return Strings.isNullOrEmpty(display) ? code : display;
+        }
+
+        /**
+         * @return <code>true</code> if the code is a valid UCUM code
+         */
+        public boolean isValid() {
+            return valid;
+        }
+
+    }
+
+    /**
+     * @param ucumCode the unit string from the table
+     * @return the valid UCUM code and its display. An invalid code is logged
+     *         and counted on every call.
+     */
+    public static NormalisedUcumCode normalise(String ucumCode) {
+        NormalisedUcumCode normalisedUcumCode = memo.get(ucumCode);
+        if (normalisedUcumCode == null) {
+            normalisedUcumCode = normaliseUncached(ucumCode);
+            if (memo.size() < MAX_MEMO_SIZE) {
+                memo.put(ucumCode, normalisedUcumCode);
+            }
+        }
+        if (!normalisedUcumCode.isValid()) {
+            LOG.error("Invalid UCUM code " + ucumCode);
+            invalidUcumCodes.add(ucumCode);
+        }
+        return normalisedUcumCode;
+    }
 
     /**
      * @param ucumCode
@@ -47,6 +138,31 @@ public class UcumMapper {
      * @throws Exception
      */
     public static String getValidUcumCode(String ucumCode) throws Exception {
+        return normalise(ucumCode).getCode();
+    }
+
+    /**
+     * @param ucumCode
+     * @return
+     * @throws Exception
+     */
+    public static String getUcumUnit(String ucumCode) throws Exception {
+        String display = normalise(ucumCode).display;
+        return Strings.isNullOrEmpty(display) ? ucumCode : display;
+    }
+
+    /**
+     * @return all invalid UCUM codes with the count of their occurrences
+     */
+    public static Multiset<String> getInvalidUcumCodes() {
+        return invalidUcumCodes;
+    }
+
+    /**
+     * @param ucumCode
+     * @return the normalised UCUM code
+     */
+    private static NormalisedUcumCode normaliseUncached(String ucumCode) {
         String validUcumCode = getValidUcumCodeInternal(ucumCode);
         if (Strings.isNullOrEmpty(validUcumCode)) {
 
@@ -76,41 +192,22 @@ public class UcumMapper {
             }
         }
         if (Strings.isNullOrEmpty(validUcumCode)) {
-            LOG.error("Invalid UCUM code " + ucumCode);
-            if (!invalidUcumCodes.contains(ucumCode)) {
-                invalidUcumCodes.add(ucumCode);
-            }
-            return ucumCode;
+            return new NormalisedUcumCode(ucumCode, null, false);
         }
-        return validUcumCode;
+        return new NormalisedUcumCode(validUcumCode, validUcumCodeToDisplay.get(validUcumCode), true);
     }
 
     /**
      * @param ucumCode
      * @return
-     * @throws Exception
      */
-    private static String getValidUcumCodeInternal(String ucumCode) throws Exception {
-        if (mapper == null) {
-            mapper = new UcumMapper();
-        }
+    private static String getValidUcumCodeInternal(String ucumCode) {
         //it is already a valid UCUM code ?
-        if (mapper.validUcumCodeToDisplay.containsKey(ucumCode)) {
+        if (validUcumCodeToDisplay.containsKey(ucumCode)) {
             return ucumCode;
         }
         //try the synonyms
-        return mapper.synonymUcumCodeToValidUcumCode.get(ucumCode);
-    }
-
-    /**
-     * @param ucumCode
-     * @return
-     * @throws Exception
-     */
-    public static String getUcumUnit(String ucumCode) throws Exception {
-        String correctUcumCode = getValidUcumCode(ucumCode);
-        String unit = mapper.validUcumCodeToDisplay.get(correctUcumCode);
-        return Strings.isNullOrEmpty(unit) ? ucumCode : unit;
+        return synonymUcumCodeToValidUcumCode.get(ucumCode);
     }
 
 }
@@ -12,11 +12,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import de.uni_leipzig.UcumMapper;
-import de.uni_leipzig.imise.utils.Excel2Csv;
+import de.uni_leipzig.imise.utils.Excel2Csv.ReadMode;
 import de.uni_leipzig.imise.validate.FHIRValidator;
 import de.uni_leipzig.imise.validate.FHIRValidator.ValidationResultType;
+import de.uni_leipzig.imise.validate.ValidationPackageCache;
 import de.uni_leipzig.life.csv2fhir.ConverterResult.ConverterResultStatistics;
 import de.uni_leipzig.life.csv2fhir.Csv2Fhir;
+import de.uni_leipzig.life.csv2fhir.ExcelTableRecordSource;
 import de.uni_leipzig.life.csv2fhir.OutputFileType;
 
 /**
@@ -33,6 +35,28 @@ public class Excel2Fhir {
     /** Counters for all created resources */
     private final ConverterResultStatistics allFilesStatistics = new ConverterResultStatistics();
 
+    /** The way to read the Excel files */
+    private ReadMode excelReadMode = ReadMode.STREAMING;
+
+    /**
+     * If <code>true</code> then the read sheets are also written as csv files
+     * to the temp directory (for debugging). The conversion itself always
+     * uses the records read directly from the Excel file.
+     */
+    private boolean writeCsvFiles = false;
+
+    /** The count of threads that convert the patients in parallel */
+    private int threadCount = 1;
+
+    /** If <code>true</code> then the patients are converted by virtual threads */
+    private boolean virtualThreads = false;
+
+    /** The count of threads that compress the gzip output files */
+    private int compressionThreadCount = 1;
+
+    /** The count of threads that read the sheets of an Excel file */
+    private int sheetThreadCount = 1;
+
     /**
      * @param excelFile
      * @return
@@ -49,7 +73,92 @@ public class Excel2Fhir {
      * @param minLogLevel
      */
     public Excel2Fhir(boolean validate, ValidationResultType minLogLevel) {
-        validator = validate ? new FHIRValidator(minLogLevel) : null;
+        this(validate, minLogLevel, null);
+    }
+
+    /**
+     * @param validate
+     * @param minLogLevel
+     * @param validationCacheFile the file of the persistent validation cache or
+     *            <code>null</code> to validate every resource. The conformance
+     *            resources of the validator packages are cached in a second
+     *            file next to this file. Has no effect if the resources are
+     *            not validated.
+     * @see FHIRValidator#setResultCacheFile(File)
+     * @see ValidationPackageCache#getFile(File)
+     */
+    public Excel2Fhir(boolean validate, ValidationResultType minLogLevel, File validationCacheFile) {
+        if (validate) {
+            validator = new FHIRValidator(minLogLevel, validationCacheFile == null ? null : ValidationPackageCache.getFile(validationCacheFile));
+            validator.setResultCacheFile(validationCacheFile);
+        } else {
+            validator = null;
+        }
+    }
+
+    /**
+     * @param excelReadMode the way to read the Excel files. Default is
+     *            {@link ReadMode#STREAMING}.
+     */
+    public void setExcelReadMode(ReadMode excelReadMode) {
+        this.excelReadMode = excelReadMode;
+    }
+
+    /**
+     * @param writeCsvFiles if <code>true</code> then the read sheets are also
+     *            written as csv files to the temp directory. Default is
+     *            <code>false</code>.
+     */
+    public void setWriteCsvFiles(boolean writeCsvFiles) {
+        this.writeCsvFiles = writeCsvFiles;
+    }
+
+    /**
+     * @param threadCount the count of threads that convert the patients in
+     *            parallel. Default is 1.
+     * @see Csv2Fhir#setThreadCount(int)
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * @param virtualThreads if <code>true</code> then the patients are
+     *            converted by virtual threads. Default is <code>false</code>.
+     * @see Csv2Fhir#setVirtualThreads(boolean)
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * @param compressionThreadCount the count of threads that compress the
+     *            gzip output files
+     * @see Csv2Fhir#setCompressionThreadCount(int)
+     */
+    public void setCompressionThreadCount(int compressionThreadCount) {
+        this.compressionThreadCount = compressionThreadCount;
+    }
+
+    /**
+     * @param sheetThreadCount the count of threads that read the sheets of an
+     *            Excel file in parallel (only with {@link ReadMode#STREAMING}).
+     *            Default is 1.
+     */
+    public void setSheetThreadCount(int sheetThreadCount) {
+        this.sheetThreadCount = sheetThreadCount;
+    }
+
+    /**
+     * @param validationThreadCount the count of threads that validate the
+     *            resources in parallel. Has no effect if the resources are not
+     *            validated.
+     * @see FHIRValidator#setThreadCount(int)
+     */
+    public void setValidationThreadCount(int validationThreadCount) {
+        if (validator != null) {
+            validator.setThreadCount(validationThreadCount);
+        }
     }
 
     /**
@@ -140,16 +249,24 @@ public class Excel2Fhir {
             createAndCleanOutputDirectories(sourceExcelFile, tempDir, resultDir);
         }
         String fileBaseName = FilenameUtils.removeExtension(sourceExcelFile.getName()) + "_";
-        Excel2Csv.splitExcel(sourceExcelFile, sheetNamePatterns, tempDir);
-        Csv2Fhir converter = new Csv2Fhir(tempDir, resultDir, fileBaseName, validator);
+        File csvDumpDir = writeCsvFiles ? tempDir : null;
+        ExcelTableRecordSource recordSource = ExcelTableRecordSource.read(sourceExcelFile, sheetNamePatterns, excelReadMode, csvDumpDir, sheetThreadCount);
+        Csv2Fhir converter = new Csv2Fhir(recordSource, resultDir, fileBaseName, validator);
+        converter.setThreadCount(threadCount);
+        converter.setVirtualThreads(virtualThreads);
+        converter.setCompressionThreadCount(compressionThreadCount);
         try {
             ConverterResultStatistics converterStatistics = converter.convertFiles(patientsPerBundle, outputFileTypes);
             allFilesStatistics.add(converterStatistics);
         } catch (Exception e) {
             LOG.error(e.getMessage(), e);
         }
-        if (!UcumMapper.invalidUcumCodes.isEmpty()) {
-            LOG.error("Invalid UCUM codes in all files at this point " + UcumMapper.invalidUcumCodes);
+        if (validator != null) {
+            validator.saveResultCache();
+            validator.savePackageCache();
+        }
+        if (!UcumMapper.getInvalidUcumCodes().isEmpty()) {
+            LOG.error("Invalid UCUM codes (with their counts) in all files at this point " + UcumMapper.getInvalidUcumCodes());
         }
         LOG.info("All bundles of all files content:\n" + allFilesStatistics);
     }
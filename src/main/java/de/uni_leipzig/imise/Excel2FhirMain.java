@@ -11,6 +11,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Stopwatch;
 
+import de.uni_leipzig.imise.utils.Excel2Csv.ReadMode;
 import de.uni_leipzig.imise.utils.FileLogger;
 import de.uni_leipzig.imise.utils.FileLogger.LogContentLayout;
 import de.uni_leipzig.imise.validate.FHIRValidator.ValidationResultType;
@@ -46,11 +47,11 @@ public class Excel2FhirMain implements Callable<Integer> {
     static File outputDirectory;
 
     @Option(names = {"-t",
-            "--temp-directory"}, paramLabel = "TEMP-DIRECTORY", description = "Temp directory for csv files converted from input files and needed to create output files. If parameter is missing then the temp directory is the input directory.")
+            "--temp-directory"}, paramLabel = "TEMP-DIRECTORY", description = "Temp directory for the log file and the optional csv files converted from input files (see --write-csv). If parameter is missing then the temp directory is the input directory.")
     static File tempDirectory;
 
     @Option(names = {"-r",
-            "--result-file-format"}, split = ",", paramLabel = "RESULT-FILE-FORMAT", description = "Result file format (comma separated) \"JSON\" (default), \"XML\", \"NDJSON\", \"JSONGZIP\" or \"JSONBZ2\".")
+            "--result-file-format"}, split = ",", paramLabel = "RESULT-FILE-FORMAT", description = "Result file format (comma separated) \"JSON\" (default), \"XML\", \"NDJSON\", \"NDJSONGZIP\", \"JSONGZIP\" or \"JSONBZ2\".")
     static OutputFileType[] outputFileTypes = {OutputFileType.JSON};
 
     @Option(names = {"-p",
@@ -69,6 +70,37 @@ public class Excel2FhirMain implements Callable<Integer> {
             "--validation-log-level"}, paramLabel = "VALIDATION-LOG-LEVEL", description = "Sets the log level for validation. Default ist ERROR. Other values are IGNORED, WARNING or VALID")
     static ValidationResultType minLogLevel = ValidationResultType.ERROR;
 
+    @Option(names = {"-e",
+            "--excel-read-mode"}, paramLabel = "EXCEL-READ-MODE", description = "The way to read the excel file. \"STREAMING\" (default) reads row by row with bounded memory, \"WORKBOOK\" loads the whole workbook into the memory.")
+    static ReadMode excelReadMode = ReadMode.STREAMING;
+
+    @Option(names = {"-c",
+            "--write-csv"}, negatable = true, paramLabel = "WRITE-CSV", description = "Writes the read excel sheets also as csv files to the temp directory (for debugging). The conversion does not need this files.")
+    static boolean writeCsvFiles = false;
+
+    @Option(names = {"-n",
+            "--threads"}, paramLabel = "THREADS", description = "The count of threads that convert the patients in parallel. Default is 1. The bundles are always written in the order of the patient IDs.")
+    static int threadCount = 1;
+
+    @Option(names = {"--virtual-threads"}, negatable = true, paramLabel = "VIRTUAL-THREADS", description = "Converts the patients in parallel by virtual threads (needs Java 21 or newer).")
+    static boolean virtualThreads = false;
+
+    @Option(names = {"-z",
+            "--compression-threads"}, paramLabel = "COMPRESSION-THREADS", description = "The count of threads that compress the JSONGZIP and NDJSONGZIP files in parallel blocks. Default is 1 (single threaded gzip).")
+    static int compressionThreadCount = 1;
+
+    @Option(names = {"-st",
+            "--sheet-threads"}, paramLabel = "SHEET-THREADS", description = "The count of threads that read the sheets of the Excel file in parallel (only with the STREAMING read mode). Default is 1.")
+    static int sheetThreadCount = 1;
+
+    @Option(names = {"-vt",
+            "--validation-threads"}, paramLabel = "VALIDATION-THREADS", description = "The count of threads that validate the resources of a record or bundle in parallel (only with -v). Default is 1.")
+    static int validationThreadCount = 1;
+
+    @Option(names = {"-vc",
+            "--validation-cache"}, paramLabel = "VALIDATION-CACHE-FILE", description = "A file to store the validation verdicts (only with -v). Unchanged resources that are in the file are not validated again. The resources of the validator packages are cached in a second file next to it. Must not be in the temp or output directory, because these are cleaned on every run.")
+    static File validationCacheFile = null;
+
     /**
      * @param args
      */
@@ -110,7 +142,14 @@ public class Excel2FhirMain implements Callable<Integer> {
         }
         try {
             List<String> excelSheetNamePatterns = TableIdentifier.getExcelSheetNamePatterns();
-            Excel2Fhir excel2Fhir = new Excel2Fhir(validateBundles, minLogLevel);
+            Excel2Fhir excel2Fhir = new Excel2Fhir(validateBundles, minLogLevel, validationCacheFile);
+            excel2Fhir.setExcelReadMode(excelReadMode);
+            excel2Fhir.setWriteCsvFiles(writeCsvFiles);
+            excel2Fhir.setThreadCount(threadCount);
+            excel2Fhir.setVirtualThreads(virtualThreads);
+            excel2Fhir.setCompressionThreadCount(compressionThreadCount);
+            excel2Fhir.setSheetThreadCount(sheetThreadCount);
+            excel2Fhir.setValidationThreadCount(validationThreadCount);
             if (inputFile != null) {
                 excel2Fhir.convertExcelFile(inputFile, excelSheetNamePatterns, tempDirectory, outputDirectory, patientsPerBundle, outputFileTypes);
             } else {
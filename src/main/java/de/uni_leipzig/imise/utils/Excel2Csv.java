@@ -7,15 +7,22 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
-import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.function.IntFunction;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.ExcelNumberFormat;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
@@ -31,24 +38,143 @@ import com.google.common.base.Stopwatch;
 public class Excel2Csv {
 
     /**  */
-    private static final String DELIM = ",";
+    private static final char DELIM = ',';
 
     /**  */
-    private static final String QUOTE = "\"";
+    private static final char QUOTE = '"';
 
     /** Replacement for Quotes in values of Excel cells */
     public static final String QUOTE_ESCAPE = "~Q~";
 
-    /**  */
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("dd.MM.yyyy HH:mm");
+    /** Immutable, so the sheets can be read by multiple threads */
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
 
     /**  */
     private static final Logger LOG = LoggerFactory.getLogger(Excel2Csv.class);
 
+    /** Reused buffer for the cleaning of the cell values */
+    private static final ThreadLocal<StringBuilder> CLEAN_BUFFER = ThreadLocal.withInitial(StringBuilder::new);
+
+    /**
+     * The ways to read the Excel file.
+     */
+    public static enum ReadMode {
+        /**
+         * Reads the sheets row by row with the event (SAX) API of POI. The
+         * memory usage is bounded by the size of one row and the shared
+         * strings table.
+         */
+        STREAMING {
+            @Override
+            public void read(File excelFile, SheetHandlerFactory sheetHandlerFactory, int threadCount) throws IOException {
+                StreamingExcelReader.read(excelFile, sheetHandlerFactory, threadCount);
+            }
+        },
+        /**
+         * Loads the whole workbook with all sheets and cells into the memory
+         * before the first row is read.
+         */
+        WORKBOOK {
+            /**
+             * The user model of a workbook is not thread safe, so the sheets are
+             * always read one after another.
+             */
+            @Override
+            public void read(File excelFile, SheetHandlerFactory sheetHandlerFactory, int threadCount) throws IOException {
+                readWorkbook(excelFile, sheetHandlerFactory);
+            }
+        };
+
+        /**
+         * Reads all sheets of the Excel file one after another and passes the
+         * rows to the handler.
+         *
+         * @param excelFile
+         * @param sheetHandler
+         * @throws IOException
+         */
+        public void read(File excelFile, SheetHandler sheetHandler) throws IOException {
+            read(excelFile, sheetName -> sheetHandler, 1);
+        }
+
+        /**
+         * Reads all sheets of the Excel file and passes the rows of every sheet
+         * to the handler created for the sheet.
+         *
+         * @param excelFile
+         * @param sheetHandlerFactory
+         * @param threadCount the count of threads that read the sheets in
+         *            parallel. With 1 the sheets are read one after another.
+         * @throws IOException
+         */
+        public abstract void read(File excelFile, SheetHandlerFactory sheetHandlerFactory, int threadCount) throws IOException;
+    }
+
+    /**
+     * Receives the rows of the sheets of an Excel file. The first row of every
+     * sheet is the header row. The count of columns of every sheet is the count
+     * of the not empty cells at the beginning of the header row. Rows without
+     * any numeric or string value in this columns are not passed to the
+     * handler.
+     */
+    public static interface SheetHandler {
+
+        /**
+         * @param sheetName
+         * @return <code>true</code> if the rows of the sheet should be passed
+         *         to this handler or <code>false</code> if the sheet should be
+         *         skipped.
+         * @throws IOException
+         */
+        public boolean startSheet(String sheetName) throws IOException;
+
+        /**
+         * @param cellValues the not yet cleaned values of the cells of the
+         *            row. The length of the array is the count of columns of
+         *            the sheet.
+         * @throws IOException
+         */
+        public void row(String[] cellValues) throws IOException;
+
+        /**
+         * Is called after the last row of an accepted sheet.
+         *
+         * @throws IOException
+         */
+        public void endSheet() throws IOException;
+
+        /**
+         * Is called after every accepted sheet, also if reading the sheet
+         * failed and {@link #endSheet()} was not called. Must release all
+         * resources opened for the sheet.
+         *
+         * @throws IOException
+         */
+        public void close() throws IOException;
+    }
+
+    /**
+     * Creates the {@link SheetHandler} for every sheet of an Excel file. If
+     * the sheets are read by multiple threads then every sheet needs its own
+     * handler, because the methods of the handler are called by the thread
+     * that reads the sheet.
+     */
+    public static interface SheetHandlerFactory {
+
+        /**
+         * Is called by the reading thread in the order of the sheets before
+         * any sheet is read.
+         *
+         * @param sheetName
+         * @return the handler for the rows of the sheet
+         * @throws IOException
+         */
+        public SheetHandler createSheetHandler(String sheetName) throws IOException;
+    }
+
     /**
      * @param excelFile
      * @param sheetNamePatterns
-     * @throws IOException
      */
     public static void splitExcel(File excelFile, Collection<String> sheetNamePatterns) throws IOException {
         String basename = FilenameUtils.removeExtension(excelFile.getPath());
@@ -78,29 +204,199 @@ public class Excel2Csv {
      * @param targetCsvDir
      * @throws IOException
      */
-    @SuppressWarnings("null")
     public static void splitExcel(File sourceExcelFile, Collection<String> sheetNamePatterns, File targetCsvDir) throws IOException {
+        splitExcel(sourceExcelFile, sheetNamePatterns, targetCsvDir, ReadMode.STREAMING);
+    }
+
+    /**
+     * @param sourceExcelFile
+     * @param sheetNamePatterns if not <code>null</code> then only the sheets
+     *            with a name in this collection will be convertert to csv. If
+     *            <code>null</code> then all sheet will be convertet.
+     * @param targetCsvDir
+     * @param readMode the way to read the Excel file
+     * @throws IOException
+     */
+    public static void splitExcel(File sourceExcelFile, Collection<String> sheetNamePatterns, File targetCsvDir, ReadMode readMode) throws IOException {
+        splitExcel(sourceExcelFile, sheetNamePatterns, targetCsvDir, readMode, 1);
+    }
+
+    /**
+     * @param sourceExcelFile
+     * @param sheetNamePatterns if not <code>null</code> then only the sheets
+     *            with a name in this collection will be convertert to csv. If
+     *            <code>null</code> then all sheet will be convertet.
+     * @param targetCsvDir
+     * @param readMode the way to read the Excel file
+     * @param threadCount the count of threads that write the csv files of the
+     *            sheets in parallel
+     * @throws IOException
+     */
+    public static void splitExcel(File sourceExcelFile, Collection<String> sheetNamePatterns, File targetCsvDir, ReadMode readMode, int threadCount) throws IOException {
         LOG.info("Start splitting Excel to CSV...");
         Stopwatch stopwatch = Stopwatch.createStarted();
-        String sourceFileName = FilenameUtils.removeExtension(sourceExcelFile.getName());
-        String csvDirBasename = FilenameUtils.removeExtension(targetCsvDir.getPath());
+        readMode.read(sourceExcelFile, sheetName -> new CsvSheetWriter(sourceExcelFile, sheetNamePatterns, targetCsvDir), threadCount);
+        LOG.info("Finished splitting Excel to CSV in " + stopwatch.stop());
+    }
+
+    /**
+     * Writes every accepted sheet into its own csv file.
+     */
+    public static class CsvSheetWriter implements SheetHandler {
+
+        /**  */
+        private final String sourceFileName;
+
+        /**  */
+        private final Collection<String> sheetNamePatterns;
+
+        /**  */
+        private final String csvDirBasename;
+
+        /**  */
+        private PrintWriter csv;
+
+        /**
+         * @param sourceExcelFile
+         * @param sheetNamePatterns if not <code>null</code> then only the
+         *            sheets with a name in this collection will be convertert
+         *            to csv. If <code>null</code> then all sheet will be
+         *            convertet.
+         * @param targetCsvDir
+         */
+        public CsvSheetWriter(File sourceExcelFile, Collection<String> sheetNamePatterns, File targetCsvDir) {
+            sourceFileName = FilenameUtils.removeExtension(sourceExcelFile.getName());
+            this.sheetNamePatterns = sheetNamePatterns;
+            csvDirBasename = FilenameUtils.removeExtension(targetCsvDir.getPath());
+        }
+
+        @Override
+        public boolean startSheet(String sheetName) throws IOException {
+            if (sheetNamePatterns != null) {
+                if (!matches(sheetName, sheetNamePatterns)) {
+                    LOG.info("Skip sheet \"" + sheetName + "\"");
+                    return false;
+                }
+            }
+            // Das ist der Trick für das pot. Setzen des encondigs.(z.B. wegen "männlich")
+            // Wir setzten nun aber nur auf UTF
+            String csvFile = FilenameUtils.concat(csvDirBasename, sourceFileName + "_" + sheetName + ".csv");
+            OutputStream os = new FileOutputStream(new File(csvFile));
+            String charSet = "UTF-8";
+            //                String charSet = "ISO-8859-1";
+            csv = new PrintWriter(new OutputStreamWriter(os, charSet));
+            LOG.info("Creating " + csvFile);
+            return true;
+        }
+
+        @Override
+        public void row(String[] cellValues) {
+            csv.print(toCsvLine(cellValues));
+            csv.println();
+        }
+
+        @Override
+        public void endSheet() {
+            close();
+        }
+
+        @Override
+        public void close() {
+            if (csv != null) {
+                csv.close();
+                csv = null;
+            }
+        }
+    }
+
+    /**
+     * Caches for every cell style index of a workbook if the number format of
+     * the style is a date format, so the format string of a style is inspected
+     * only once and not for every numeric cell. An instance must only be used
+     * by one thread.
+     */
+    static class DateStyles {
+
+        /** Marks a style with a date format in {@link #styleStates} */
+        private static final byte DATE = 1;
+
+        /** Marks a style without a date format in {@link #styleStates} */
+        private static final byte NO_DATE = 2;
+
+        /** The known state of the styles by index (0 if not yet known) */
+        private byte[] styleStates = new byte[64];
+
+        /**
+         * @param styleIndex
+         * @param styles returns the style of the index. Is only called if the
+         *            style index is not yet cached.
+         * @return <code>true</code> if the number format of the style is a
+         *         date format
+         */
+        boolean isDateStyle(int styleIndex, IntFunction<? extends CellStyle> styles) {
+            if (styleIndex >= styleStates.length) {
+                styleStates = Arrays.copyOf(styleStates, Math.max(styleIndex + 1, styleStates.length * 2));
+            }
+            byte state = styleStates[styleIndex];
+            if (state == 0) {
+                CellStyle style = styles.apply(styleIndex);
+                ExcelNumberFormat numberFormat = style == null ? null : ExcelNumberFormat.from(style);
+                state = numberFormat != null && DateUtil.isADateFormat(numberFormat) ? DATE : NO_DATE;
+                styleStates[styleIndex] = state;
+            }
+            return state == DATE;
+        }
+
+        /**
+         * Same as {@link DateUtil#isCellDateFormatted(Cell)} but with the
+         * cached decision of the style of the cell.
+         *
+         * @param cell a numeric cell
+         * @return <code>true</code> if the cell has a date format
+         */
+        boolean isCellDateFormatted(Cell cell) {
+            if (!DateUtil.isValidExcelDate(cell.getNumericCellValue())) {
+                return false;
+            }
+            CellStyle style = cell.getCellStyle();
+            // the index of a style is unsigned
+            return style != null && isDateStyle(style.getIndex() & 0xFFFF, index -> style);
+        }
+    }
+
+    /**
+     * @param sheetName
+     * @param sheetNamePatterns
+     * @return <code>true</code> if the patterns are <code>null</code> or the
+     *         sheet name matches one of the patterns
+     */
+    public static boolean isAcceptedSheet(String sheetName, Collection<String> sheetNamePatterns) {
+        return sheetNamePatterns == null || matches(sheetName, sheetNamePatterns);
+    }
+
+    /**
+     * Reads the Excel file with the user model API of POI. This loads the
+     * whole workbook into the memory.
+     *
+     * @param sourceExcelFile
+     * @param sheetHandlerFactory
+     * @throws IOException
+     */
+    @SuppressWarnings("null")
+    private static void readWorkbook(File sourceExcelFile, SheetHandlerFactory sheetHandlerFactory) throws IOException {
         try (Workbook workbook = new XSSFWorkbook(new FileInputStream(sourceExcelFile))) {
+            DateStyles dateStyles = new DateStyles();
+            List<SheetHandler> sheetHandlers = new ArrayList<>();
+            for (Sheet dataSheet : workbook) {
+                sheetHandlers.add(sheetHandlerFactory.createSheetHandler(dataSheet.getSheetName()));
+            }
             for (Sheet dataSheet : workbook) {
                 String sheetName = dataSheet.getSheetName();
-                if (sheetNamePatterns != null) {
-                    if (!matches(sheetName, sheetNamePatterns)) {
-                        LOG.info("Skip sheet \"" + sheetName + "\"");
-                        continue;
-                    }
+                SheetHandler sheetHandler = sheetHandlers.get(workbook.getSheetIndex(dataSheet));
+                if (!sheetHandler.startSheet(sheetName)) {
+                    continue;
                 }
-                // Das ist der Trick für das pot. Setzen des encondigs.(z.B. wegen "männlich")
-                // Wir setzten nun aber nur auf UTF
-                String csvFile = FilenameUtils.concat(csvDirBasename, sourceFileName + "_" + sheetName + ".csv");
-                OutputStream os = new FileOutputStream(new File(csvFile));
-                String charSet = "UTF-8";
-                //                String charSet = "ISO-8859-1";
-                try (PrintWriter csv = new PrintWriter(new OutputStreamWriter(os, charSet))) {
-                    LOG.info("Creating " + csvFile);
+                try {
                     // Annahme: Header ist in der ersten Zeile
                     // Annahme: Es gibt nur soviele Spalten wie Header
                     int maxCol = 0;
@@ -115,17 +411,14 @@ public class Excel2Csv {
                             break;
                         }
                         String cellColumnHeader = cell.getStringCellValue();
-                        if (cellColumnHeader.isEmpty()) {
+                        if (!isColumnHeader(cellColumnHeader)) {
                             break;
                         }
-                        if (!cellColumnHeader.trim().equals(cellColumnHeader)) {
-                            LOG.error("Column \"" + cellColumnHeader + "\" is not trimmed");
-                        }
                         maxCol++;
                     }
                     for (Row row : dataSheet) {
                         boolean skipEmptyRow = true;
-                        List<String> rowValues = new ArrayList<>();
+                        String[] rowValues = new String[maxCol];
                         for (int col = 0; col < maxCol; col++) {
                             Cell cell = row.getCell(col);
                             String cellValue = null;
@@ -134,21 +427,11 @@ public class Excel2Csv {
                             if (cellType == CellType.BLANK) {
                                 cellValue = "";
                             } else if (cellType == CellType.NUMERIC || formulaResultType == CellType.NUMERIC) {
-                                if (DateUtil.isCellDateFormatted(cell)) {
+                                if (dateStyles.isCellDateFormatted(cell)) {
                                     // Achtung: Das klappt nicht immer; ab und zu ist Datum in Excel trotzdem ein String
-                                    cellValue = DATE_FORMAT.format(cell.getDateCellValue());
+                                    cellValue = toDateCellValue(cell.getDateCellValue());
                                 } else {
-                                    // 11715311 wird ansonsten zu 1.1715311E7
-                                    // Mist Excel
-                                    double d = cell.getNumericCellValue();
-                                    long l = (long) d;
-                                    if (d - l == 0) {
-                                        cellValue = "" + l;
-                                    } else {
-                                        cellValue = "" + d;
-                                    }
-                                    cellValue = cellValue.replace(",", ".");
-                                    cellValue = cellValue.replaceAll("\\.0$", "");
+                                    cellValue = toNumericCellValue(cell.getNumericCellValue());
                                 }
                                 skipEmptyRow = false;
                             } else if (cellType == CellType.STRING || formulaResultType == CellType.STRING) {
@@ -158,34 +441,164 @@ public class Excel2Csv {
                                 LOG.error("Unknown cell type " + cell.getCellType().name() + " " + cell.getAddress());
                                 cellValue = "";
                             }
-                            // clean value inclusive bon-breaking whitespace occured in ICD
-                            cellValue = cellValue.replaceAll("[\u00A0\u2007\u202F\\s]+", " ").trim();
-                            // "No Value" used in UKE
-                            if ("#NV".equals(cellValue)) {
-                                cellValue = "";
-                            }
-                            // We must escape all quotes in the values to prevent errors
-                            // on reading the CSV-file with Java. There is no standard
-                            // for escaping quotes in CSV so we use our own escape sequence.
-                            cellValue = cellValue.replace("\"", QUOTE_ESCAPE);
-                            if (cellValue.contains(DELIM)) {
-                                cellValue = QUOTE + cellValue + QUOTE;
-                            }
-                            rowValues.add(cellValue);
+                            rowValues[col] = cellValue;
                         }
                         if (!skipEmptyRow) {
-                            for (int i = 0; i < rowValues.size() - 1; i++) {
-                                csv.print(rowValues.get(i));
-                                csv.print(DELIM);
-                            }
-                            csv.print(rowValues.get(rowValues.size() - 1));
-                            csv.println();
+                            sheetHandler.row(rowValues);
                         }
                     }
+                    sheetHandler.endSheet();
+                } finally {
+                    sheetHandler.close();
                 }
             }
         }
-        LOG.info("Finished splitting Excel to CSV in " + stopwatch.stop());
+    }
+
+    /**
+     * @param cellColumnHeader the string value of a cell in the header row
+     * @return <code>true</code> if the value is not empty and the cell
+     *         defines a column of the sheet
+     */
+    static boolean isColumnHeader(String cellColumnHeader) {
+        if (cellColumnHeader.isEmpty()) {
+            return false;
+        }
+        if (!cellColumnHeader.trim().equals(cellColumnHeader)) {
+            LOG.error("Column \"" + cellColumnHeader + "\" is not trimmed");
+        }
+        return true;
+    }
+
+    /**
+     * @param date
+     * @return the string value of a date formatted numeric cell
+     */
+    static String toDateCellValue(Date date) {
+        return DATE_FORMAT.format(LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()));
+    }
+
+    /**
+     * @param d
+     * @return the string value of a numeric cell
+     */
+    static String toNumericCellValue(double d) {
+        // 11715311 wird ansonsten zu 1.1715311E7
+        // Mist Excel
+        long l = (long) d;
+        if (d - l == 0) {
+            return Long.toString(l);
+        }
+        // Double.toString never contains a comma
+        String cellValue = Double.toString(d);
+        return cellValue.endsWith(".0") ? cellValue.substring(0, cellValue.length() - 2) : cellValue;
+    }
+
+    /**
+     * @param cellValues the not yet cleaned values of the cells of a row
+     * @return the line of the csv file for the row (without line separator)
+     */
+    public static String toCsvLine(String[] cellValues) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < cellValues.length - 1; i++) {
+            appendCsvValue(line, cellValues[i]);
+            line.append(DELIM);
+        }
+        appendCsvValue(line, cellValues[cellValues.length - 1]);
+        return line.toString();
+    }
+
+    /**
+     * @param cellValue
+     * @return the value with normalized whitespaces and without the "No Value"
+     *         marker. The value is not escaped.
+     */
+    public static String cleanCellValue(String cellValue) {
+        // clean value inclusive bon-breaking whitespace occured in ICD:
+        // every run of whitespaces becomes one space and the result is
+        // trimmed like String.trim() in one pass over the value
+        StringBuilder cleaned = CLEAN_BUFFER.get();
+        cleaned.setLength(0);
+        boolean inWhitespaces = false;
+        for (int i = 0; i < cellValue.length(); i++) {
+            char c = cellValue.charAt(i);
+            if (isCleanedWhitespace(c)) {
+                if (!inWhitespaces) {
+                    cleaned.append(' ');
+                    inWhitespaces = true;
+                }
+            } else {
+                cleaned.append(c);
+                inWhitespaces = false;
+            }
+        }
+        int start = 0;
+        int end = cleaned.length();
+        while (start < end && cleaned.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && cleaned.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        // "No Value" used in UKE
+        if (end - start == 3 && cleaned.charAt(start) == '#' && cleaned.charAt(start + 1) == 'N' && cleaned.charAt(start + 2) == 'V') {
+            return "";
+        }
+        // most values are already clean -> no new string
+        if (end - start == cellValue.length() && cellValue.contentEquals(cleaned)) {
+            return cellValue;
+        }
+        return cleaned.substring(start, end);
+    }
+
+    /**
+     * @param c
+     * @return <code>true</code> if the char is a whitespace of the regex
+     *         <code>\s</code> or a non-breaking space
+     */
+    private static boolean isCleanedWhitespace(char c) {
+        switch (c) {
+        case ' ':
+        case '\t':
+        case '\n':
+        case '\u000B':
+        case '\f':
+        case '\r':
+        case '\u00A0':
+        case '\u2007':
+        case '\u202F':
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Appends the cleaned and escaped value to write in the csv file.
+     *
+     * @param line
+     * @param cellValue
+     */
+    private static void appendCsvValue(StringBuilder line, String cellValue) {
+        cellValue = cleanCellValue(cellValue);
+        boolean quoted = cellValue.indexOf(DELIM) >= 0;
+        if (quoted) {
+            line.append(QUOTE);
+        }
+        // We must escape all quotes in the values to prevent errors
+        // on reading the CSV-file with Java. There is no standard
+        // for escaping quotes in CSV so we use our own escape sequence.
+        for (int i = 0; i < cellValue.length(); i++) {
+            char c = cellValue.charAt(i);
+            if (c == QUOTE) {
+                line.append(QUOTE_ESCAPE);
+            } else {
+                line.append(c);
+            }
+        }
+        if (quoted) {
+            line.append(QUOTE);
+        }
     }
 
 }
@@ -0,0 +1,608 @@
+package de.uni_leipzig.imise.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFReader.SheetIterator;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.apache.xmlbeans.XmlException;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorkbookPr;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.WorkbookDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import de.uni_leipzig.imise.utils.Excel2Csv.SheetHandler;
+import de.uni_leipzig.imise.utils.Excel2Csv.SheetHandlerFactory;
+
+/**
+ * Reads the sheets of an Excel (xlsx) file row by row with the event (SAX)
+ * API of POI. Only the shared strings table, the styles and one row (per
+ * thread) are held in the memory. The cell values are the same as the values read with the
+ * user model API in {@link Excel2Csv}.
+ *
+ * @author AXS (17.10.2026)
+ */
+public class StreamingExcelReader {
+
+    /**  */
+    private static final Logger LOG = LoggerFactory.getLogger(StreamingExcelReader.class);
+
+    /**
+     * Reads all sheets of the Excel file and passes the rows to the handler.
+     *
+     * @param excelFile
+     * @param sheetHandler
+     * @throws IOException
+     */
+    public static void read(File excelFile, SheetHandler sheetHandler) throws IOException {
+        read(excelFile, sheetName -> sheetHandler, 1);
+    }
+
+    /**
+     * Reads all sheets of the Excel file and passes the rows of every sheet to
+     * the handler created for the sheet. With more than one thread the XML
+     * parts of the sheets are parsed in parallel. The shared strings table and
+     * the styles are read only once and are shared by all threads.
+     *
+     * @param excelFile
+     * @param sheetHandlerFactory
+     * @param threadCount the count of threads that read the sheets in
+     *            parallel. With 1 the sheets are read one after another by the
+     *            calling thread.
+     * @throws IOException
+     */
+    public static void read(File excelFile, SheetHandlerFactory sheetHandlerFactory, int threadCount) throws IOException {
+        try (OPCPackage excelPackage = OPCPackage.open(excelFile, PackageAccess.READ)) {
+            WorkbookReader reader = new WorkbookReader(excelPackage);
+            //the user model API also ignores the phonetic runs of the strings
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(excelPackage, false);
+            StylesTable styles = reader.getStylesTable();
+            boolean date1904 = isDate1904(reader);
+            List<SheetPart> sheetParts = reader.getSheetParts(sheetHandlerFactory);
+            if (threadCount <= 1 || sheetParts.size() <= 1) {
+                for (SheetPart sheetPart : sheetParts) {
+                    sheetPart.read(sharedStrings, styles, date1904);
+                }
+            } else {
+                readParallel(sheetParts, sharedStrings, styles, date1904, threadCount);
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException | XmlException e) {
+            throw new IOException("Error reading Excel file " + excelFile, e);
+        }
+    }
+
+    /**
+     * Reads the sheets in parallel and waits until all sheets are read.
+     *
+     * @param sheetParts
+     * @param sharedStrings
+     * @param styles
+     * @param date1904
+     * @param threadCount
+     * @throws IOException
+     * @throws SAXException
+     * @throws ParserConfigurationException
+     */
+    private static void readParallel(List<SheetPart> sheetParts, ReadOnlySharedStringsTable sharedStrings, StylesTable styles, boolean date1904, int threadCount)
+            throws IOException, SAXException, ParserConfigurationException {
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadCount, sheetParts.size()), runnable -> {
+            Thread thread = new Thread(runnable, "StreamingExcelReader-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Void>> sheetReads = new ArrayList<>();
+            for (SheetPart sheetPart : sheetParts) {
+                sheetReads.add(executor.submit(() -> {
+                    sheetPart.read(sharedStrings, styles, date1904);
+                    return null;
+                }));
+            }
+            for (Future<Void> sheetRead : sheetReads) {
+                try {
+                    sheetRead.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    } else if (cause instanceof SAXException) {
+                        throw (SAXException) cause;
+                    } else if (cause instanceof ParserConfigurationException) {
+                        throw (ParserConfigurationException) cause;
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new IOException(cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while reading the sheets", e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Lists the sheets of the workbook without opening the input streams of
+     * the sheets. The stream of a sheet is opened only by the thread that
+     * reads the sheet.
+     */
+    private static class WorkbookReader extends XSSFReader {
+
+        /**
+         * @param excelPackage
+         * @throws IOException
+         * @throws OpenXML4JException
+         */
+        public WorkbookReader(OPCPackage excelPackage) throws IOException, OpenXML4JException {
+            super(excelPackage);
+        }
+
+        /**
+         * @param sheetHandlerFactory
+         * @return the parts of all sheets in the order of the workbook with the
+         *         handlers created for the sheets
+         * @throws IOException
+         * @throws InvalidFormatException
+         */
+        public List<SheetPart> getSheetParts(SheetHandlerFactory sheetHandlerFactory) throws IOException, InvalidFormatException {
+            List<SheetPart> sheetParts = new ArrayList<>();
+            SheetPartIterator sheets = new SheetPartIterator(workbookPart);
+            while (sheets.hasNext()) {
+                sheets.moveToNext();
+                String sheetName = sheets.getSheetName();
+                PackagePart part = sheets.getSheetPart();
+                if (part == null) {
+                    throw new IOException("Missing XML part of sheet \"" + sheetName + "\"");
+                }
+                sheetParts.add(new SheetPart(sheetName, part, sheetHandlerFactory.createSheetHandler(sheetName)));
+            }
+            return sheetParts;
+        }
+    }
+
+    /**
+     * Iterates over the sheets like the {@link SheetIterator} of the
+     * {@link XSSFReader}, but {@link SheetIterator#next()} would open the
+     * input stream of every sheet.
+     */
+    private static class SheetPartIterator extends SheetIterator {
+
+        /**
+         * @param workbookPart
+         * @throws IOException
+         * @throws InvalidFormatException
+         */
+        public SheetPartIterator(PackagePart workbookPart) throws IOException, InvalidFormatException {
+            super(workbookPart);
+        }
+
+        /**
+         * Moves to the next sheet, so {@link #getSheetName()} and
+         * {@link #getSheetPart()} return the name and the part of this sheet.
+         */
+        public void moveToNext() {
+            xssfSheetRef = sheetIterator.next();
+        }
+    }
+
+    /**
+     * The XML part of one sheet with the handler for its rows.
+     */
+    private static class SheetPart {
+
+        /**  */
+        private final String sheetName;
+
+        /** The XML part of the sheet */
+        private final PackagePart part;
+
+        /**  */
+        private final SheetHandler sheetHandler;
+
+        /**
+         * @param sheetName
+         * @param part
+         * @param sheetHandler
+         */
+        public SheetPart(String sheetName, PackagePart part, SheetHandler sheetHandler) {
+            this.sheetName = sheetName;
+            this.part = part;
+            this.sheetHandler = sheetHandler;
+        }
+
+        /**
+         * Parses the XML of the sheet and passes the rows to the handler.
+         *
+         * @param sharedStrings
+         * @param styles
+         * @param date1904
+         * @throws IOException
+         * @throws SAXException
+         * @throws ParserConfigurationException
+         */
+        public void read(ReadOnlySharedStringsTable sharedStrings, StylesTable styles, boolean date1904) throws IOException, SAXException, ParserConfigurationException {
+            if (!sheetHandler.startSheet(sheetName)) {
+                return;
+            }
+            try (InputStream sheetInputStream = part.getInputStream()) {
+                SheetContentHandler contentHandler = new SheetContentHandler(sheetName, sheetHandler, sharedStrings, styles, date1904);
+                XMLReader sheetParser = XMLHelper.newXMLReader();
+                sheetParser.setContentHandler(contentHandler);
+                sheetParser.parse(new InputSource(sheetInputStream));
+                sheetHandler.endSheet();
+            } finally {
+                sheetHandler.close();
+            }
+        }
+    }
+
+    /**
+     * @param reader
+     * @return <code>true</code> if the dates in the workbook are based on the
+     *         1904 date system
+     * @throws IOException
+     * @throws OpenXML4JException
+     * @throws XmlException
+     */
+    private static boolean isDate1904(XSSFReader reader) throws IOException, OpenXML4JException, XmlException {
+        try (InputStream workbookInputStream = reader.getWorkbookData()) {
+            CTWorkbookPr workbookPr = WorkbookDocument.Factory.parse(workbookInputStream).getWorkbook().getWorkbookPr();
+            return workbookPr != null && workbookPr.getDate1904();
+        }
+    }
+
+    /**
+     * SAX handler for the XML of one sheet. It collects the values of the
+     * cells of one row and passes the row to the {@link SheetHandler} at the
+     * end of the row.
+     */
+    private static class SheetContentHandler extends DefaultHandler {
+
+        /**  */
+        private final String sheetName;
+
+        /**  */
+        private final SheetHandler sheetHandler;
+
+        /**  */
+        private final ReadOnlySharedStringsTable sharedStrings;
+
+        /**  */
+        private final StylesTable styles;
+
+        /**  */
+        private final boolean date1904;
+
+        /** The cached date format decisions of the styles */
+        private final Excel2Csv.DateStyles dateStyles = new Excel2Csv.DateStyles();
+
+        /**
+         * The count of columns. Is -1 until the header row was read
+         * completely.
+         */
+        private int maxCol = -1;
+
+        /** Values of the header row by column index */
+        private final List<String> headerValues = new ArrayList<>();
+
+        /** Values of the current row */
+        private String[] rowValues;
+
+        /** <code>true</code> until a numeric or string cell is found in the row */
+        private boolean skipEmptyRow;
+
+        /** The index of the current row */
+        private int rowIndex = -1;
+
+        /** The column index of the previous cell */
+        private int previousColumnIndex;
+
+        /** The column index of the current cell */
+        private int columnIndex;
+
+        /** The value of the t attribute of the current cell */
+        private String cellType;
+
+        /** The value of the s attribute of the current cell */
+        private String cellStyle;
+
+        /** The current cell contains a formula */
+        private boolean formula;
+
+        /** The current cell contains a v element */
+        private boolean valueFound;
+
+        /** The text of the v element of the current cell */
+        private final StringBuilder value = new StringBuilder();
+
+        /** The text of the inline string of the current cell */
+        private final StringBuilder inlineString = new StringBuilder();
+
+        /** The current cell contains an inline string element */
+        private boolean inlineStringFound;
+
+        /**  */
+        private boolean inValue;
+
+        /**  */
+        private boolean inInlineString;
+
+        /**  */
+        private boolean inInlineStringText;
+
+        /**  */
+        private boolean inPhoneticRun;
+
+        /**
+         * @param sheetName
+         * @param sheetHandler
+         * @param sharedStrings
+         * @param styles
+         * @param date1904
+         */
+        public SheetContentHandler(String sheetName, SheetHandler sheetHandler, ReadOnlySharedStringsTable sharedStrings, StylesTable styles, boolean date1904) {
+            this.sheetName = sheetName;
+            this.sheetHandler = sheetHandler;
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+            this.date1904 = date1904;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+            case "row":
+                String rowReference = attributes.getValue("r");
+                rowIndex = rowReference == null ? rowIndex + 1 : Integer.parseInt(rowReference) - 1;
+                rowValues = maxCol > 0 ? new String[maxCol] : null;
+                skipEmptyRow = true;
+                previousColumnIndex = -1;
+                break;
+            case "c":
+                String cellReference = attributes.getValue("r");
+                columnIndex = cellReference == null ? previousColumnIndex + 1 : new CellReference(cellReference).getCol();
+                previousColumnIndex = columnIndex;
+                cellType = attributes.getValue("t");
+                cellStyle = attributes.getValue("s");
+                formula = false;
+                valueFound = false;
+                inlineStringFound = false;
+                value.setLength(0);
+                inlineString.setLength(0);
+                break;
+            case "f":
+                //data table formulas are no formulas for the user model API
+                formula = !"dataTable".equals(attributes.getValue("t"));
+                break;
+            case "v":
+                valueFound = true;
+                inValue = true;
+                break;
+            case "is":
+                inlineStringFound = true;
+                inInlineString = true;
+                break;
+            case "rPh":
+                inPhoneticRun = true;
+                break;
+            case "t":
+                inInlineStringText = inInlineString && !inPhoneticRun;
+                break;
+            default:
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue) {
+                value.append(ch, start, length);
+            } else if (inInlineStringText) {
+                inlineString.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            try {
+                switch (localName) {
+                case "v":
+                    inValue = false;
+                    break;
+                case "t":
+                    inInlineStringText = false;
+                    break;
+                case "rPh":
+                    inPhoneticRun = false;
+                    break;
+                case "is":
+                    inInlineString = false;
+                    break;
+                case "c":
+                    endCell();
+                    break;
+                case "row":
+                    endRow();
+                    break;
+                case "sheetData":
+                    if (maxCol < 0) {
+                        LOG.error("Sheet \"" + sheetName + "\" has no header row");
+                    }
+                    break;
+                default:
+                }
+            } catch (IOException e) {
+                throw new SAXException(e);
+            }
+        }
+
+        /**
+         * Determines the value of the current cell.
+         */
+        private void endCell() {
+            if (maxCol < 0) {
+                if (rowIndex == 0) {
+                    while (headerValues.size() <= columnIndex) {
+                        headerValues.add(null);
+                    }
+                    headerValues.set(columnIndex, getCellValue());
+                }
+            } else if (columnIndex < maxCol && rowValues != null) {
+                rowValues[columnIndex] = getCellValue();
+            }
+        }
+
+        /**
+         * @return the string value of the current cell in the same way as
+         *         {@link Excel2Csv} reads it with the user model API. Sets
+         *         {@link #skipEmptyRow} to <code>false</code> for numeric and
+         *         string cells.
+         */
+        private String getCellValue() {
+            String type = cellType == null ? "n" : cellType;
+            if (formula) {
+                switch (type) {
+                case "b":
+                case "e":
+                    return unknownCellType("FORMULA");
+                case "str":
+                case "s":
+                case "inlineStr":
+                    skipEmptyRow = false;
+                    return new XSSFRichTextString(value.toString()).getString();
+                default:
+                    skipEmptyRow = false;
+                    return getNumericCellValue();
+                }
+            }
+            switch (type) {
+            case "n":
+                if (!valueFound) {
+                    return "";
+                }
+                skipEmptyRow = false;
+                return getNumericCellValue();
+            case "s":
+                skipEmptyRow = false;
+                if (!valueFound) {
+                    return "";
+                }
+                return sharedStrings.getItemAt(Integer.parseInt(value.toString())).getString();
+            case "inlineStr":
+                skipEmptyRow = false;
+                if (inlineStringFound) {
+                    return new XSSFRichTextString(inlineString.toString()).getString();
+                }
+                return new XSSFRichTextString(value.toString()).getString();
+            case "str":
+                skipEmptyRow = false;
+                return new XSSFRichTextString(value.toString()).getString();
+            case "b":
+                return unknownCellType("BOOLEAN");
+            case "e":
+                return unknownCellType("ERROR");
+            default:
+                return unknownCellType(type);
+            }
+        }
+
+        /**
+         * @param cellTypeName
+         * @return an empty string
+         */
+        private String unknownCellType(String cellTypeName) {
+            LOG.error("Unknown cell type " + cellTypeName + " " + new CellReference(rowIndex, columnIndex).formatAsString());
+            return "";
+        }
+
+        /**
+         * @return the string value of a numeric cell with respect of a date
+         *         format of the cell
+         */
+        private String getNumericCellValue() {
+            String v = value.toString();
+            double d = v.isEmpty() ? 0.0 : Double.parseDouble(v);
+            if (isDateFormatted(d)) {
+                Date date = DateUtil.getJavaDate(d, date1904);
+                return Excel2Csv.toDateCellValue(date);
+            }
+            return Excel2Csv.toNumericCellValue(d);
+        }
+
+        /**
+         * @param d
+         * @return <code>true</code> if the current cell has a date format
+         */
+        private boolean isDateFormatted(double d) {
+            if (!DateUtil.isValidExcelDate(d) || styles == null || styles.getNumCellStyles() == 0) {
+                return false;
+            }
+            int styleIndex = cellStyle == null ? 0 : Integer.parseInt(cellStyle);
+            return dateStyles.isDateStyle(styleIndex, styles::getStyleAt);
+        }
+
+        /**
+         * Passes the row to the {@link SheetHandler} if it is not empty.
+         *
+         * @throws IOException
+         */
+        private void endRow() throws IOException {
+            if (maxCol < 0) {
+                if (rowIndex != 0) {
+                    LOG.error("Sheet \"" + sheetName + "\" has no header row");
+                    maxCol = 0;
+                    return;
+                }
+                maxCol = 0;
+                for (String headerValue : headerValues) {
+                    if (headerValue == null || !Excel2Csv.isColumnHeader(headerValue)) {
+                        break;
+                    }
+                    maxCol++;
+                }
+                rowValues = Arrays.copyOf(headerValues.toArray(new String[0]), maxCol);
+                skipEmptyRow = maxCol == 0;
+            }
+            if (!skipEmptyRow && maxCol > 0) {
+                for (int col = 0; col < maxCol; col++) {
+                    if (rowValues[col] == null) {
+                        rowValues[col] = "";
+                    }
+                }
+                sheetHandler.row(rowValues);
+            }
+        }
+
+    }
+
+}
@@ -9,13 +9,22 @@ import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.logging.log4j.util.Strings;
 import org.hl7.fhir.common.hapi.validation.support.CachingValidationSupport;
 import org.hl7.fhir.common.hapi.validation.support.CommonCodeSystemsTerminologyService;
 import org.hl7.fhir.common.hapi.validation.support.InMemoryTerminologyServerValidationSupport;
 import org.hl7.fhir.common.hapi.validation.support.NpmPackageValidationSupport;
+import org.hl7.fhir.common.hapi.validation.support.PrePopulatedValidationSupport;
 import org.hl7.fhir.common.hapi.validation.support.SnapshotGeneratingValidationSupport;
 import org.hl7.fhir.common.hapi.validation.support.ValidationSupportChain;
 import org.hl7.fhir.common.hapi.validation.validator.FhirInstanceValidator;
@@ -23,20 +32,26 @@ import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
 import org.hl7.fhir.r4.model.Resource;
+import org.hl7.fhir.r4.model.StructureDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
 
 import ca.uhn.fhir.context.ConfigurationException;
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.support.ValidationSupportContext;
 import ca.uhn.fhir.context.support.DefaultProfileValidationSupport;
 import ca.uhn.fhir.parser.DataFormatException;
+import ca.uhn.fhir.util.VersionUtil;
 import ca.uhn.fhir.validation.FhirValidator;
 import ca.uhn.fhir.validation.ResultSeverityEnum;
 import ca.uhn.fhir.validation.SingleValidationMessage;
 import ca.uhn.fhir.validation.ValidationResult;
-import de.uni_leipzig.life.csv2fhir.OutputFileType;
+import de.uni_leipzig.imise.validate.ValidationResultCache.Verdict;
+import de.uni_leipzig.life.csv2fhir.utils.FhirParsers;
 
 /**
  * @author fmeineke (12.10.2021), @author AXS (22.11.2021)
@@ -50,8 +65,57 @@ public class FHIRValidator {
     private static final String VALIDATOR_PACKAGES_DIR_IN_RESOURCES = "fhir";
 
     /**  */
+    private final FhirContext fhirContext;
+
+    /**
+     * The validator is thread safe and shared by all threads, so the
+     * snapshots of the profiles are generated and cached only once.
+     */
     private final FhirValidator validator;
 
+    /**
+     * The count of threads that validate the resources of
+     * {@link #validateAll(List)} in parallel. With 1 the resources are
+     * validated one after another in the calling thread.
+     */
+    private int threadCount = 1;
+
+    /** Validates the resources in parallel if threadCount is greater than 1 */
+    private ExecutorService executor;
+
+    /**
+     * Hash of the loaded validator packages, the HAPI version and the ignored
+     * message parts. Identifies the verdicts in the {@link #resultCache}.
+     */
+    private String validatorFingerprint = "";
+
+    /**
+     * The cache of the validation verdicts of former runs or <code>null</code>
+     * if every resource should be validated
+     */
+    private volatile ValidationResultCache resultCache;
+
+    /**
+     * The cache of the conformance resources of the validator packages or
+     * <code>null</code> if the packages should be loaded on every start
+     */
+    private ValidationPackageCache packageCache;
+
+    /** The file of the {@link #packageCache} */
+    private final File packageCacheFile;
+
+    /** The conformance resources of the validator packages */
+    private PrePopulatedValidationSupport packageSupport;
+
+    /** Generates the missing snapshots of the validator packages */
+    private SynchronizedSnapshotGeneratingValidationSupport snapshotSupport;
+
+    /**
+     * The count of generated snapshots that are already in the
+     * {@link #packageCache} or -1 if the cache was not loaded or saved
+     */
+    private int packageCacheSnapshotCount = -1;
+
     /**
      *
      */
@@ -66,31 +130,73 @@ public class FHIRValidator {
         }
     }
 
-    /** Counters for the validation result */
-    private class ResultCounter {
-        /** count of all warnings in the bundle */
+    /** Counters of the messages of one validation call */
+    private static class MessageCounter {
+        /** count of all warnings */
         int warnings = 0;
-        /** count of all errors in the bundle */
+        /** count of all errors */
         int errors = 0;
-        /** count of all ignored errors or warnings in the bundle */
+        /** count of all ignored errors or warnings */
         int ignored = 0;
-        /** count of valid resources in the bundle */
+        /** count of all other messages */
         int valid = 0;
-        /** count of all resources in the bundle */
+        /** count of all messages */
         int resources = 0;
+    }
+
+    /**
+     * Aggregated counters for the validation results. The counters are
+     * striped, so the results of parallel validations can be added without
+     * contention.
+     */
+    private static class ResultCounter {
+        /** count of all warnings in the bundle */
+        final LongAdder warnings = new LongAdder();
+        /** count of all errors in the bundle */
+        final LongAdder errors = new LongAdder();
+        /** count of all ignored errors or warnings in the bundle */
+        final LongAdder ignored = new LongAdder();
+        /** count of valid resources in the bundle */
+        final LongAdder valid = new LongAdder();
+        /** count of all resources in the bundle */
+        final LongAdder resources = new LongAdder();
+
+        /**
+         * @param counter the counter of one validation call
+         */
+        void add(MessageCounter counter) {
+            warnings.add(counter.warnings);
+            errors.add(counter.errors);
+            ignored.add(counter.ignored);
+            valid.add(counter.valid);
+            resources.add(counter.resources);
+        }
+
+        /**
+         *
+         */
+        void reset() {
+            warnings.reset();
+            errors.reset();
+            ignored.reset();
+            valid.reset();
+            resources.reset();
+        }
 
         /**
-         * @param i
-         * @return a string value of i with at least the string length of the
-         *         current value of resources. The string is filled with leading
-         *         whitespaces if it is s
+         * @param counter
+         * @return a string value of the counter with at least the string
+         *         length of the current value of resources. The string is
+         *         filled with leading whitespaces if it is shorter.
          */
-        String toString(int i) {
+        String toString(LongAdder counter) {
+            long i = counter.sum();
             String s = String.valueOf(i);
-            if (i >= resources) {
+            long resourcesCount = resources.sum();
+            if (i >= resourcesCount) {
                 return s;
             }
-            String r = String.valueOf(resources);
+            String r = String.valueOf(resourcesCount);
             while (s.length() < r.length()) {
                 s = " " + s;
             }
@@ -115,7 +221,7 @@ public class FHIRValidator {
     }
 
     /** Counter for a Bundle result */
-    private ResultCounter bundleResultCounter = new ResultCounter();
+    private final ResultCounter bundleResultCounter = new ResultCounter();
 
     /** Counter for all Bundle results */
     private final ResultCounter fullResultCounter = new ResultCounter();
@@ -179,14 +285,120 @@ public class FHIRValidator {
      *            with the same or an lower ordinal()-Value are logged.
      */
     public FHIRValidator(ValidationResultType minLogLevel) {
+        this(minLogLevel, null);
+    }
+
+    /**
+     * @param minLogLevel Determines which messeages are logged. Only messages
+     *            with the same or an lower ordinal()-Value are logged.
+     * @param packageCacheFile the file of the cache of the conformance
+     *            resources of the validator packages or <code>null</code> to
+     *            load the packages on every start
+     */
+    public FHIRValidator(ValidationResultType minLogLevel, File packageCacheFile) {
         this.minLogLevel = minLogLevel;
+        this.packageCacheFile = packageCacheFile;
         // Create a validator. Note that for good performance you can create as many validator objects
         // as you like, but you should reuse the same validation support object in all of the,.
-        FhirContext fhirContext = FhirContext.forR4();
+        fhirContext = FhirParsers.getContext();
         validator = fhirContext.newValidator();
         init();
     }
 
+    /**
+     * @param threadCount the count of threads that validate the resources of
+     *            {@link #validateAll(List)} in parallel. Default is 1.
+     */
+    public synchronized void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * Enables the persistent cache of validation verdicts. Unchanged resources
+     * that were validated in a former run with the same validator packages
+     * are not validated again.
+     *
+     * @param cacheFile the file of the cache or <code>null</code> to validate
+     *            every resource
+     */
+    public void setResultCacheFile(File cacheFile) {
+        resultCache = cacheFile == null ? null : new ValidationResultCache(cacheFile, validatorFingerprint);
+    }
+
+    /**
+     * Saves the verdicts of the validations of this run to the cache file if
+     * the cache is enabled and logs the cache hit rate.
+     *
+     * @throws IOException
+     */
+    public void saveResultCache() throws IOException {
+        ValidationResultCache resultCache = this.resultCache;
+        if (resultCache != null) {
+            resultCache.save();
+            LOG.info("Validation cache hits: " + resultCache.getHitRateString());
+        }
+    }
+
+    /**
+     * @return the executor for parallel validations or <code>null</code> if
+     *         the resources should be validated in the calling thread
+     */
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null && threadCount > 1) {
+            AtomicInteger threadCounter = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+                Thread thread = new Thread(runnable, "FHIRValidator-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Generates the snapshots of the profiles one after another. The snapshot
+     * generator modifies the base profiles while generating the snapshot of a
+     * profile, so parallel validations with profiles that are not yet cached
+     * would fail with a {@link java.util.ConcurrentModificationException}.
+     * Every snapshot is generated only once, so the lock is not relevant for
+     * the performance.<br>
+     * The generated snapshots are collected for the package cache.
+     */
+    private static class SynchronizedSnapshotGeneratingValidationSupport extends SnapshotGeneratingValidationSupport {
+
+        /** URL -> the profiles with the generated snapshots */
+        private final Map<String, StructureDefinition> generatedSnapshots = new LinkedHashMap<>();
+
+        /**
+         * @param fhirContext
+         */
+        SynchronizedSnapshotGeneratingValidationSupport(FhirContext fhirContext) {
+            super(fhirContext);
+        }
+
+        @Override
+        public synchronized IBaseResource generateSnapshot(ValidationSupportContext validationSupportContext, IBaseResource input, String url, String webUrl, String profileName) {
+            IBaseResource snapshot = super.generateSnapshot(validationSupportContext, input, url, webUrl, profileName);
+            if (snapshot instanceof StructureDefinition) {
+                StructureDefinition profile = (StructureDefinition) snapshot;
+                generatedSnapshots.put(profile.getUrl(), profile);
+            }
+            return snapshot;
+        }
+
+        /**
+         * @return a copy of the profiles with the generated snapshots by their
+         *         URL
+         */
+        synchronized Map<String, StructureDefinition> getGeneratedSnapshots() {
+            return new LinkedHashMap<>(generatedSnapshots);
+        }
+    }
+
     /**
      * @param filesOrDirectoriesToValidate
      * @param validateBundleEntriesSeparately
@@ -241,44 +453,64 @@ public class FHIRValidator {
                     LOG.error("Could not validate bundle " + inputFileName);
                     continue;
                 }
-                bundleResultCounter = new ResultCounter();
+                bundleResultCounter.reset();
             }
         }
         if (!validateOnlyOneFile) {
             logResult(null);
         }
         LOG.info("Finished Validating in " + stopwatch.stop());
+        try {
+            savePackageCache();
+        } catch (IOException e) {
+            LOG.error("Could not save validation package cache", e);
+        }
         return results;
     }
 
     /**
-     *
+     * Loads the conformance resources of the validator packages from the
+     * package cache if it is up to date and from the packages otherwise.
      */
     public void init() {
         LOG.info("Start Init FHIR Validator Bundles...");
         Stopwatch stopwatch = Stopwatch.createStarted();
-        FhirContext fhirContext = FhirContext.forR4();
-        NpmPackageValidationSupport npmPackageSupport = new NpmPackageValidationSupport(fhirContext);
         File[] validatorPackages = getValidatorPackages();
+        String packagesFingerprint = getPackagesFingerprint(validatorPackages);
+        validatorFingerprint = getValidatorFingerprint(packagesFingerprint);
         if (validatorPackages != null) {
-            for (File validatorPackage : validatorPackages) {
-                if (validatorPackage.isFile()) {
-                    try {
-                        LOG.info("Load Validation Package: " + validatorPackage.getCanonicalPath());
-                        npmPackageSupport.loadPackageFromClasspath(VALIDATOR_PACKAGES_DIR_IN_RESOURCES + "/" + validatorPackage.getName());
-                    } catch (IOException e) {
-                        LOG.error(e.getMessage(), e);
+            packageCache = packageCacheFile == null ? null : new ValidationPackageCache(packageCacheFile, packagesFingerprint);
+            List<IBaseResource> cachedResources = packageCache == null ? null : packageCache.load(fhirContext);
+            packageCacheSnapshotCount = -1;
+            if (cachedResources != null) {
+                packageSupport = new PrePopulatedValidationSupport(fhirContext);
+                for (IBaseResource resource : cachedResources) {
+                    packageSupport.addResource(resource);
+                }
+                packageCacheSnapshotCount = 0;
+            } else {
+                NpmPackageValidationSupport npmPackageSupport = new NpmPackageValidationSupport(fhirContext);
+                for (File validatorPackage : validatorPackages) {
+                    if (validatorPackage.isFile()) {
+                        try {
+                            LOG.info("Load Validation Package: " + validatorPackage.getCanonicalPath());
+                            npmPackageSupport.loadPackageFromClasspath(VALIDATOR_PACKAGES_DIR_IN_RESOURCES + "/" + validatorPackage.getName());
+                        } catch (IOException e) {
+                            LOG.error(e.getMessage(), e);
+                        }
                     }
                 }
+                packageSupport = npmPackageSupport;
             }
+            snapshotSupport = new SynchronizedSnapshotGeneratingValidationSupport(fhirContext);
 
             // Create a support chain including the NPM Package Support
             ValidationSupportChain validationSupportChain = new ValidationSupportChain(
-                    npmPackageSupport,
+                    packageSupport,
                     new DefaultProfileValidationSupport(fhirContext),
                     new CommonCodeSystemsTerminologyService(fhirContext),
                     new InMemoryTerminologyServerValidationSupport(fhirContext),
-                    new SnapshotGeneratingValidationSupport(fhirContext));
+                    snapshotSupport);
             CachingValidationSupport validationSupport = new CachingValidationSupport(validationSupportChain);
 
             FhirInstanceValidator instanceValidator = new FhirInstanceValidator(validationSupport);
@@ -287,6 +519,73 @@ public class FHIRValidator {
         LOG.info("Finished Init FHIR Validator Bundles in " + stopwatch.stop());
     }
 
+    /**
+     * Saves the conformance resources of the validator packages with all
+     * snapshots generated so far to the package cache, if the cache is enabled
+     * and not up to date. The next start of the validator loads the resources
+     * from the cache.
+     *
+     * @throws IOException
+     */
+    public synchronized void savePackageCache() throws IOException {
+        if (packageCache == null || snapshotSupport == null) {
+            return;
+        }
+        Map<String, StructureDefinition> generatedSnapshots = snapshotSupport.getGeneratedSnapshots();
+        if (packageCacheSnapshotCount == generatedSnapshots.size()) {
+            return;
+        }
+        List<IBaseResource> resources = new ArrayList<>();
+        for (IBaseResource resource : packageSupport.fetchAllConformanceResources()) {
+            if (resource instanceof StructureDefinition) {
+                StructureDefinition snapshot = generatedSnapshots.get(((StructureDefinition) resource).getUrl());
+                if (snapshot != null) {
+                    resource = snapshot;
+                }
+            }
+            resources.add(resource);
+        }
+        packageCache.save(fhirContext, resources);
+        packageCacheSnapshotCount = generatedSnapshots.size();
+    }
+
+    /**
+     * @param validatorPackages
+     * @return a hash of the content of the validator packages and the HAPI
+     *         version
+     */
+    private static String getPackagesFingerprint(File[] validatorPackages) {
+        List<String> fingerprintParts = new ArrayList<>();
+        fingerprintParts.add(VersionUtil.getVersion());
+        if (validatorPackages != null) {
+            File[] sortedValidatorPackages = validatorPackages.clone();
+            Arrays.sort(sortedValidatorPackages);
+            for (File validatorPackage : sortedValidatorPackages) {
+                if (validatorPackage.isFile()) {
+                    fingerprintParts.add(validatorPackage.getName());
+                    try {
+                        fingerprintParts.add(Files.asByteSource(validatorPackage).hash(Hashing.sha256()).toString());
+                    } catch (IOException e) {
+                        LOG.error(e.getMessage(), e);
+                    }
+                }
+            }
+        }
+        return ValidationResultCache.getFingerprint(fingerprintParts);
+    }
+
+    /**
+     * @param packagesFingerprint
+     * @return a hash of the packages fingerprint and the ignored message parts
+     */
+    private static String getValidatorFingerprint(String packagesFingerprint) {
+        List<String> fingerprintParts = new ArrayList<>();
+        fingerprintParts.add(packagesFingerprint);
+        fingerprintParts.addAll(Arrays.asList(VALIDATION_BUNDLE_IGNORE_ERROR_MESSAGE_PARTS));
+        fingerprintParts.addAll(Arrays.asList(VALIDATION_SINGLE_RESOURCE_IGNORE_ERROR_MESSAGE_PARTS));
+        return ValidationResultCache.getFingerprint(fingerprintParts);
+    }
+
     /**
      * @return the validator packages or <code>null</code> in case of error
      */
@@ -311,77 +610,177 @@ public class FHIRValidator {
     }
 
     /**
+     * Validates the model object directly. The resource is only encoded to a
+     * string if the debug log is enabled or the result cache is enabled. In
+     * the last case the verdict is taken from the cache if the same resource
+     * was validated before. Can be called by multiple threads at the same
+     * time.
+     *
      * @param resource
      */
     public ValidationResultType validate(Resource resource) {
         if (resource == null) {
             return ValidationResultType.ERROR;
         }
-        String resourceAsJson = OutputFileType.JSON.getParser().setPrettyPrint(true).encodeResourceToString(resource);
-        return validate(resourceAsJson, resource instanceof Bundle);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Validated Resource Content \n" + FhirParsers.getJsonParser(true).encodeResourceToString(resource));
+        }
+        boolean strict = resource instanceof Bundle;
+        ValidationResultCache resultCache = this.resultCache;
+        String cacheKey = null;
+        if (resultCache != null) {
+            cacheKey = ValidationResultCache.getKey(FhirParsers.getJsonParser(false).encodeResourceToString(resource), strict);
+            Verdict cachedVerdict = resultCache.get(cacheKey);
+            if (cachedVerdict != null) {
+                return report(cachedVerdict);
+            }
+        }
+        ValidationResult validationResult = validator.validateWithResult(resource);
+        Verdict verdict = evaluate(validationResult, strict);
+        if (resultCache != null) {
+            resultCache.put(cacheKey, verdict);
+        }
+        return report(verdict);
     }
 
     /**
+     * Validates all resources and in parallel if the thread count is greater
+     * than 1.
+     *
+     * @param resources
+     * @return the validation result types in the order of the resources
+     */
+    public ValidationResultType[] validateAll(List<? extends Resource> resources) {
+        ValidationResultType[] resultTypes = new ValidationResultType[resources.size()];
+        ExecutorService executor = resources.size() > 1 ? getExecutor() : null;
+        if (executor == null) {
+            for (int i = 0; i < resultTypes.length; i++) {
+                resultTypes[i] = validate(resources.get(i));
+            }
+            return resultTypes;
+        }
+        List<Future<ValidationResultType>> futures = new ArrayList<>(resources.size());
+        for (Resource resource : resources) {
+            futures.add(executor.submit(() -> validate(resource)));
+        }
+        try {
+            for (int i = 0; i < resultTypes.length; i++) {
+                resultTypes[i] = futures.get(i).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while validating", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        } finally {
+            for (Future<ValidationResultType> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return resultTypes;
+    }
+
+    /**
+     * Can be called by multiple threads at the same time.
+     *
      * @param resourceAsJson
      * @param strict
-     * @param minLogLevel
      * @return
      */
     public ValidationResultType validate(String resourceAsJson, boolean strict) {
         if (Strings.isBlank(resourceAsJson)) {
             return ValidationResultType.ERROR;
         }
-        ValidationResultType resultType = ValidationResultType.VALID;
         LOG.debug("Validated Resource Content \n" + resourceAsJson);
-        //ValidationResult validationResult = validator.validateWithResult(resource);
         ValidationResult validationResult = validator.validateWithResult(resourceAsJson);
-        List<SingleValidationMessage> validationMessages = validationResult.getMessages();
-        for (SingleValidationMessage validationMessage : validationMessages) {
-            ResultSeverityEnum severity = validationMessage.getSeverity();
-            String locationString = validationMessage.getLocationString();
-            Integer locationLine = validationMessage.getLocationLine();
-            Integer locationCol = validationMessage.getLocationCol();
-            String message = validationMessage.getMessage();
-            String logMessage = severity + " " + locationString + " Line " + locationLine + " Col " + locationCol + " : " + message;
+        return report(evaluate(validationResult, strict));
+    }
 
+    /**
+     * Separates the ignored from the not ignored messages of the validation
+     * result.
+     *
+     * @param validationResult
+     * @param strict
+     * @return the verdict with the type of the most severe not ignored message
+     */
+    private static Verdict evaluate(ValidationResult validationResult, boolean strict) {
+        ValidationResultType resultType = ValidationResultType.VALID;
+        List<SingleValidationMessage> messages = new ArrayList<>();
+        List<SingleValidationMessage> ignoredMessages = new ArrayList<>();
+        for (SingleValidationMessage validationMessage : validationResult.getMessages()) {
             if (!isIgnorableError(validationMessage, strict)) {
+                ResultSeverityEnum severity = validationMessage.getSeverity();
                 if (severity == ResultSeverityEnum.ERROR) {
-                    if (log(ValidationResultType.ERROR)) {
-                        LOG.error(logMessage);
-                    }
-                    bundleResultCounter.errors++;
-                    fullResultCounter.errors++;
                     resultType = ValidationResultType.ERROR;
                 } else if (severity == ResultSeverityEnum.WARNING) {
-                    if (log(ValidationResultType.WARNING)) {
-                        LOG.warn(logMessage);
-                    }
-                    bundleResultCounter.warnings++;
-                    fullResultCounter.warnings++;
                     if (resultType.ordinal() > ValidationResultType.WARNING.ordinal()) {
                         resultType = ValidationResultType.WARNING;
                     }
-                } else {
-                    if (log(ValidationResultType.VALID)) {
-                        LOG.info(logMessage);
-                    }
-                    bundleResultCounter.valid++;
-                    fullResultCounter.valid++;
                 }
+                messages.add(validationMessage);
             } else {
-                if (log(ValidationResultType.IGNORED)) {
-                    LOG.info("IGNORED " + logMessage);
-                }
-                bundleResultCounter.ignored++;
-                fullResultCounter.ignored++;
                 if (resultType.ordinal() > ValidationResultType.IGNORED.ordinal()) {
                     resultType = ValidationResultType.IGNORED;
                 }
+                ignoredMessages.add(validationMessage);
+            }
+        }
+        return new Verdict(resultType, messages, ignoredMessages);
+    }
+
+    /**
+     * Logs the messages of the verdict and adds them to the counters.
+     *
+     * @param verdict
+     * @return the type of the most severe not ignored message
+     */
+    private ValidationResultType report(Verdict verdict) {
+        MessageCounter counter = new MessageCounter();
+        for (SingleValidationMessage validationMessage : verdict.messages) {
+            ResultSeverityEnum severity = validationMessage.getSeverity();
+            String logMessage = getLogMessage(validationMessage);
+            if (severity == ResultSeverityEnum.ERROR) {
+                if (log(ValidationResultType.ERROR)) {
+                    LOG.error(logMessage);
+                }
+                counter.errors++;
+            } else if (severity == ResultSeverityEnum.WARNING) {
+                if (log(ValidationResultType.WARNING)) {
+                    LOG.warn(logMessage);
+                }
+                counter.warnings++;
+            } else {
+                if (log(ValidationResultType.VALID)) {
+                    LOG.info(logMessage);
+                }
+                counter.valid++;
             }
-            bundleResultCounter.resources++;
-            fullResultCounter.resources++;
         }
-        return resultType;
+        if (log(ValidationResultType.IGNORED)) {
+            for (SingleValidationMessage validationMessage : verdict.ignoredMessages) {
+                LOG.info("IGNORED " + getLogMessage(validationMessage));
+            }
+        }
+        counter.ignored = verdict.ignoredMessages.size();
+        counter.resources = verdict.messages.size() + verdict.ignoredMessages.size();
+        bundleResultCounter.add(counter);
+        fullResultCounter.add(counter);
+        return verdict.resultType;
+    }
+
+    /**
+     * @param validationMessage
+     * @return
+     */
+    private static String getLogMessage(SingleValidationMessage validationMessage) {
+        ResultSeverityEnum severity = validationMessage.getSeverity();
+        String locationString = validationMessage.getLocationString();
+        Integer locationLine = validationMessage.getLocationLine();
+        Integer locationCol = validationMessage.getLocationCol();
+        String message = validationMessage.getMessage();
+        return severity + " " + locationString + " Line " + locationLine + " Col " + locationCol + " : " + message;
     }
 
     /**
@@ -428,9 +827,8 @@ public class FHIRValidator {
      * @throws IOException
      */
     static public Bundle readBundle(File file) throws ConfigurationException, DataFormatException, IOException {
-        FhirContext ctx = FhirContext.forR4();
         try (FileInputStream resourceStream = new FileInputStream(file)) {
-            IBaseResource r = ctx.newJsonParser().parseResource(resourceStream);
+            IBaseResource r = FhirParsers.getJsonParser(false).parseResource(resourceStream);
             assert r instanceof Bundle;
             return (Bundle) r;
         }
@@ -454,8 +852,14 @@ public class FHIRValidator {
         Result result = new Result();
         result.bundle = bundle;
         List<BundleEntryComponent> entries = bundle.getEntry(); //is an ArrayList -> values can be changed
+        List<Resource> resources = new ArrayList<>(entries.size());
         for (BundleEntryComponent e : entries) {
-            ValidationResultType validateResultType = validate(e.getResource());
+            resources.add(e.getResource());
+        }
+        ValidationResultType[] validateResultTypes = validateAll(resources);
+        for (int i = 0; i < entries.size(); i++) {
+            BundleEntryComponent e = entries.get(i);
+            ValidationResultType validateResultType = validateResultTypes[i];
             if (validateResultType == ValidationResultType.ERROR) {
                 result.errorResources.add(e);
             } else if (validateResultType == ValidationResultType.WARNING) {
@@ -481,6 +885,10 @@ public class FHIRValidator {
         LOG.info("Ignored : " + result.toString(result.ignored));
         LOG.info("Valid   : " + result.toString(result.valid));
         LOG.info("All     : " + result.toString(result.resources));
+        ValidationResultCache resultCache = this.resultCache;
+        if (resultCache != null) {
+            LOG.info("Cache   : " + resultCache.getHitRateString());
+        }
     }
 
     /**
@@ -0,0 +1,139 @@
+package de.uni_leipzig.imise.validate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Stopwatch;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+
+/**
+ * Persistent cache of the conformance resources of the validator packages.
+ * Parsing the cache is much faster than loading the packages, because the
+ * narratives are removed and the resources are not packed in the npm package
+ * format. The StructureDefinitions are stored with the snapshots generated in
+ * the former runs, so the snapshots must not be generated again.<br>
+ * The file starts with a fingerprint of the validator packages and the HAPI
+ * version. If the fingerprint in the file is different from the current one
+ * then the file is not loaded and the packages are loaded instead.<br>
+ * The cache is only used together with the cache of the validation verdicts
+ * and is stored next to its file (see {@link #getFile(File)}), so no file is
+ * written to a shared directory.
+ *
+ * @author AXS (17.10.2026)
+ */
+public class ValidationPackageCache {
+
+    /**  */
+    private static final Logger LOG = LoggerFactory.getLogger(ValidationPackageCache.class);
+
+    /** Marks the file as package cache and changes with the file format */
+    private static final String FILE_FORMAT = "excel2fhir-validation-package-cache-1";
+
+    /** Suffix of the package cache file after the name of the verdict cache file */
+    private static final String FILE_SUFFIX = ".packages.ndjson.gz";
+
+    /** The file of the cache */
+    private final File cacheFile;
+
+    /** The fingerprint of the validator packages */
+    private final String packagesFingerprint;
+
+    /**
+     * @param cacheFile
+     * @param packagesFingerprint
+     */
+    public ValidationPackageCache(File cacheFile, String packagesFingerprint) {
+        this.cacheFile = cacheFile;
+        this.packagesFingerprint = packagesFingerprint;
+    }
+
+    /**
+     * @param resultCacheFile the file of the cache of the validation verdicts
+     * @return the file of the package cache in the same directory
+     */
+    public static File getFile(File resultCacheFile) {
+        return new File(resultCacheFile.getPath() + FILE_SUFFIX);
+    }
+
+    /**
+     * @param fhirContext
+     * @return the resources of the cache or <code>null</code> if the cache
+     *         file does not exist or was created from other packages
+     */
+    public List<IBaseResource> load(FhirContext fhirContext) {
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        List<IBaseResource> resources = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(cacheFile), 1 << 16), StandardCharsets.UTF_8))) {
+            if (!FILE_FORMAT.equals(reader.readLine()) || !packagesFingerprint.equals(reader.readLine())) {
+                LOG.info("Ignore validation package cache " + cacheFile + " of other validator packages or version");
+                return null;
+            }
+            IParser parser = fhirContext.newJsonParser();
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                resources.add(parser.parseResource(line));
+            }
+        } catch (Exception e) {
+            LOG.warn("Could not load validation package cache " + cacheFile + " (" + e.getMessage() + ")");
+            return null;
+        }
+        LOG.info("Loaded " + resources.size() + " resources from validation package cache " + cacheFile + " in " + stopwatch.stop());
+        return resources;
+    }
+
+    /**
+     * Writes the resources without their narratives to the cache file.
+     *
+     * @param fhirContext
+     * @param resources
+     * @throws IOException
+     */
+    public synchronized void save(FhirContext fhirContext, Collection<? extends IBaseResource> resources) throws IOException {
+        File directory = cacheFile.getAbsoluteFile().getParentFile();
+        directory.mkdirs();
+        // a unique temp file, so concurrent runs cannot write into the same file
+        Path tempFile = Files.createTempFile(directory.toPath(), cacheFile.getName(), ".tmp");
+        try {
+            IParser parser = fhirContext.newJsonParser().setSuppressNarratives(true);
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(tempFile), 1 << 16), StandardCharsets.UTF_8), 1 << 16)) {
+                writer.write(FILE_FORMAT);
+                writer.write('\n');
+                writer.write(packagesFingerprint);
+                writer.write('\n');
+                for (IBaseResource resource : resources) {
+                    // the compact JSON encoding contains no line breaks
+                    writer.write(parser.encodeResourceToString(resource));
+                    writer.write('\n');
+                }
+            }
+            Files.move(tempFile, cacheFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        LOG.info("Saved " + resources.size() + " resources to validation package cache " + cacheFile);
+    }
+
+}
@@ -0,0 +1,335 @@
+package de.uni_leipzig.imise.validate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import ca.uhn.fhir.validation.ResultSeverityEnum;
+import ca.uhn.fhir.validation.SingleValidationMessage;
+import de.uni_leipzig.imise.validate.FHIRValidator.ValidationResultType;
+
+/**
+ * Persistent cache of the validation verdicts of resources. The verdicts are
+ * stored by a hash of the encoded resource, so an unchanged resource must not
+ * be validated again in the next run.<br>
+ * The file starts with a fingerprint of the validator (the loaded validator
+ * packages, the HAPI version and the ignored message parts). If the
+ * fingerprint in the file is different from the current one then the file is
+ * not loaded and all resources are validated again.<br>
+ * Only the verdicts used in the current run are saved, so verdicts of
+ * resources that no longer exist are removed from the file.
+ *
+ * @author AXS (17.10.2026)
+ */
+public class ValidationResultCache {
+
+    /**  */
+    private static final Logger LOG = LoggerFactory.getLogger(ValidationResultCache.class);
+
+    /** Marks the file as validation cache and changes with the file format */
+    private static final String FILE_FORMAT = "excel2fhir-validation-cache-2";
+
+    /** The file of the cache */
+    private final File cacheFile;
+
+    /** The fingerprint of the validator that created the verdicts */
+    private final String validatorFingerprint;
+
+    /** The verdicts loaded from the file */
+    private final Map<String, Verdict> loadedVerdicts = new ConcurrentHashMap<>();
+
+    /** The verdicts found or added in this run. Only these are saved. */
+    private final Map<String, Verdict> usedVerdicts = new ConcurrentHashMap<>();
+
+    /** Count of validations with a verdict from the cache */
+    private final LongAdder hits = new LongAdder();
+
+    /** Count of validations without a verdict in the cache */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * The result of the validation of one resource with the ignored and the
+     * not ignored messages.
+     */
+    public static class Verdict {
+
+        /** The type of the most severe not ignored message */
+        final ValidationResultType resultType;
+
+        /** The not ignored messages */
+        final List<SingleValidationMessage> messages;
+
+        /** The ignored messages */
+        final List<SingleValidationMessage> ignoredMessages;
+
+        /**
+         * @param resultType
+         * @param messages
+         * @param ignoredMessages
+         */
+        Verdict(ValidationResultType resultType, List<SingleValidationMessage> messages, List<SingleValidationMessage> ignoredMessages) {
+            this.resultType = resultType;
+            this.messages = messages;
+            this.ignoredMessages = ignoredMessages;
+        }
+    }
+
+    /**
+     * Creates the cache and loads the verdicts from the file if it exists and
+     * was created by a validator with the same fingerprint.
+     *
+     * @param cacheFile
+     * @param validatorFingerprint
+     */
+    public ValidationResultCache(File cacheFile, String validatorFingerprint) {
+        this.cacheFile = cacheFile;
+        this.validatorFingerprint = validatorFingerprint;
+        if (cacheFile.isFile()) {
+            try {
+                load();
+            } catch (IOException e) {
+                LOG.warn("Could not load validation cache " + cacheFile + " (" + e.getMessage() + ")");
+                loadedVerdicts.clear();
+            }
+        }
+    }
+
+    /**
+     * @param encodedResource the encoded resource
+     * @param strict the strict parameter of the validation
+     * @return the key of the resource in the cache
+     */
+    public static String getKey(String encodedResource, boolean strict) {
+        return Hashing.sha256().newHasher()
+                .putBoolean(strict)
+                .putString(encodedResource, StandardCharsets.UTF_8)
+                .hash()
+                .toString();
+    }
+
+    /**
+     * @param parts
+     * @return a hash of the strings as hex string
+     */
+    public static String getFingerprint(Iterable<String> parts) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        for (String part : parts) {
+            hasher.putString(part, StandardCharsets.UTF_8).putByte((byte) 0);
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Can be called by multiple threads at the same time.
+     *
+     * @param key
+     * @return the verdict or <code>null</code> if the cache contains no
+     *         verdict for the key
+     */
+    public Verdict get(String key) {
+        Verdict verdict = usedVerdicts.get(key);
+        if (verdict == null) {
+            verdict = loadedVerdicts.get(key);
+            if (verdict != null) {
+                usedVerdicts.put(key, verdict);
+            }
+        }
+        if (verdict == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return verdict;
+    }
+
+    /**
+     * Can be called by multiple threads at the same time.
+     *
+     * @param key
+     * @param verdict
+     */
+    public void put(String key, Verdict verdict) {
+        usedVerdicts.put(key, verdict);
+    }
+
+    /**
+     * @return a string with the hits, the lookups and the hit rate
+     */
+    public String getHitRateString() {
+        long hitCount = hits.sum();
+        long lookupCount = hitCount + misses.sum();
+        double hitRate = lookupCount == 0 ? 0 : hitCount * 100.0 / lookupCount;
+        return String.format("%d of %d (%.1f %%)", hitCount, lookupCount, hitRate);
+    }
+
+    /**
+     * Writes the verdicts used in this run to the cache file.
+     *
+     * @throws IOException
+     */
+    public synchronized void save() throws IOException {
+        File directory = cacheFile.getAbsoluteFile().getParentFile();
+        directory.mkdirs();
+        // a unique temp file, so concurrent runs cannot write into the same file
+        Path tempFile = Files.createTempFile(directory.toPath(), cacheFile.getName(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 1 << 16))) {
+                out.writeUTF(FILE_FORMAT);
+                out.writeUTF(validatorFingerprint);
+                for (Map.Entry<String, Verdict> entry : usedVerdicts.entrySet()) {
+                    Verdict verdict = entry.getValue();
+                    out.writeBoolean(true);
+                    out.writeUTF(entry.getKey());
+                    out.writeByte(verdict.resultType.ordinal());
+                    writeMessages(out, verdict.messages);
+                    writeMessages(out, verdict.ignoredMessages);
+                }
+                out.writeBoolean(false);
+            }
+            Files.move(tempFile, cacheFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        LOG.info("Saved " + usedVerdicts.size() + " validation verdicts to " + cacheFile);
+    }
+
+    /**
+     * @throws IOException
+     */
+    private void load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile), 1 << 16))) {
+            if (!FILE_FORMAT.equals(in.readUTF())) {
+                LOG.info("Ignore validation cache " + cacheFile + " with unknown format");
+                return;
+            }
+            if (!validatorFingerprint.equals(in.readUTF())) {
+                LOG.info("Ignore validation cache " + cacheFile + " of other validator packages or version");
+                return;
+            }
+            ValidationResultType[] resultTypes = ValidationResultType.values();
+            while (in.readBoolean()) {
+                String key = in.readUTF();
+                ValidationResultType resultType = resultTypes[in.readByte()];
+                List<SingleValidationMessage> messages = readMessages(in);
+                List<SingleValidationMessage> ignoredMessages = readMessages(in);
+                loadedVerdicts.put(key, new Verdict(resultType, messages, ignoredMessages));
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated file", e);
+        }
+        LOG.info("Loaded " + loadedVerdicts.size() + " validation verdicts from " + cacheFile);
+    }
+
+    /**
+     * @param out
+     * @param messages
+     * @throws IOException
+     */
+    private static void writeMessages(DataOutputStream out, List<SingleValidationMessage> messages) throws IOException {
+        out.writeInt(messages.size());
+        for (SingleValidationMessage message : messages) {
+            out.writeByte(message.getSeverity() == null ? -1 : message.getSeverity().ordinal());
+            writeString(out, message.getLocationString());
+            writeInteger(out, message.getLocationLine());
+            writeInteger(out, message.getLocationCol());
+            writeString(out, message.getMessage());
+        }
+    }
+
+    /**
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    private static List<SingleValidationMessage> readMessages(DataInputStream in) throws IOException {
+        ResultSeverityEnum[] severities = ResultSeverityEnum.values();
+        int messageCount = in.readInt();
+        List<SingleValidationMessage> messages = new ArrayList<>(messageCount);
+        for (int i = 0; i < messageCount; i++) {
+            SingleValidationMessage message = new SingleValidationMessage();
+            byte severity = in.readByte();
+            message.setSeverity(severity < 0 ? null : severities[severity]);
+            message.setLocationString(readString(in));
+            message.setLocationLine(readInteger(in));
+            message.setLocationCol(readInteger(in));
+            message.setMessage(readString(in));
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    /**
+     * Writes a string without the length limit of
+     * {@link DataOutputStream#writeUTF(String)}.
+     *
+     * @param out
+     * @param s
+     * @throws IOException
+     */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param out
+     * @param i
+     * @throws IOException
+     */
+    private static void writeInteger(DataOutputStream out, Integer i) throws IOException {
+        out.writeBoolean(i != null);
+        if (i != null) {
+            out.writeInt(i);
+        }
+    }
+
+    /**
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    private static Integer readInteger(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+}
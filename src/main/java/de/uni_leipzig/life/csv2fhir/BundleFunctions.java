@@ -4,10 +4,8 @@ import static de.uni_leipzig.life.csv2fhir.TableIdentifier.Fall;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
 import org.hl7.fhir.r4.model.Bundle;
-import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
 import org.hl7.fhir.r4.model.DateTimeType;
 import org.hl7.fhir.r4.model.Encounter;
 import org.hl7.fhir.r4.model.Period;
@@ -110,7 +108,8 @@ public class BundleFunctions {
     }
 
     /**
-     * Finds a resource in a bundle by its type and ID.
+     * Finds a resource in a bundle by its type and ID via the
+     * {@link BundleResourceIndex} of the bundle.
      *
      * @param <T> return value of the found element
      * @param bundle the bundle to be searched
@@ -126,19 +125,7 @@ public class BundleFunctions {
     public static <T extends Resource> T getResource(Bundle bundle, Class<? extends T> resourceClass, String id) {
         //if the id is a reference -> we extract the real id
         String baseId = getBaseId(id);
-        List<BundleEntryComponent> bundleEntries = bundle.getEntry();
-        //check every entry if it has the correct class and id
-        for (BundleEntryComponent entry : bundleEntries) {
-            Resource entryResource = entry.getResource();
-            Class<? extends Resource> entryResourceClass = entryResource.getClass();
-            if (entryResourceClass.isAssignableFrom(resourceClass)) {
-                String resourceID = entryResource.getId();
-                if (baseId.equals(resourceID)) {
-                    return (T) entryResource;
-                }
-            }
-        }
-        return null;
+        return (T) BundleResourceIndex.get(bundle).getResourceOfClassOrSuperclass(resourceClass, baseId);
     }
 
 }
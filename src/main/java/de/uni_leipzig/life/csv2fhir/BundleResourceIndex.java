@@ -0,0 +1,97 @@
+package de.uni_leipzig.life.csv2fhir;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
+import org.hl7.fhir.r4.model.Resource;
+
+/**
+ * Side index of the resources in a bundle by their class and ID. The index is
+ * stored in the user data of the bundle, so every code that gets the bundle
+ * can use it without scanning all bundle entries.<br>
+ * The index is updated incrementally: entries appended to the bundle after the
+ * last access are indexed on the next access. If entries have been removed
+ * from the bundle then the index is rebuilt.
+ *
+ * @author AXS (17.10.2026)
+ */
+public class BundleResourceIndex {
+
+    /** The key of the index in the user data of the bundle */
+    private static final String USER_DATA_KEY = BundleResourceIndex.class.getName();
+
+    /**
+     * Resource class -> ID -> first resource with this class and ID in the
+     * bundle. The classes are in the order of their first occurrence in the
+     * bundle.
+     */
+    private final Map<Class<? extends Resource>, Map<String, Resource>> classToIdToResource = new LinkedHashMap<>();
+
+    /** The count of the bundle entries already in this index */
+    private int indexedEntryCount = 0;
+
+    /**
+     * @param bundle
+     * @return the up to date index of the resources of the bundle
+     */
+    public static BundleResourceIndex get(Bundle bundle) {
+        BundleResourceIndex index = (BundleResourceIndex) bundle.getUserData(USER_DATA_KEY);
+        List<BundleEntryComponent> entries = bundle.getEntry();
+        if (index == null || index.indexedEntryCount > entries.size()) {
+            index = new BundleResourceIndex();
+            bundle.setUserData(USER_DATA_KEY, index);
+        }
+        for (; index.indexedEntryCount < entries.size(); index.indexedEntryCount++) {
+            Resource resource = entries.get(index.indexedEntryCount).getResource();
+            if (resource != null) {
+                Map<String, Resource> idToResource = index.classToIdToResource.computeIfAbsent(resource.getClass(), c -> new HashMap<>());
+                idToResource.putIfAbsent(resource.getId(), resource);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @param resourceClass the class of the resource
+     * @param id the ID of the resource
+     * @return <code>true</code> if the bundle contains a resource of the class
+     *         or a subclass with the ID
+     */
+    public boolean containsResourceOrSubclassResource(Class<? extends Resource> resourceClass, String id) {
+        return find(resourceClass::isAssignableFrom, id) != null;
+    }
+
+    /**
+     * @param resourceClass the class of the resource
+     * @param id the ID of the resource
+     * @return a resource with the ID whose class is the given class or a
+     *         superclass of it or <code>null</code> if the bundle does not
+     *         contain such a resource
+     */
+    public Resource getResourceOfClassOrSuperclass(Class<? extends Resource> resourceClass, String id) {
+        return find(entryClass -> entryClass.isAssignableFrom(resourceClass), id);
+    }
+
+    /**
+     * @param classFilter
+     * @param id
+     * @return the first resource with the ID whose class matches the filter
+     */
+    private Resource find(Predicate<Class<? extends Resource>> classFilter, String id) {
+        for (Map.Entry<Class<? extends Resource>, Map<String, Resource>> classEntry : classToIdToResource.entrySet()) {
+            if (classFilter.test(classEntry.getKey())) {
+                Resource resource = classEntry.getValue().get(id);
+                if (resource != null) {
+                    return resource;
+                }
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,110 @@
+package de.uni_leipzig.life.csv2fhir;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import com.google.common.collect.Maps;
+
+import de.uni_leipzig.UcumMapper;
+import de.uni_leipzig.life.csv2fhir.ucum.UcumCodesExtractor;
+import de.uni_leipzig.life.csv2fhir.utils.BothDirectionResourceMapper;
+import de.uni_leipzig.life.csv2fhir.utils.ResourceMapper;
+
+/**
+ * Process wide registry of the map files in the resources. Every map is loaded
+ * only once into an immutable mapper, which can be shared by all converters
+ * and threads.
+ *
+ * @author AXS (17.10.2026)
+ */
+public final class CodeSystemMapperRegistry {
+
+    /** Map with the encounter types and its displays */
+    public static final String ENCOUNTER_TYPE_MAP = "Encounter_Type.map";
+
+    /** Map from human readable encounter classes to the code system codes */
+    public static final String ENCOUNTER_LEVEL1_CLASS_MAP = "EncounterLevel1_Class.map";
+
+    /** Map from human readable departments to the department number codes */
+    public static final String ENCOUNTER_LEVEL2_DEPARTMENT_MAP = "EncounterLevel2_Department.map";
+
+    /** Map from human readable diagnosis roles to the code system codes */
+    public static final String DIAGNOSIS_ROLE_MAP = "Diagnosis_Role.map";
+
+    /** Map with the consent provisions and their columns */
+    public static final String CONSENT_MAP = "Consent.map";
+
+    /** All code system maps which are loaded by {@link #loadAll()} */
+    private static final String[] CODE_SYSTEM_MAPS = {
+            ENCOUNTER_TYPE_MAP,
+            ENCOUNTER_LEVEL1_CLASS_MAP,
+            ENCOUNTER_LEVEL2_DEPARTMENT_MAP,
+            DIAGNOSIS_ROLE_MAP
+    };
+
+    /** The loaded code system mappers by the resource file name */
+    private static final Map<String, CodeSystemMapper> CODE_SYSTEM_MAPPERS = new ConcurrentHashMap<>();
+
+    /**
+     * The loaded mappers by the resource file names (separated by a line feed)
+     */
+    private static final Map<String, BothDirectionResourceMapper> MAPPERS = new ConcurrentHashMap<>();
+
+    /** The loaded untrimmed properties by the resource file name */
+    private static final Map<String, Map<String, String>> PROPERTIES = new ConcurrentHashMap<>();
+
+    /**
+     * Only static methods
+     */
+    private CodeSystemMapperRegistry() {
+    }
+
+    /**
+     * Loads all known map files in parallel, so the first patients must not
+     * wait for the maps. Maps which are already loaded are not loaded again.
+     */
+    public static void loadAll() {
+        Stream<Runnable> loaders = Stream.concat(
+                Stream.of(CODE_SYSTEM_MAPS).map(resourceFileName -> () -> getCodeSystemMapper(resourceFileName)),
+                Stream.of(
+                        () -> getProperties(CONSENT_MAP),
+                        () -> getMapper(UcumCodesExtractor.UCUM_CODE_TO_DISPLAY_MAP_RESOURCE_FILE_NAME),
+                        () -> getMapper(UcumCodesExtractor.UCUM_AUTOMATIC_CREATED_SYNONYM_TO_UCUM_CODE_MAP_RESOURCE_FILE_NAME,
+                                UcumMapper.UCUM_MANUAL_CREATED_SYNONYM_TO_UCUM_CODE_MAP_RESOURCE_FILE_NAME)));
+        loaders.parallel().forEach(Runnable::run);
+    }
+
+    /**
+     * @param resourceFileName
+     * @return the immutable code system mapper of the map file
+     */
+    public static CodeSystemMapper getCodeSystemMapper(String resourceFileName) {
+        return CODE_SYSTEM_MAPPERS.computeIfAbsent(resourceFileName, fileName -> {
+            CodeSystemMapper mapper = new CodeSystemMapper(fileName);
+            mapper.makeImmutable();
+            return mapper;
+        });
+    }
+
+    /**
+     * @param resourceFileNames
+     * @return the immutable mapper with the entries of all map files
+     */
+    public static BothDirectionResourceMapper getMapper(String... resourceFileNames) {
+        return MAPPERS.computeIfAbsent(String.join("\n", resourceFileNames), key -> {
+            BothDirectionResourceMapper mapper = new BothDirectionResourceMapper(resourceFileNames);
+            mapper.makeImmutable();
+            return mapper;
+        });
+    }
+
+    /**
+     * @param resourceFileName
+     * @return the immutable properties of the file with untrimmed values
+     */
+    public static Map<String, String> getProperties(String resourceFileName) {
+        return PROPERTIES.computeIfAbsent(resourceFileName, fileName -> Maps.fromProperties(ResourceMapper.of(fileName)));
+    }
+
+}
@@ -0,0 +1,282 @@
+package de.uni_leipzig.life.csv2fhir;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+
+/**
+ * Collects the warnings and errors of the converters of a file set. The
+ * messages are aggregated by the converter, the level and the message text
+ * (which contains the column). For every message only the count, the location
+ * of the first call and a bounded sample of example records are kept. So a lot
+ * of equal messages on dirty source data cost only a map lookup per message.
+ * <br>
+ * All methods can be called by multiple threads at the same time.
+ *
+ * @author AXS (17.10.2026)
+ */
+public class ConversionDiagnostics {
+
+    /** The default count of the example records per message */
+    public static final int DEFAULT_MAX_SAMPLES = 3;
+
+    /**
+     * The levels of the messages
+     */
+    public static enum Level {
+        ERROR {
+            @Override
+            public boolean isEnabled(Logger log) {
+                return log.isErrorEnabled();
+            }
+
+            @Override
+            public void log(Logger log, String message) {
+                log.error(message);
+            }
+        },
+        WARNING {
+            @Override
+            public boolean isEnabled(Logger log) {
+                return log.isWarnEnabled();
+            }
+
+            @Override
+            public void log(Logger log, String message) {
+                log.warn(message);
+            }
+        },
+        INFO {
+            @Override
+            public boolean isEnabled(Logger log) {
+                return log.isInfoEnabled();
+            }
+
+            @Override
+            public void log(Logger log, String message) {
+                log.info(message);
+            }
+        };
+
+        /**
+         * @param log
+         * @return <code>true</code> if the logger logs messages of this level
+         */
+        public abstract boolean isEnabled(Logger log);
+
+        /**
+         * @param log
+         * @param message
+         */
+        public abstract void log(Logger log, String message);
+    }
+
+    /**
+     * The aggregation key of the messages
+     */
+    private static final class Key {
+
+        /**  */
+        private final Class<?> converterClass;
+
+        /**  */
+        private final Level level;
+
+        /**  */
+        private final String message;
+
+        /**
+         * @param converterClass
+         * @param level
+         * @param message
+         */
+        private Key(Class<?> converterClass, Level level, String message) {
+            this.converterClass = converterClass;
+            this.level = level;
+            this.message = message;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(converterClass, level, message);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return converterClass == other.converterClass && level == other.level && Objects.equals(message, other.message);
+        }
+    }
+
+    /**
+     * The aggregated occurrences of one message
+     */
+    public static final class Entry {
+
+        /**  */
+        private final Key key;
+
+        /** The location of the first call with this message */
+        private final String location;
+
+        /** The count of the occurrences */
+        private final AtomicLong count = new AtomicLong();
+
+        /** The first different records with this message */
+        private final List<TableRecord> samples = new ArrayList<>();
+
+        /** Is set if the samples contain the maximum count of records */
+        private volatile boolean samplesFull = false;
+
+        /**
+         * @param key
+         * @param location
+         */
+        private Entry(Key key, String location) {
+            this.key = key;
+            this.location = location;
+        }
+
+        /**
+         * @return the location of the first call with this message
+         */
+        public String getLocation() {
+            return location;
+        }
+
+        /**
+         * @return the count of the occurrences of the message
+         */
+        public long getCount() {
+            return count.get();
+        }
+
+        /**
+         * @return a copy of the example records
+         */
+        public List<TableRecord> getSamples() {
+            synchronized (samples) {
+                return new ArrayList<>(samples);
+            }
+        }
+    }
+
+    /** The aggregated messages */
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    /** The maximum count of the example records per message */
+    private final int maxSamples;
+
+    /**
+     * Collects {@link #DEFAULT_MAX_SAMPLES} example records per message.
+     */
+    public ConversionDiagnostics() {
+        this(DEFAULT_MAX_SAMPLES);
+    }
+
+    /**
+     * @param maxSamples the maximum count of the example records per message
+     */
+    public ConversionDiagnostics(int maxSamples) {
+        this.maxSamples = maxSamples;
+    }
+
+    /**
+     * Counts the message and adds the record to the samples if the samples are
+     * not full and the record is not already a sample.
+     *
+     * @param converterClass
+     * @param level
+     * @param message the message without record specific values
+     * @param record the record with the message
+     * @param location supplies the location of the call. Only called for the
+     *            first occurrence of the message.
+     * @return the number of the occurrence of the message (1 for the first
+     *         one). The first occurrences up to the maximum count of samples
+     *         should be logged.
+     */
+    public long add(Class<?> converterClass, Level level, String message, TableRecord record, Supplier<String> location) {
+        Key key = new Key(converterClass, level, message);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = entries.computeIfAbsent(key, k -> new Entry(k, location.get()));
+        }
+        long occurrence = entry.count.incrementAndGet();
+        if (!entry.samplesFull) {
+            synchronized (entry.samples) {
+                if (entry.samples.size() < maxSamples && !entry.samples.contains(record)) {
+                    entry.samples.add(record);
+                }
+                entry.samplesFull = entry.samples.size() >= maxSamples;
+            }
+        }
+        return occurrence;
+    }
+
+    /**
+     * @return the maximum count of the example records per message
+     */
+    public int getMaxSamples() {
+        return maxSamples;
+    }
+
+    /**
+     * @return <code>true</code> if no message was added
+     */
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * @param converterClass
+     * @param level
+     * @param message
+     * @return the aggregated occurrences of the message or <code>null</code> if
+     *         the message was never added
+     */
+    public Entry getEntry(Class<?> converterClass, Level level, String message) {
+        return entries.get(new Key(converterClass, level, message));
+    }
+
+    /**
+     * Removes all messages.
+     */
+    public void reset() {
+        entries.clear();
+    }
+
+    /**
+     * @return a report with all messages ordered by level and count
+     */
+    @Override
+    public String toString() {
+        List<Entry> sortedEntries = new ArrayList<>(entries.values());
+        sortedEntries.sort(Comparator.comparing((Entry entry) -> entry.key.level)
+                .thenComparing(Comparator.comparingLong(Entry::getCount).reversed())
+                .thenComparing(entry -> entry.key.converterClass.getSimpleName())
+                .thenComparing(entry -> entry.key.message));
+        StringBuilder sb = new StringBuilder();
+        for (Entry entry : sortedEntries) {
+            sb.append(entry.key.level).append(' ')
+                    .append(entry.key.converterClass.getSimpleName().replaceFirst("Converter", "")).append(": ")
+                    .append(entry.key.message)
+                    .append(" (").append(entry.getCount()).append(entry.getCount() == 1 ? " time" : " times")
+                    .append(", at ").append(entry.location).append(")\n");
+            for (TableRecord sample : entry.getSamples()) {
+                sb.append("    ").append(sample).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+}
@@ -6,7 +6,6 @@ import static de.uni_leipzig.life.csv2fhir.TableColumnIdentifier.isMandatory;
 import static de.uni_leipzig.life.csv2fhir.TableIdentifier.Fall;
 import static de.uni_leipzig.life.csv2fhir.TableIdentifier.Person;
 import static de.uni_leipzig.life.csv2fhir.utils.DateUtil.parseDateType;
-import static java.util.regex.Pattern.CASE_INSENSITIVE;
 import static org.apache.logging.log4j.util.Strings.isBlank;
 import static org.hl7.fhir.r4.model.codesystems.DataAbsentReason.ERROR;
 import static org.hl7.fhir.r4.model.codesystems.DataAbsentReason.NOTAPPLICABLE;
@@ -18,13 +17,10 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.annotation.Nullable;
 
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
 import org.hl7.fhir.exceptions.FHIRException;
 import org.hl7.fhir.r4.model.CodeSystem;
 import org.hl7.fhir.r4.model.CodeType;
@@ -50,13 +46,15 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
 import de.uni_leipzig.UcumMapper;
-import de.uni_leipzig.imise.utils.Excel2Csv;
+import de.uni_leipzig.UcumMapper.NormalisedUcumCode;
 import de.uni_leipzig.imise.utils.StringUtils;
-import de.uni_leipzig.imise.utils.Sys;
 import de.uni_leipzig.imise.validate.FHIRValidator;
+import de.uni_leipzig.life.csv2fhir.ConversionDiagnostics.Level;
+import de.uni_leipzig.life.csv2fhir.TableHeader.ColumnPlan;
 import de.uni_leipzig.life.csv2fhir.TableIdentifier.DefaultTableColumnNames;
 import de.uni_leipzig.life.csv2fhir.converter.ResourceIdSuffix;
 import de.uni_leipzig.life.csv2fhir.utils.DateUtil;
+import de.uni_leipzig.life.csv2fhir.utils.ValueClassifier;
 
 /**
  * @author fheuschkel (02.11.2020), AXS (18.11.2021)
@@ -69,6 +67,27 @@ public abstract class Converter {
     /** Char of whitesace */
     private static final char WHITE_SPACE = (char) 32;
 
+    /** Matches all chars that are removed from the PID to get the DIZ ID */
+    private static final Pattern NON_DIZ_ID_CHARS = Pattern.compile("[^A-Z]");
+
+    /**
+     * The enum with the column identifiers of every converter class. The enum
+     * is searched only once per class by reflection.
+     */
+    private static final ClassValue<Class<? extends Enum<? extends TableColumnIdentifier>>> COLUMN_IDENTIFIERS_CLASSES = new ClassValue<>() {
+        @SuppressWarnings("unchecked") //only converter classes are passed
+        @Override
+        protected Class<? extends Enum<? extends TableColumnIdentifier>> computeValue(Class<?> converterClass) {
+            return reflectColumnIdentifiersClass((Class<? extends Converter>) converterClass);
+        }
+    };
+
+    /** Finds the callers of the warning and error methods */
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    /** The names of the methods of this class that report a message */
+    private static final Set<String> REPORT_METHOD_NAMES = ImmutableSet.of("report", "error", "err", "warning", "info");
+
     /** An empty list as default return value for empty records */
     private static final List<? extends Resource> EMPTY_RESOURCE_LIST = ImmutableList.of();
 
@@ -109,7 +128,7 @@ public abstract class Converter {
     final String dizID;
 
     /**  */
-    private final CSVRecord record;
+    private final TableRecord record;
 
     /**  */
     protected final ConverterResult result;
@@ -124,9 +143,16 @@ public abstract class Converter {
     protected final ConverterOptions options;
 
     /**
-     * The enum with the column identifiers (initialized by refelection).
+     * The column indices of the column enum of this converter in the table of
+     * the record or <code>null</code> if the converter has no column enum
      */
-    private final Class<? extends Enum<? extends TableColumnIdentifier>> columnIdentifiersClass;
+    private final ColumnPlan columnPlan;
+
+    /**
+     * The message of the first {@link #error(String)} of the conversion or
+     * <code>null</code> if the conversion has not failed
+     */
+    private String failure = null;
 
     /**
      * @param record
@@ -137,26 +163,35 @@ public abstract class Converter {
      * @param options
      * @throws Exception
      */
-    public Converter(CSVRecord record, String previousRecordPID, ConverterResult result, @Nullable FHIRValidator validator, ConverterOptions options) throws Exception {
+    public Converter(TableRecord record, String previousRecordPID, ConverterResult result, @Nullable FHIRValidator validator, ConverterOptions options) throws Exception {
         this.record = record;
         this.result = result;
         this.validator = validator;
         this.options = options;
+        Class<?> columnIdentifiersClass = getColumnIdentifiersClass();
+        columnPlan = columnIdentifiersClass == null ? null : record.getHeader().getColumnPlan(columnIdentifiersClass);
         pid = parsePatientId(previousRecordPID);
-        encounterIDs = parseEncounterIds();
-        dizID = pid.toUpperCase().replaceAll("[^A-Z]", "");
-        columnIdentifiersClass = reflectColumnIdentifiersClass();
+        if (pid == null) {
+            // the conversion has failed -> convert() will return no resources
+            encounterIDs = Collections.emptyList();
+            dizID = null;
+        } else {
+            encounterIDs = parseEncounterIds();
+            dizID = NON_DIZ_ID_CHARS.matcher(pid.toUpperCase()).replaceAll("");
+        }
     }
 
     /**
-     * @return
+     * @return the converted resources or an empty list if the record is empty
+     *         or the conversion has failed (see {@link #isFailed()})
      * @throws Exception
      */
     public List<? extends Resource> convert() throws Exception {
-        if (isEmptyCSVRecord()) {
+        if (isFailed() || isEmptyTableRecord()) {
             return EMPTY_RESOURCE_LIST;
         }
-        return convertInternal();
+        List<? extends Resource> resources = convertInternal();
+        return isFailed() ? EMPTY_RESOURCE_LIST : resources;
     }
 
     /**
@@ -172,34 +207,23 @@ public abstract class Converter {
      *
      * @return <code>true</code> if the record contains no values.
      */
-    private boolean isEmptyCSVRecord() {
-        boolean isEmpty = true;
-        try (CSVParser parser = record.getParser()) {
-            for (String columnIdentifier : parser.getHeaderNames()) {
-                String value = record.get(columnIdentifier);
-                if (value != null && !isBlank(value.replace('-', WHITE_SPACE))) {
-                    isEmpty = false;
-                    break;
-                }
+    private boolean isEmptyTableRecord() {
+        List<String> columnNames = record.getHeaderNames();
+        TableHeader header = record.getHeader();
+        for (int i = 0; i < columnNames.size(); i++) {
+            String value = record.get(header.getNamedColumnIndex(i), columnNames.get(i));
+            if (value != null && !isBlank(value.replace('-', WHITE_SPACE))) {
+                return false;
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         }
-        return isEmpty;
+        return true;
     }
 
     /**
      * @return The class with the enum with the definition of the table columns
      */
     public Class<? extends Enum<? extends TableColumnIdentifier>> getColumnIdentifiersClass() {
-        return columnIdentifiersClass;
-    }
-
-    /**
-     * @return The class with the enum with the definition of the table columns
-     */
-    private Class<? extends Enum<? extends TableColumnIdentifier>> reflectColumnIdentifiersClass() {
-        return reflectColumnIdentifiersClass(getClass());
+        return COLUMN_IDENTIFIERS_CLASSES.get(getClass());
     }
 
     /**
@@ -227,11 +251,40 @@ public abstract class Converter {
     }
 
     /**
-     * @param msg
-     * @throws Exception
+     * Marks the conversion of the record as failed. No exception is thrown, so
+     * the caller must stop the conversion itself (mostly by returning
+     * <code>null</code>). Only the first error of a record is kept and all
+     * following messages of the record are ignored. The failure is added to the
+     * diagnostics of the result and reported by the {@link TableIdentifier}
+     * after the conversion.
+     *
+     * @param msg the message without record specific values
+     */
+    public void error(String msg) {
+        if (isFailed()) {
+            return;
+        }
+        failure = "Error on " + getLogMessageBody(msg);
+        ConversionDiagnostics diagnostics = result == null ? null : result.getDiagnostics();
+        if (diagnostics != null) {
+            diagnostics.add(getClass(), Level.ERROR, msg, record, () -> getCallerLocation(1));
+        }
+    }
+
+    /**
+     * @return <code>true</code> if {@link #error(String)} was called for the
+     *         record
+     */
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * @return the message of the first error of the record or
+     *         <code>null</code> if the conversion has not failed
      */
-    public void error(String msg) throws Exception {
-        throw new Exception("Error on " + getLogMessageBody(msg));
+    public String getFailure() {
+        return failure;
     }
 
     /**
@@ -245,7 +298,7 @@ public abstract class Converter {
      * @param msg
      */
     protected void err(String msg, int stackTraceBackwardSteps) {
-        LOG.error(getLogMessageBody(msg) + "     " + Sys.getStackTraceStep(3 + stackTraceBackwardSteps));
+        report(Level.ERROR, msg, stackTraceBackwardSteps);
     }
 
     /**
@@ -259,7 +312,7 @@ public abstract class Converter {
      * @param msg
      */
     protected void warning(String msg, int stackTraceBackwardSteps) {
-        LOG.warn(getLogMessageBody(msg) + "     " + Sys.getStackTraceStep(3 + stackTraceBackwardSteps));
+        report(Level.WARNING, msg, stackTraceBackwardSteps);
     }
 
     /**
@@ -273,7 +326,59 @@ public abstract class Converter {
      * @param msg
      */
     protected void info(String msg, int stackTraceBackwardSteps) {
-        LOG.info(getLogMessageBody(msg) + "     " + Sys.getStackTraceStep(3 + stackTraceBackwardSteps));
+        report(Level.INFO, msg, stackTraceBackwardSteps);
+    }
+
+    /**
+     * Adds the message to the diagnostics of the result if the conversion has
+     * not failed. Only the first occurrences of a message are logged, all
+     * others are only counted. The location of the call is only searched if it
+     * is needed.
+     *
+     * @param level
+     * @param msg the message without record specific values
+     * @param stackTraceBackwardSteps 1 for the direct caller of the public
+     *            report method, 2 for the caller of the caller...
+     */
+    private void report(Level level, String msg, int stackTraceBackwardSteps) {
+        if (isFailed()) {
+            // the record is not converted -> the messages after the error are irrelevant
+            return;
+        }
+        ConversionDiagnostics diagnostics = result == null ? null : result.getDiagnostics();
+        long maxLoggedOccurrences = 1;
+        long occurrence = 1;
+        if (diagnostics != null) {
+            maxLoggedOccurrences = diagnostics.getMaxSamples();
+            occurrence = diagnostics.add(getClass(), level, msg, record, () -> getCallerLocation(stackTraceBackwardSteps));
+        }
+        if (occurrence <= maxLoggedOccurrences && level.isEnabled(LOG)) {
+            level.log(LOG, getLogMessageBody(msg) + "     " + getCallerLocation(stackTraceBackwardSteps));
+        }
+    }
+
+    /**
+     * @param stackTraceBackwardSteps 1 for the direct caller of the public
+     *            report method, 2 for the caller of the caller...
+     * @return the location of the caller of the report methods
+     */
+    private static String getCallerLocation(int stackTraceBackwardSteps) {
+        return STACK_WALKER.walk(frames -> frames
+                .dropWhile(frame -> !isReportFrame(frame))
+                .dropWhile(Converter::isReportFrame)
+                .skip(stackTraceBackwardSteps - 1)
+                .findFirst()
+                .map(frame -> frame.toStackTraceElement().toString())
+                .orElse(""));
+    }
+
+    /**
+     * @param frame
+     * @return <code>true</code> if the frame is in a report method of this
+     *         class
+     */
+    private static boolean isReportFrame(StackWalker.StackFrame frame) {
+        return frame.getDeclaringClass() == Converter.class && REPORT_METHOD_NAMES.contains(frame.getMethodName());
     }
 
     /**
@@ -309,30 +414,49 @@ public abstract class Converter {
     }
 
     /**
-     * Short for <code>record.get(columnIdentifier.toString))</code>
+     * Short for <code>record.get(columnIdentifier.toString))</code>. Missing
+     * optional columns return an empty string.
      *
      * @param columnIdentifier
      * @return
      */
     public String get(Object columnIdentifier) {
         String columnName = Objects.toString(columnIdentifier, null);
-        boolean tryCatch = columnIdentifier instanceof TableColumnIdentifier && !((TableColumnIdentifier) columnIdentifier).isMandatory();
-        String entry = null;
-        if (tryCatch) {
-            try {
-                entry = record.get(columnName);
-            } catch (Exception e) {
-                entry = "";
-            }
-        } else {
-            entry = record.get(columnName);
+        int index = columnIdentifier instanceof Enum ? getColumnPlan((Enum<?>) columnIdentifier).getIndex((Enum<?>) columnIdentifier)
+                : record.getHeader().getColumnIndexOrAbsent(columnName);
+        boolean optional = columnIdentifier instanceof TableColumnIdentifier && !((TableColumnIdentifier) columnIdentifier).isMandatory();
+        if (optional && !record.contains(index)) {
+            return "";
+        }
+        // the escaped quotes from Excel2Csv are already replaced with real
+        // quotes when the records are loaded
+        return record.get(index, columnName);
+    }
+
+    /**
+     * Like {@link TableRecord#get(Enum)} this uses the name() and not the
+     * toString() of the enum as column name.
+     *
+     * @param column
+     * @return the value in the column with the name of the enum
+     */
+    private String getByName(Enum<?> column) {
+        if (column == null) {
+            return record.get((Enum<?>) null);
         }
-        // replace the escaped quotes from Excel2Csv with
-        // real quotes
-        if (entry != null) {
-            entry = entry.replace(Excel2Csv.QUOTE_ESCAPE, "\"");
+        return record.get(getColumnPlan(column).getIndexByName(column), column.name());
+    }
+
+    /**
+     * @param column
+     * @return the plan of the enum of the column in the table of the record
+     */
+    private ColumnPlan getColumnPlan(Enum<?> column) {
+        Class<?> columnEnumClass = column.getDeclaringClass();
+        if (columnPlan != null && columnEnumClass == columnPlan.getColumnEnumClass()) {
+            return columnPlan;
         }
-        return entry;
+        return record.getHeader().getColumnPlan(columnEnumClass);
     }
 
     /**
@@ -491,7 +615,7 @@ public abstract class Converter {
 
     /**
      * Creates a {@link CodeableConcept} from the columns with the given name of
-     * the {@link CSVRecord} of this converter and the given codeSystemMapper.
+     * the {@link TableRecord} of this converter and the given codeSystemMapper.
      *
      * @param codeColumnName Name of the column with the human readable code
      * @param codeSystemMapper a mapper that maps from the human readable code
@@ -499,11 +623,11 @@ public abstract class Converter {
      *            system via the function
      *            {@link CodeSystemMapper#getCodeSystem()}
      * @return a new {@link CodeableConcept}
-     * @throws Exception if the {@link CSVRecord} returns <code>null</code> for
+     * @throws Exception if the {@link TableRecord} returns <code>null</code> for
      *             the codeColumnName
      */
     public CodeableConcept createCodeableConcept(Enum<?> codeColumnName, CodeSystemMapper codeSystemMapper) throws Exception {
-        String humanText = record.get(codeColumnName);
+        String humanText = getByName(codeColumnName);
         if (humanText == null) {
             error(codeColumnName + " empty for Record");
             return null;
@@ -520,7 +644,7 @@ public abstract class Converter {
     /**
      * Creates a new {@link CodeableConcept} to which coding is added. This code
      * has the passed {@link CodeSystem} and as code value the value from the
-     * column with the name codeColumnName from the {@link CSVRecord}.
+     * column with the name codeColumnName from the {@link TableRecord}.
      * Additionally the returned {@link CodeableConcept} gets the text from the
      * column textColumnName.
      *
@@ -533,7 +657,7 @@ public abstract class Converter {
      *         data absent reasond or if not mandatory then <code>null</code>
      */
     public CodeableConcept createCodeableConcept(String codeSystem, Enum<?> codeColumnName, Enum<?> textColumnName) {
-        String code = record.get(codeColumnName);
+        String code = getByName(codeColumnName);
         if (code != null) {
             Coding coding = createCoding(codeSystem, code);
             return createCodeableConcept(coding, textColumnName);
@@ -541,7 +665,7 @@ public abstract class Converter {
         String errorMessage = codeColumnName + " empty for Record";
         if (isMandatory(codeColumnName)) {
             err(errorMessage + " -> Creating \"unknown\" Data Absent Reason");
-            return getUnknownDataAbsentReasonCodeableConcept().setText(record.get(textColumnName));
+            return getUnknownDataAbsentReasonCodeableConcept().setText(getByName(textColumnName));
         }
         warning(errorMessage);
         return null;
@@ -559,7 +683,7 @@ public abstract class Converter {
      * @return a new {@link CodeableConcept}
      */
     public CodeableConcept createCodeableConcept(Coding coding, Enum<?> textColumnName) {
-        String text = record.get(textColumnName);
+        String text = getByName(textColumnName);
         return new CodeableConcept(coding).setText(text);
     }
 
@@ -632,7 +756,7 @@ public abstract class Converter {
      * @return a new {@link Coding}
      */
     public Coding createCoding(String codeSystem, Enum<?> codeColumnName) {
-        String code = record.get(codeColumnName);
+        String code = getByName(codeColumnName);
         if (isBlank(code)) {
             String errorMessage = codeColumnName + " empty for Record";
             if (!isMandatory(codeColumnName)) {
@@ -708,21 +832,21 @@ public abstract class Converter {
      * @param startDateColumnName
      * @param endDateColumnName
      * @return a {@link Period} object filled with the start and end date given
-     *         by the column names in the {@link CSVRecord} of this converter
+     *         by the column names in the {@link TableRecord} of this converter
      */
     public Period createPeriod(Enum<?> startDateColumnName, Enum<?> endDateColumnName) throws Exception {
         String endDateValue = null;
         DateTimeType startDate = null;
         DateTimeType endDate = null;
         try {
-            String startDateValue = record.get(startDateColumnName);
+            String startDateValue = getByName(startDateColumnName);
             startDate = DateUtil.parseDateTimeType(startDateValue);
         } catch (Exception e) {
             error("Can not parse " + startDateColumnName + " as date for Record " + record);
             return null;
         }
         try {
-            endDateValue = record.get(endDateColumnName);
+            endDateValue = getByName(endDateColumnName);
             endDate = DateUtil.parseDateTimeType(endDateValue);
         } catch (Exception e) {
             if (!isNullOrEmpty(endDateValue)) {
@@ -752,8 +876,10 @@ public abstract class Converter {
     public static Quantity getUcumQuantity(BigDecimal value, String ucumCode, String comparator) throws Exception {
         String ucumUnit = null;
         if (!isBlank(ucumCode)) {
-            ucumCode = UcumMapper.getValidUcumCode(ucumCode);
-            ucumUnit = UcumMapper.getUcumUnit(ucumCode);
+            // one memoised lookup for the code and the unit
+            NormalisedUcumCode normalisedUcumCode = UcumMapper.normalise(ucumCode);
+            ucumCode = normalisedUcumCode.getCode();
+            ucumUnit = normalisedUcumCode.getUnit();
         } else {
             ucumCode = null;
         }
@@ -878,11 +1004,20 @@ public abstract class Converter {
      * @return <code>true</code> if the value matches the pattern
      */
     public final boolean matches(Enum<?> valuePattern, Enum<?> columnName) {
-        String patternString = valuePattern.toString();
-        Pattern pattern = Pattern.compile(patternString, CASE_INSENSITIVE);
-        String value = get(columnName);
-        Matcher matcher = pattern.matcher(value);
-        return matcher.find();
+        return ValueClassifier.matchesPattern(valuePattern, get(columnName));
+    }
+
+    /**
+     * @param <E>
+     * @param valuePatternClass enum whose toString() values are the patterns
+     *            that must match the value of the record in the column with
+     *            the columnName
+     * @param columnName name of the column with the value to classify
+     * @return the first constant of the enum whose pattern matches the value
+     *         or <code>null</code> if no pattern matches
+     */
+    public final <E extends Enum<E>> E classify(Class<E> valuePatternClass, Enum<?> columnName) {
+        return ValueClassifier.ofPatterns(valuePatternClass).classify(get(columnName));
     }
 
 }
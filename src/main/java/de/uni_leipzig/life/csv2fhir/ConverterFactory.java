@@ -0,0 +1,29 @@
+package de.uni_leipzig.life.csv2fhir;
+
+import javax.annotation.Nullable;
+
+import de.uni_leipzig.imise.validate.FHIRValidator;
+
+/**
+ * Creates the {@link Converter} for one record of a table. The factories are
+ * the constructor references of the converter classes, so no reflection is
+ * needed to create the converter of every record.
+ *
+ * @author AXS (17.10.2026)
+ */
+@FunctionalInterface
+public interface ConverterFactory {
+
+    /**
+     * @param record
+     * @param previousRecordPID
+     * @param result
+     * @param validator Validator to validate resources. Can be
+     *            <code>null</code> if nothing should be validated.
+     * @param options
+     * @return the converter for the record
+     * @throws Exception
+     */
+    Converter create(TableRecord record, String previousRecordPID, ConverterResult result, @Nullable FHIRValidator validator, ConverterOptions options) throws Exception;
+
+}
@@ -3,9 +3,11 @@ package de.uni_leipzig.life.csv2fhir;
 import static de.uni_leipzig.life.csv2fhir.ConverterOptions.IntOption.PID_LAST_NUMBER_INCREASE_INITIAL_OFFSET;
 import static de.uni_leipzig.life.csv2fhir.ConverterOptions.IntOption.PID_LAST_NUMBER_INCREASE_LOOP_OFFSET;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -31,14 +33,14 @@ public class ConverterOptions {
     /** Map with all default options for the converting process */
     private final ResourceMapper options = ResourceMapper.of("Converter_Options.config");
 
-    /** Cache for the boolean values */
-    private final Map<BooleanOption, Boolean> booleanValues = new HashMap<>();
+    /** Cache for the boolean values (the options are shared by the converter threads) */
+    private final Map<BooleanOption, Boolean> booleanValues = new ConcurrentHashMap<>();
 
     /** Cache for the int values */
-    private final Map<IntOption, Integer> intValues = new HashMap<>();
+    private final Map<IntOption, Integer> intValues = new ConcurrentHashMap<>();
 
     /** Cache for the string values */
-    private final Map<StringOption, String> stringValues = new HashMap<>();
+    private final Map<StringOption, String> stringValues = new ConcurrentHashMap<>();
 
     /**
      * @param optionsAbsoluteFileName options file to load
@@ -47,6 +49,15 @@ public class ConverterOptions {
         putValues(optionsAbsoluteFileName);
     }
 
+    /**
+     * @param optionsContent content of an options file to load
+     * @throws IOException
+     */
+    public ConverterOptions(InputStream optionsContent) throws IOException {
+        //add or overwrite the defaults with the project specific option values
+        options.load(optionsContent);
+    }
+
     /**
      * @param optionsAbsoluteFileName options file to load
      */
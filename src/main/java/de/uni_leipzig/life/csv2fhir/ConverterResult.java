@@ -5,11 +5,12 @@ import static de.uni_leipzig.life.csv2fhir.BundleFunctions.getBaseId;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import org.hl7.fhir.r4.model.Condition;
 import org.hl7.fhir.r4.model.Encounter;
@@ -68,14 +69,50 @@ public class ConverterResult {
      */
     private final Multimap<TableIdentifier, ConvertedResources<? extends Resource>> createdResources = ArrayListMultimap.create();
 
+    /**
+     * Index for the lookup of the {@link ConvertedResources} in the
+     * {@link #createdResources}. Maps from the table and the requested
+     * resource type to the first {@link ConvertedResources} of the table whose
+     * content type is the requested type or a subtype of it. New
+     * {@link ConvertedResources} are always appended, so an indexed entry never
+     * becomes invalid. Types without {@link ConvertedResources} are not
+     * indexed.
+     */
+    private final Map<TableIdentifier, Map<Class<? extends Resource>, ConvertedResources<? extends Resource>>> typedResults = new EnumMap<>(TableIdentifier.class);
+
     /**  */
     private ConverterResultStatistics statistics = null;
 
+    /**
+     * State class -> state that converters pass from one record to the next
+     * record of the same conversion (e.g. the previous encounters of the
+     * encounter table).
+     */
+    private final Map<Class<?>, Object> converterStates = new HashMap<>();
+
+    /**
+     * Collects the warnings and errors of the converters. Can be shared by the
+     * results of all patients of a file set.
+     */
+    private final ConversionDiagnostics diagnostics;
+
+    /** The records whose conversion has failed in the order of the failures */
+    private final List<ConversionFailure> failures = new ArrayList<>();
+
     /**
      * @param converterOptions The options which contains the idStart values.
      */
     public ConverterResult(ConverterOptions converterOptions) {
+        this(converterOptions, new ConversionDiagnostics());
+    }
+
+    /**
+     * @param converterOptions The options which contains the idStart values.
+     * @param diagnostics collects the warnings and errors of the converters
+     */
+    public ConverterResult(ConverterOptions converterOptions, ConversionDiagnostics diagnostics) {
         this.converterOptions = converterOptions;
+        this.diagnostics = diagnostics;
     }
 
     /**
@@ -85,6 +122,47 @@ public class ConverterResult {
         return converterOptions;
     }
 
+    /**
+     * @return the collector of the warnings and errors of the converters
+     */
+    public ConversionDiagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Error sink for the records whose conversion has failed. The converters
+     * do not throw exceptions on invalid records but report the failures here.
+     *
+     * @param table
+     * @param record
+     * @param message the message of the first error of the record
+     * @return the added failure
+     */
+    public ConversionFailure addFailure(TableIdentifier table, TableRecord record, String message) {
+        ConversionFailure failure = new ConversionFailure(table, record, message);
+        failures.add(failure);
+        return failure;
+    }
+
+    /**
+     * @return the records whose conversion has failed in the order of the
+     *         failures
+     */
+    public List<ConversionFailure> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * @param <T>
+     * @param stateClass the class of the state
+     * @param stateFactory creates the initial state if this result has no
+     *            state of the class yet
+     * @return the state of the class for the conversion of this result
+     */
+    public <T> T getConverterState(Class<T> stateClass, Supplier<T> stateFactory) {
+        return stateClass.cast(converterStates.computeIfAbsent(stateClass, c -> stateFactory.get()));
+    }
+
     /**
      * @param tableSource
      * @param resource
@@ -92,14 +170,8 @@ public class ConverterResult {
     @SuppressWarnings("unchecked")
     public <T extends Resource> void add(TableIdentifier tableSource, T resource) {
         statistics = null;
-        Collection<ConvertedResources<? extends Resource>> typedConverterResults = createdResources.get(tableSource);
-        ConvertedResources<T> typedConverterResult = null;
         Class<T> resourceClass = (Class<T>) resource.getClass();
-        for (ConvertedResources<? extends Resource> result : typedConverterResults) {
-            if (result.hasContentType(resourceClass)) {
-                typedConverterResult = (ConvertedResources<T>) result;
-            }
-        }
+        ConvertedResources<T> typedConverterResult = getResult(tableSource, resourceClass);
         if (typedConverterResult == null) {
             typedConverterResult = new ConvertedResources<>(resourceClass);
             createdResources.put(tableSource, typedConverterResult);
@@ -121,22 +193,16 @@ public class ConverterResult {
     }
 
     /**
+     * Finds the resource via the ID index of the {@link ConvertedResources}
+     * without iterating over all resources of the table.
+     *
      * @param resourceType
      * @param id
      * @return
      */
     public <T extends Resource> T get(TableIdentifier tableSource, Class<T> resourceType, String id) {
         ConvertedResources<T> result = getResult(tableSource, resourceType);
-        if (result != null) {
-            id = getBaseId(id);
-            for (T resource : result.values()) {
-                String resourceID = resource.getId();
-                if (Objects.equals(id, resourceID)) {
-                    return resource;
-                }
-            }
-        }
-        return null;
+        return result == null ? null : result.get(getBaseId(id));
     }
 
     /**
@@ -147,12 +213,18 @@ public class ConverterResult {
      */
     @SuppressWarnings("unchecked")
     private <T extends Resource> ConvertedResources<T> getResult(TableIdentifier tableSource, Class<T> resourceType) {
-        for (ConvertedResources<? extends Resource> result : createdResources.get(tableSource)) {
-            if (result.hasContentType(resourceType)) {
-                return (ConvertedResources<T>) result;
+        Map<Class<? extends Resource>, ConvertedResources<? extends Resource>> typeToResult = typedResults.computeIfAbsent(tableSource, t -> new HashMap<>());
+        ConvertedResources<? extends Resource> typedResult = typeToResult.get(resourceType);
+        if (typedResult == null) {
+            for (ConvertedResources<? extends Resource> result : createdResources.get(tableSource)) {
+                if (result.hasContentType(resourceType)) {
+                    typedResult = result;
+                    typeToResult.put(resourceType, typedResult);
+                    break;
+                }
             }
         }
-        return null;
+        return (ConvertedResources<T>) typedResult;
     }
 
     /**
@@ -210,6 +282,60 @@ public class ConverterResult {
         return getStatistics().toString();
     }
 
+    /**
+     * The outcome of a record whose conversion has failed.
+     *
+     * @author AXS (17.10.2026)
+     */
+    public static final class ConversionFailure {
+
+        /**  */
+        private final TableIdentifier table;
+
+        /**  */
+        private final TableRecord record;
+
+        /**  */
+        private final String message;
+
+        /**
+         * @param table
+         * @param record
+         * @param message
+         */
+        private ConversionFailure(TableIdentifier table, TableRecord record, String message) {
+            this.table = table;
+            this.record = record;
+            this.message = message;
+        }
+
+        /**
+         * @return the table of the record
+         */
+        public TableIdentifier getTable() {
+            return table;
+        }
+
+        /**
+         * @return the record whose conversion has failed
+         */
+        public TableRecord getRecord() {
+            return record;
+        }
+
+        /**
+         * @return the message of the first error of the record
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "Error (" + message + ") while converting file " + table + " in record " + record;
+        }
+    }
+
     /**
      * Can store the one count for each Resource type and output it
      * appropriately via the toString() function.
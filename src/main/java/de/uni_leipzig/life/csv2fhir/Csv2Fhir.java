@@ -3,31 +3,31 @@ package de.uni_leipzig.life.csv2fhir;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static de.uni_leipzig.life.csv2fhir.ConverterOptions.IntOption.PID_LAST_NUMBER_INCREASE_LOOP_COUNT;
 import static de.uni_leipzig.life.csv2fhir.OutputFileType.JSON;
-import static de.uni_leipzig.life.csv2fhir.TableIdentifier.Konvertierungsoptionen;
 import static de.uni_leipzig.life.csv2fhir.TableIdentifier.Person;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Reader;
 import java.io.Writer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.annotation.Nullable;
 
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
 import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
 import org.hl7.fhir.r4.model.Bundle.BundleEntryRequestComponent;
@@ -42,6 +42,8 @@ import com.google.common.base.Strings;
 
 import de.uni_leipzig.imise.utils.Alphabetical;
 import de.uni_leipzig.imise.validate.FHIRValidator;
+import de.uni_leipzig.life.csv2fhir.ConversionDiagnostics.Level;
+import de.uni_leipzig.life.csv2fhir.ConverterResult.ConversionFailure;
 import de.uni_leipzig.life.csv2fhir.ConverterResult.ConverterResultStatistics;
 
 /**
@@ -52,8 +54,8 @@ public class Csv2Fhir {
     /**  */
     private static Logger LOG = LoggerFactory.getLogger(Csv2Fhir.class);
 
-    /**  */
-    private final File inputDirectory;
+    /** Provides the records of all tables of the file set */
+    private final TableRecordSource recordSource;
 
     /**  */
     private final File outputDirectory;
@@ -61,9 +63,6 @@ public class Csv2Fhir {
     /**  */
     private final String outputFileNameBase;
 
-    /**  */
-    private final CSVFormat csvFormat;
-
     /** The validator to validate all separate Resoruces and then the bundle */
     private final FHIRValidator validator;
 
@@ -73,8 +72,32 @@ public class Csv2Fhir {
     /** Counters for all resources created from one set of CSV files */
     private final ConverterResultStatistics fileSetStatistics = new ConverterResultStatistics();
 
-    /** Cache for the parsed records */
-    private final Map<TableIdentifier, List<CSVRecord>> tableIdentifierToParsedRecords = new HashMap<>();
+    /** Collects the warnings and errors of the converters of all patients */
+    private final ConversionDiagnostics fileSetDiagnostics = new ConversionDiagnostics();
+
+    /**
+     * Cache for the parsed records. The records of every table are parsed and
+     * indexed by the patient ID only once per file set.
+     */
+    private final Map<TableIdentifier, PIDRecordIndex> tableIdentifierToRecordIndex = new HashMap<>();
+
+    /**
+     * The count of threads that convert the patients in parallel. With 1 all
+     * patients are converted one after another in the calling thread.
+     */
+    private int threadCount = 1;
+
+    /**
+     * If <code>true</code> then the patients are converted by virtual threads
+     * (needs Java 21 or newer).
+     */
+    private boolean virtualThreads = false;
+
+    /**
+     * The count of threads that compress the gzip output files. With 1 the
+     * files are compressed in the writing thread.
+     */
+    private int compressionThreadCount = 1;
 
     /*
      * Resource classes which are not dependant of a patient (which have no
@@ -98,72 +121,86 @@ public class Csv2Fhir {
      * @param validator
      */
     public Csv2Fhir(File inputDirectory, File outputDirectory, String outputFileNameBase, @Nullable FHIRValidator validator) {
-        this.inputDirectory = inputDirectory;
+        this(new CsvTableRecordSource(inputDirectory, outputFileNameBase), outputDirectory, outputFileNameBase, validator);
+    }
+
+    /**
+     * @param recordSource provides the records of all tables of the file set
+     * @param outputDirectory
+     * @param outputFileNameBase
+     * @param validator
+     */
+    public Csv2Fhir(TableRecordSource recordSource, File outputDirectory, String outputFileNameBase, @Nullable FHIRValidator validator) {
+        this.recordSource = recordSource;
         this.outputDirectory = outputDirectory;
         this.outputFileNameBase = outputFileNameBase;
-        csvFormat = CSVFormat.DEFAULT.builder()
-                .setNullString("")
-                .setIgnoreSurroundingSpaces(true)
-                .setTrim(true)
-                .setAllowMissingColumnNames(true)
-                .setHeader()
-                .setSkipHeaderRecord(true).build();
         this.validator = validator;
-        allConverterOptions = loadConverterOptions(inputDirectory, outputFileNameBase);
+        // If there is no Konvertierungsoptionen table in the source then only the default options are
+        // loaded from the resources. If the table exists then it is loaded after the defaults are loaded.
+        allConverterOptions = recordSource.getConverterOptions();
+        // loads all map files only once for all file sets
+        CodeSystemMapperRegistry.loadAll();
     }
 
     /**
-     * @return
+     * @param threadCount the count of threads that convert the patients in
+     *            parallel. The bundles are always written in the order of the
+     *            patient IDs. Default is 1.
      */
-    private static final List<ConverterOptions> loadConverterOptions(File inputDirectory, String outputFileNameBase) {
-        List<ConverterOptions> allConverterOptions = new ArrayList<>();
-        // If there is no Konvertierungsoptionen.csv file in the outputLocal directory (that was extracted
-        // from the Excel file) then only the default options are loaded from the resources. If the file
-        // exists then it is loaded after the defaults are loaded.
-        String converterOptionsFileNamePattern = outputFileNameBase + Konvertierungsoptionen.getTableNamePattern().toString() + ".csv";
-        for (File file : inputDirectory.listFiles()) {
-            String fileName = file.getName();
-            if (fileName.matches(converterOptionsFileNamePattern)) {
-                ConverterOptions converterOptions = new ConverterOptions(file.getAbsolutePath());
-                allConverterOptions.add(converterOptions);
-            }
-        }
-        return allConverterOptions;
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * @param virtualThreads if <code>true</code> then the patients are
+     *            converted by virtual threads instead of a pool of
+     *            {@link #setThreadCount(int)} platform threads. Needs Java 21
+     *            or newer, otherwise the platform threads are used.
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
     }
 
     /**
-     * @param csvFileBaseName
+     * @param compressionThreadCount the count of threads that compress the
+     *            JSONGZIP and NDJSONGZIP files in parallel blocks. Default is
+     *            1 (compression in the writing thread).
+     */
+    public void setCompressionThreadCount(int compressionThreadCount) {
+        this.compressionThreadCount = compressionThreadCount;
+    }
+
+    /**
+     * @param table
      * @param columnName
      * @param distinct
      * @param alphabetical
      * @return
      * @throws IOException
      */
-    private Collection<String> getValues(TableIdentifier csvFileBaseName, Object columnName, boolean distinct, boolean alphabetical)
+    private Collection<String> getValues(TableIdentifier table, Object columnName, boolean distinct, boolean alphabetical)
             throws IOException {
         String columnNameString = String.valueOf(columnName);
         Collection<String> values = distinct ? new HashSet<>() : new ArrayList<>();
 
-        File file = new File(inputDirectory, outputFileNameBase + csvFileBaseName + ".csv");
-        if (!file.exists() || file.isDirectory()) {
+        List<TableRecord> records = recordSource.getRecords(table);
+        if (records == null) {
             return null;
         }
-        try (CSVParser records = csvFormat.parse(new FileReader(file))) {
-            for (CSVRecord record : records) {
-                String pid = record.get(columnNameString);
-                if (pid != null) {
-                    values.add(pid.toUpperCase());
-                    LOG.info("found pid=" + pid);
-                }
+        for (TableRecord record : records) {
+            String pid = record.get(columnNameString);
+            if (pid != null) {
+                values.add(pid.toUpperCase());
+                LOG.info("found pid=" + pid);
             }
-            if (alphabetical) {
-                if (distinct) {
-                    values = new ArrayList<>(values);
-                }
-                Alphabetical.sort((List<String>) values);
+        }
+        if (alphabetical) {
+            if (distinct) {
+                values = new ArrayList<>(values);
             }
-            return values;
+            Alphabetical.sort((List<String>) values);
         }
+        return values;
     }
 
     /**
@@ -173,7 +210,27 @@ public class Csv2Fhir {
      * @throws Exception
      */
     public ConverterResultStatistics convertFiles(int patientsPerBundle, OutputFileType... outputFileTypes) throws Exception {
-        Collection<String> pids = getValues(Person, Person.getPIDColumnIdentifier(), true, true);
+        indexTables();
+        ExecutorService executor = createExecutor();
+        try {
+            return convertFiles(executor, patientsPerBundle, outputFileTypes);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * @param executor converts the patients in parallel. If <code>null</code>
+     *            then all patients are converted in the calling thread.
+     * @param patientsPerBundle
+     * @param outputFileTypes
+     * @return the counters of all created resources
+     * @throws Exception
+     */
+    private ConverterResultStatistics convertFiles(@Nullable ExecutorService executor, int patientsPerBundle, OutputFileType... outputFileTypes) throws Exception {
+        List<String> pids = (List<String>) getValues(Person, Person.getPIDColumnIdentifier(), true, true);
 
         for (ConverterOptions converterOptions : allConverterOptions) {
 
@@ -199,68 +256,110 @@ public class Csv2Fhir {
                     }
                 }
                 //is only not null if the outputFileTypes contains NDJSON or ZIPJSON
-                multiSinglePatientBundlesFileWriter = MultiSinglePatientBundlesFileWriter.create(outputDirectory, outputFileNameBase, validator, outputFileTypes);
+                multiSinglePatientBundlesFileWriter = MultiSinglePatientBundlesFileWriter.create(outputDirectory, outputFileNameBase, validator, compressionThreadCount, outputFileTypes);
                 if (multiSinglePatientBundlesFileWriter != null) {
                     singlePatientBundle = createTransactionBundle();
                 }
             }
 
+            //without validation the JSON file is written patient by patient
+            //instead of encoding the complete bundle at the end
+            StreamingBundleFileWriter streamingBundleFileWriter = null;
+            if (validator == null) {
+                List<OutputFileType> streamedFileTypes = new ArrayList<>();
+                if (baseFileTypes.remove(JSON)) {
+                    streamedFileTypes.add(JSON);
+                }
+                for (int i = 0; i < compressedFileTypes.size(); i++) {
+                    if (compressedFileTypes.get(i).getBaseFileType() == JSON) {
+                        streamedFileTypes.add(compressedFileTypes.remove(i--));
+                    }
+                }
+                if (!streamedFileTypes.isEmpty()) {
+                    streamingBundleFileWriter = new StreamingBundleFileWriter(outputDirectory, outputFileNameBase, streamedFileTypes, PID_INDIPENDENT_RESOURCE_TYPES, compressionThreadCount);
+                }
+            }
+
             int bundlePIDCount = 0;
             int fullPIDCount = 0;
             String firstPID = null;
             String lastPID = null;
 
-            for (; converterOptions.loopCounter <= converterOptions.getValue(PID_LAST_NUMBER_INCREASE_LOOP_COUNT); converterOptions.loopCounter++) {
-                for (String pid : pids) {
-                    fullPIDCount++;
-                    if (bundlePIDCount++ == 0) {
-                        firstPID = converterOptions.getFullPID(pid);
-                        if (!baseFileTypes.isEmpty() || !compressedFileTypes.isEmpty()) {
-                            bundle = createTransactionBundle();
+            try {
+                for (; converterOptions.loopCounter <= converterOptions.getValue(PID_LAST_NUMBER_INCREASE_LOOP_COUNT); converterOptions.loopCounter++) {
+                    ConvertedPatientQueue convertedPatients = new ConvertedPatientQueue(pids, converterOptions, executor);
+                    for (String pid : pids) {
+                        fullPIDCount++;
+                        if (bundlePIDCount++ == 0) {
+                            firstPID = converterOptions.getFullPID(pid);
+                            if (!baseFileTypes.isEmpty() || !compressedFileTypes.isEmpty()) {
+                                bundle = createTransactionBundle();
+                            }
                         }
-                    }
-                    if (bundlePIDCount == patientsPerBundle || bundlePIDCount == pids2ConvertCount) {
-                        lastPID = converterOptions.getFullPID(pid);
-                    }
-                    LOG.info("Start add patient to Fhir-Json-Bundle for Patient-ID " + pid + " ...");
-                    Stopwatch stopwatch = Stopwatch.createStarted();
-                    String filter = isNullOrEmpty(pid) ? null : pid.toUpperCase();
-                    ConverterResult bundlesWithCSVData = fillBundlesWithCSVData(bundle, singlePatientBundle, filter, converterOptions);
-                    ConverterResultStatistics singleBundleStatistics = bundlesWithCSVData.getStatistics();
-                    if (bundle != null) {
-                        BundlePostProcessor.convert(bundle, converterOptions);
-                    }
-                    if (multiSinglePatientBundlesFileWriter != null) {
-                        //same convertion here as with the bundle
-                        BundlePostProcessor.convert(singlePatientBundle, converterOptions);
-                        multiSinglePatientBundlesFileWriter.appendBundle(singlePatientBundle);
-                        singlePatientBundle = createTransactionBundle();
-                    }
-                    pid = pid.replace('_', '-'); // see comment at ConverterOptions#getFullPID()
-                    if (lastPID != null) {
-                        String fileNameExtendsion = converterOptions.getPrefixWithSuffix();
-                        if (pids.size() > patientsPerBundle) {
-                            fileNameExtendsion = firstPID == lastPID ? firstPID : firstPID + "-" + lastPID;
+                        if (bundlePIDCount == patientsPerBundle || bundlePIDCount == pids2ConvertCount) {
+                            lastPID = converterOptions.getFullPID(pid);
+                        }
+                        LOG.info("Start add patient to Fhir-Json-Bundle for Patient-ID " + pid + " ...");
+                        Stopwatch stopwatch = Stopwatch.createStarted();
+                        ConvertedPatient convertedPatient = convertedPatients.take();
+                        Bundle streamedPatientBundle = streamingBundleFileWriter == null ? null : createTransactionBundle();
+                        for (Resource resource : convertedPatient.resources) {
+                            addEntry(bundle, resource);
+                            addEntry(singlePatientBundle, resource);
+                            if (streamedPatientBundle != null && !streamingBundleFileWriter.isWritten(resource)) {
+                                addEntry(streamedPatientBundle, resource);
+                            }
+                        }
+                        ConverterResultStatistics singleBundleStatistics = convertedPatient.result.getStatistics();
+                        if (bundle != null) {
+                            BundlePostProcessor.convert(bundle, converterOptions);
+                        }
+                        if (streamedPatientBundle != null) {
+                            BundlePostProcessor.convert(streamedPatientBundle, converterOptions);
+                            streamingBundleFileWriter.appendEntries(streamedPatientBundle);
                         }
-                        writeOutputFile(bundle, fileNameExtendsion, baseFileTypes, compressedFileTypes);
-                        bundle = createTransactionBundle();
                         if (multiSinglePatientBundlesFileWriter != null) {
-                            multiSinglePatientBundlesFileWriter.closeWriterAndRenameOrDeleteIfEmpty(fileNameExtendsion);
-                            if (fullPIDCount != pids2ConvertCount) {
-                                multiSinglePatientBundlesFileWriter.reset();
+                            //same convertion here as with the bundle
+                            BundlePostProcessor.convert(singlePatientBundle, converterOptions);
+                            multiSinglePatientBundlesFileWriter.appendBundle(singlePatientBundle);
+                            singlePatientBundle = createTransactionBundle();
+                        }
+                        pid = pid.replace('_', '-'); // see comment at ConverterOptions#getFullPID()
+                        if (lastPID != null) {
+                            String fileNameExtendsion = converterOptions.getPrefixWithSuffix();
+                            if (pids.size() > patientsPerBundle) {
+                                fileNameExtendsion = firstPID == lastPID ? firstPID : firstPID + "-" + lastPID;
                             }
+                            writeOutputFile(bundle, fileNameExtendsion, baseFileTypes, compressedFileTypes);
+                            bundle = null;
+                            if (streamingBundleFileWriter != null) {
+                                streamingBundleFileWriter.closeBundle(fileNameExtendsion);
+                            }
+                            if (multiSinglePatientBundlesFileWriter != null) {
+                                multiSinglePatientBundlesFileWriter.closeWriterAndRenameOrDeleteIfEmpty(fileNameExtendsion);
+                                if (fullPIDCount != pids2ConvertCount) {
+                                    multiSinglePatientBundlesFileWriter.reset();
+                                }
+                            }
+                            bundlePIDCount = 0;
+                            firstPID = null;
+                            lastPID = null;
                         }
-                        bundlePIDCount = 0;
-                        firstPID = null;
-                        lastPID = null;
+                        LOG.info("Finished create Fhir-Json-Bundle for Patient-ID " + pid + " in " + stopwatch.stop());
+                        LOG.info("Patient " + pid + " bundle content:\n" + singleBundleStatistics);
+                        fileSetStatistics.add(singleBundleStatistics);
                     }
-                    LOG.info("Finished create Fhir-Json-Bundle for Patient-ID " + pid + " in " + stopwatch.stop());
-                    LOG.info("Patient " + pid + " bundle content:\n" + singleBundleStatistics);
-                    fileSetStatistics.add(singleBundleStatistics);
+                }
+            } finally {
+                if (streamingBundleFileWriter != null) {
+                    streamingBundleFileWriter.discardBundle(); //same as the complete bundle: an unfinished bundle is not written
                 }
             }
         }
         LOG.info("All bundles of current file set content:\n" + fileSetStatistics);
+        if (!fileSetDiagnostics.isEmpty()) {
+            LOG.warn("Converter warnings and errors of current file set:\n" + fileSetDiagnostics);
+        }
         return fileSetStatistics;
     }
 
@@ -274,6 +373,11 @@ public class Csv2Fhir {
     }
 
     /**
+     * Writes the bundle to the files of all base and compressed file types.
+     * The bundle is encoded once for every base file type and written to the
+     * base file and to all compressed files of this base file type in the
+     * same pass.
+     *
      * @param bundle
      * @param fileNameExtension
      * @param baseFileTypes
@@ -281,36 +385,24 @@ public class Csv2Fhir {
      * @throws IOException
      */
     private boolean writeOutputFile(Bundle bundle, String fileNameExtension, List<OutputFileType> baseFileTypes, List<OutputFileType> compressedFileTypes) throws Exception {
-        List<OutputFileType> compressedFileTypesCopy = new ArrayList<>(compressedFileTypes); //copy the global list because we remove from it
         boolean written = false;
         if (bundle != null && !bundle.getEntry().isEmpty()) {
             if (validator == null || !validator.validateBundle(bundle).isError()) {
-                for (OutputFileType baseFileType : baseFileTypes) {
-                    File baseFile = writeBaseOutputFile(bundle, fileNameExtension, baseFileType);
-                    for (int i = compressedFileTypesCopy.size() - 1; i >= 0; i--) {
-                        OutputFileType compressedFileType = compressedFileTypesCopy.get(i);
-                        if (compressedFileType.getBaseFileType() == baseFileType) {
-                            compressedFileType.compress(baseFile);
-                            compressedFileTypesCopy.remove(i);
-                        }
-                    }
-                    written = true;
+                Set<OutputFileType> encodedFileTypes = new LinkedHashSet<>(baseFileTypes);
+                for (OutputFileType compressedFileType : compressedFileTypes) {
+                    encodedFileTypes.add(compressedFileType.getBaseFileType());
                 }
-                //for this compressed file types the base file type was not yet created
-                for (int i = 0; i < compressedFileTypesCopy.size(); i++) {
-                    OutputFileType compressedFileType = compressedFileTypesCopy.get(i);
-                    OutputFileType baseFileType = compressedFileType.getBaseFileType();
-                    File baseFile = writeBaseOutputFile(bundle, fileNameExtension, baseFileType);
-                    compressedFileType.compress(baseFile);
-                    compressedFileTypesCopy.remove(i--);
-                    for (int j = i; j > 0 && j < compressedFileTypesCopy.size(); j++) {
-                        OutputFileType nextCompressedFileType = compressedFileTypesCopy.get(j);
-                        if (nextCompressedFileType.getBaseFileType().equals(baseFileType)) {
-                            nextCompressedFileType.compress(baseFile);
-                            compressedFileTypesCopy.remove(j--);
+                for (OutputFileType encodedFileType : encodedFileTypes) {
+                    List<OutputFileType> fileTypes = new ArrayList<>();
+                    if (baseFileTypes.contains(encodedFileType)) {
+                        fileTypes.add(encodedFileType);
+                    }
+                    for (OutputFileType compressedFileType : compressedFileTypes) {
+                        if (compressedFileType.getBaseFileType() == encodedFileType) {
+                            fileTypes.add(compressedFileType);
                         }
                     }
-                    baseFile.delete();
+                    writeOutputFiles(bundle, fileNameExtension, encodedFileType, fileTypes);
                     written = true;
                 }
             }
@@ -321,100 +413,211 @@ public class Csv2Fhir {
     /**
      * @param bundle
      * @param fileNameExtension
-     * @param outputFileType
+     * @param encodedFileType the base file type whose parser encodes the bundle
+     * @param fileTypes the written file types with the encoded file type as
+     *            base file type (or the encoded file type itself)
+     * @throws IOException
      */
-    private File writeBaseOutputFile(Bundle bundle, String fileNameExtension, OutputFileType outputFileType) throws IOException {
-        String fileName = outputFileNameBase + (Strings.isNullOrEmpty(fileNameExtension) ? "" : fileNameExtension)
-                + outputFileType.getFileExtension();
-        File outputFile = new File(outputDirectory, fileName);
-        LOG.info("writing file " + fileName);
-        try (FileWriter fileWriter = new FileWriter(outputFile)) {
-            outputFileType.getParser()
-                    .setPrettyPrint(true)
-                    .encodeResourceToWriter(bundle, fileWriter);
+    private void writeOutputFiles(Bundle bundle, String fileNameExtension, OutputFileType encodedFileType, List<OutputFileType> fileTypes) throws IOException {
+        String fileNameWithoutExtension = outputFileNameBase + (Strings.isNullOrEmpty(fileNameExtension) ? "" : fileNameExtension);
+        for (OutputFileType fileType : fileTypes) {
+            LOG.info("writing file " + fileNameWithoutExtension + fileType.getFileExtension());
+        }
+        try (Writer writer = OutputFileType.createWriter(outputDirectory, fileNameWithoutExtension, fileTypes, compressionThreadCount)) {
+            encodedFileType.getParser(true)
+                    .encodeResourceToWriter(bundle, writer);
+            writer.write("\n");
         }
-        appendNewLineAtEOF(outputFile);
-        return outputFile;
     }
 
     /**
-     * @param file
+     * Parses and indexes all convertable tables of the source before the
+     * patients are converted, so the converter threads only read the indices.
+     *
      * @throws IOException
      */
-    private static void appendNewLineAtEOF(File file) throws IOException {
-        Writer output = new BufferedWriter(new FileWriter(file, true)).append("\n");
-        output.close();
+    private void indexTables() throws IOException {
+        for (TableIdentifier table : TableIdentifier.values()) {
+            if (table.isConvertableTableSheet() && !tableIdentifierToRecordIndex.containsKey(table)) {
+                TableHeader header = recordSource.getHeader(table);
+                if (header == null) {
+                    continue;
+                }
+                Collection<String> neededColumnNames = table.getMandatoryColumnNames();
+                if (isColumnMissing(header.getColumnNames(), neededColumnNames)) {
+                    LOG.error("Error - File: " + table.getCsvFileName(outputFileNameBase) + " not convertable!");
+                    continue;
+                }
+                tableIdentifierToRecordIndex.put(table, PIDRecordIndex.create(table, recordSource.getRecords(table)));
+            }
+        }
     }
 
     /**
-     * @param bundle
-     * @param ndjsonBundle
-     * @param filterID
+     * Converts all records of the patient. This function only reads the shared
+     * indices and options, so it can be called by multiple threads at the same
+     * time for different patients.
+     *
+     * @param pid
      * @param options
-     * @return
-     * @throws Exception
+     * @return the result and the created resources of the patient
      */
-    private ConverterResult fillBundlesWithCSVData(Bundle bundle, Bundle ndjsonBundle, String filterID, ConverterOptions options) throws Exception {
+    private ConvertedPatient convertPatient(String pid, ConverterOptions options) {
+        String filterID = isNullOrEmpty(pid) ? null : pid.toUpperCase();
         LOG.info("Start parsing CSV files for Patient-ID " + filterID + "...");
         Stopwatch stopwatch = Stopwatch.createStarted();
-        ConverterResult result = new ConverterResult(options);
+        ConvertedPatient convertedPatient = new ConvertedPatient(new ConverterResult(options, fileSetDiagnostics));
         boolean filter = !Strings.isNullOrEmpty(filterID);
         for (TableIdentifier table : TableIdentifier.values()) {
-            if (table.isConvertableTableSheet()) {
-                List<CSVRecord> parsedRecords = tableIdentifierToParsedRecords.get(table);
-                if (parsedRecords == null) {
-                    String fileName = table.getCsvFileName(outputFileNameBase);
-                    File file = new File(inputDirectory, fileName);
-                    if (!file.exists() || file.isDirectory()) {
-                        continue;
-                    }
-                    try (Reader in = new FileReader(file)) {
-                        CSVParser csvParser = csvFormat.parse(in);
-                        LOG.info("Start parsing File:" + fileName);
-                        Map<String, Integer> headerMap = csvParser.getHeaderMap();
-                        Collection<String> neededColumnNames = table.getMandatoryColumnNames();
-                        if (isColumnMissing(headerMap, neededColumnNames)) {
-                            csvParser.close();
-                            LOG.error("Error - File: " + fileName + " not convertable!");
-                            continue;
-                        }
-                        parsedRecords = csvParser.getRecords();
-                        tableIdentifierToParsedRecords.put(table, parsedRecords);
-                        csvParser.close();
+            PIDRecordIndex recordIndex = tableIdentifierToRecordIndex.get(table);
+            if (recordIndex == null) {
+                continue;
+            }
+            if (filter) {
+                int[] ranges = recordIndex.getRanges(filterID);
+                for (int r = 0; r < ranges.length; r += 2) {
+                    for (int i = ranges[r]; i < ranges[r + 1]; i++) {
+                        convert(table, recordIndex.getRecord(i), recordIndex.getPreviousPID(i), convertedPatient);
                     }
                 }
-                String previousPID = null;
-                for (int i = 0; i < parsedRecords.size(); i++) {
-                    CSVRecord record = parsedRecords.get(i);
-                    try {
-                        if (filter) {
-                            String pidColumnName = table.getPIDColumnIdentifier().toString();
-                            String pid = record.get(pidColumnName);
-                            if (isNullOrEmpty(pid)) {
-                                if (isRecordEmpty(record, table.getMandatoryColumnNames())) {
-                                    continue;
-                                }
-                                pid = previousPID;
-                            } else {
-                                previousPID = pid;
-                            }
-                            if (!pid.toUpperCase().matches(filterID)) {
-                                continue;
-                            }
-                        }
-                        List<? extends Resource> list = table.convert(record, previousPID, result, validator, options);
-                        for (Resource resource : list) {
-                            addEntry(bundle, resource);
-                            addEntry(ndjsonBundle, resource);
-                        }
-                    } catch (Exception e) {
-                        LOG.error("Error (" + e.getMessage() + ") while converting file " + table + " in record " + record);
-                    }
+            } else {
+                for (TableRecord record : recordIndex.getRecords()) {
+                    convert(table, record, null, convertedPatient);
                 }
             }
         }
+        for (ConversionFailure failure : convertedPatient.result.getFailures()) {
+            LOG.error(failure.toString());
+        }
         LOG.info("Finished parsing CSV files for Patient-ID " + filterID + " in " + stopwatch.stop());
-        return result;
+        return convertedPatient;
+    }
+
+    /**
+     * Converts the record and adds the resulting resources to the converted
+     * patient. Failures of the conversion are added to the result and not
+     * thrown.
+     *
+     * @param table
+     * @param record
+     * @param previousPID
+     * @param convertedPatient
+     */
+    private void convert(TableIdentifier table, TableRecord record, String previousPID, ConvertedPatient convertedPatient) {
+        ConverterResult result = convertedPatient.result;
+        try {
+            List<? extends Resource> list = table.convert(record, previousPID, result, validator, result.getConverterOptions());
+            convertedPatient.resources.addAll(list);
+        } catch (Exception e) {
+            // unexpected error in a converter -> report it like a failed conversion
+            result.addFailure(table, record, e.getMessage());
+            fileSetDiagnostics.add(getClass(), Level.ERROR, String.valueOf(e), record, () -> table.toString());
+        }
+    }
+
+    /**
+     * @return the executor to convert the patients in parallel or
+     *         <code>null</code> if the patients should be converted in the
+     *         calling thread
+     */
+    private ExecutorService createExecutor() {
+        if (virtualThreads) {
+            try {
+                // Java 21+ only, so we cannot call it directly with the source level of this project
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                LOG.warn("Virtual threads are not available in this Java version. Using " + threadCount + " platform threads.");
+            }
+        }
+        if (threadCount <= 1) {
+            return null;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "Csv2Fhir-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The result and the resources of one converted patient. The resources are
+     * in the order of their creation.
+     */
+    private static final class ConvertedPatient {
+
+        /**  */
+        private final ConverterResult result;
+
+        /**  */
+        private final List<Resource> resources = new ArrayList<>();
+
+        /**
+         * @param result
+         */
+        private ConvertedPatient(ConverterResult result) {
+            this.result = result;
+        }
+    }
+
+    /**
+     * Returns the converted patients in the order of the PIDs. If there is an
+     * executor then the following patients are converted in parallel while the
+     * current patient is added to the bundles. The count of patients converted
+     * in advance is limited to bound the memory.
+     */
+    private final class ConvertedPatientQueue {
+
+        /**  */
+        private final List<String> pids;
+
+        /**  */
+        private final ConverterOptions options;
+
+        /**  */
+        private final ExecutorService executor;
+
+        /** The submitted but not yet taken conversions in the order of the PIDs */
+        private final Deque<Future<ConvertedPatient>> submitted = new ArrayDeque<>();
+
+        /** The maximum count of submitted but not yet taken conversions */
+        private final int maxSubmitted;
+
+        /** The index of the next PID to convert */
+        private int nextPIDIndex = 0;
+
+        /**
+         * @param pids
+         * @param options
+         * @param executor
+         */
+        private ConvertedPatientQueue(List<String> pids, ConverterOptions options, @Nullable ExecutorService executor) {
+            this.pids = pids;
+            this.options = options;
+            this.executor = executor;
+            int parallelism = threadCount > 1 ? threadCount : Runtime.getRuntime().availableProcessors();
+            maxSubmitted = 2 * parallelism;
+        }
+
+        /**
+         * @return the next converted patient in the order of the PIDs
+         * @throws Exception
+         */
+        private ConvertedPatient take() throws Exception {
+            if (executor == null) {
+                return convertPatient(pids.get(nextPIDIndex++), options);
+            }
+            while (nextPIDIndex < pids.size() && submitted.size() < maxSubmitted) {
+                String pid = pids.get(nextPIDIndex++);
+                submitted.add(executor.submit(() -> convertPatient(pid, options)));
+            }
+            try {
+                return submitted.remove().get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+        }
     }
 
     /**
@@ -448,42 +651,29 @@ public class Csv2Fhir {
      * @param resourceClass
      * @param id
      * @return <code>true</code> if the bundle contains a resource with the
-     *         given id.
+     *         given id. Uses the {@link BundleResourceIndex} of the bundle.
      */
     public static final boolean containsResource(Bundle bundle, Class<? extends Resource> resourceClass, String id) {
-        List<BundleEntryComponent> entries = bundle.getEntry();
-        for (BundleEntryComponent bundleEntry : entries) {
-            Resource existingResource = bundleEntry.getResource();
-            Class<? extends Resource> existingResourceClass = existingResource.getClass();
-            if (resourceClass.isAssignableFrom(existingResourceClass)) {
-                String existingResourceID = existingResource.getId();
-                if (existingResourceID.equals(id)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return BundleResourceIndex.get(bundle).containsResourceOrSubclassResource(resourceClass, id);
     }
 
     /**
-     * @param map
+     * @param columnNames
      * @return
      */
-    private static Set<String> getTrimmedKeys(Map<String, Integer> map) {
-        Set<String> keySet = map.keySet();
-        Stream<String> keySetStream = keySet.stream();
-        keySetStream = keySetStream.map(String::trim);
-        keySet = keySetStream.collect(Collectors.toSet());
-        return keySet;
+    private static Set<String> getTrimmedColumnNames(Collection<String> columnNames) {
+        Stream<String> columnNamesStream = columnNames.stream();
+        columnNamesStream = columnNamesStream.map(String::trim);
+        return columnNamesStream.collect(Collectors.toSet());
     }
 
     /**
-     * @param map
-     * @param neededColls
+     * @param columnNames
+     * @param neededColumnNames
      * @return
      */
-    private static boolean isColumnMissing(Map<String, Integer> map, Collection<String> neededColumnNames) {
-        Set<String> columns = getTrimmedKeys(map);
+    private static boolean isColumnMissing(Collection<String> columnNames, Collection<String> neededColumnNames) {
+        Set<String> columns = getTrimmedColumnNames(columnNames);
         if (!columns.containsAll(neededColumnNames)) {//Error message
             for (String s : neededColumnNames) {
                 if (!columns.contains(s)) {
@@ -495,22 +685,6 @@ public class Csv2Fhir {
         return false;
     }
 
-    /**
-     * @param record
-     * @param mandatoryColumnsNames
-     * @return true if all values in the mandatory columns of the record are
-     *         empty
-     */
-    private static boolean isRecordEmpty(CSVRecord record, Collection<String> mandatoryColumnsNames) {
-        for (String columnName : mandatoryColumnsNames) {
-            String value = record.get(columnName);
-            if (!isNullOrEmpty(value)) {
-                return false;
-            }
-        }
-        return true;
-    }
-
     /**
      * @param resource
      * @return
@@ -0,0 +1,126 @@
+package de.uni_leipzig.life.csv2fhir;
+
+import static de.uni_leipzig.imise.utils.Excel2Csv.QUOTE_ESCAPE;
+import static de.uni_leipzig.life.csv2fhir.TableIdentifier.Konvertierungsoptionen;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the tables from the csv files of one file set in a directory. Every
+ * csv file is parsed only once and the escaped quotes in the values are
+ * replaced while loading.
+ *
+ * @author AXS (17.10.2026)
+ */
+public class CsvTableRecordSource implements TableRecordSource {
+
+    /**  */
+    private static final Logger LOG = LoggerFactory.getLogger(CsvTableRecordSource.class);
+
+    /**  */
+    private static final CSVFormat CSV_FORMAT = CSVFormat.DEFAULT.builder()
+            .setNullString("")
+            .setIgnoreSurroundingSpaces(true)
+            .setTrim(true)
+            .setAllowMissingColumnNames(true)
+            .setHeader()
+            .setSkipHeaderRecord(true).build();
+
+    /**  */
+    private final File inputDirectory;
+
+    /**  */
+    private final String fileNameBase;
+
+    /** Cache for the headers of the already parsed tables */
+    private final Map<TableIdentifier, TableHeader> headers = new HashMap<>();
+
+    /** Cache for the records of the already parsed tables */
+    private final Map<TableIdentifier, List<TableRecord>> records = new HashMap<>();
+
+    /**
+     * @param inputDirectory
+     * @param fileNameBase
+     */
+    public CsvTableRecordSource(File inputDirectory, String fileNameBase) {
+        this.inputDirectory = inputDirectory;
+        this.fileNameBase = fileNameBase;
+    }
+
+    @Override
+    public TableHeader getHeader(TableIdentifier table) throws IOException {
+        parse(table);
+        return headers.get(table);
+    }
+
+    @Override
+    public List<TableRecord> getRecords(TableIdentifier table) throws IOException {
+        parse(table);
+        return records.get(table);
+    }
+
+    /**
+     * Parses the csv file of the table if it was not parsed before.
+     *
+     * @param table
+     * @throws IOException
+     */
+    private void parse(TableIdentifier table) throws IOException {
+        if (headers.containsKey(table)) {
+            return;
+        }
+        String fileName = table.getCsvFileName(fileNameBase);
+        File file = new File(inputDirectory, fileName);
+        if (!file.exists() || file.isDirectory()) {
+            headers.put(table, null);
+            return;
+        }
+        LOG.info("Start parsing File:" + fileName);
+        try (Reader in = new FileReader(file); CSVParser csvParser = CSV_FORMAT.parse(in)) {
+            TableHeader header = new TableHeader(csvParser.getHeaderMap());
+            List<TableRecord> tableRecords = new ArrayList<>();
+            for (CSVRecord csvRecord : csvParser) {
+                String[] values = csvRecord.values();
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] != null) {
+                        values[i] = values[i].replace(QUOTE_ESCAPE, "\"");
+                    }
+                }
+                tableRecords.add(new TableRecord(header, values, csvRecord.getRecordNumber()));
+            }
+            headers.put(table, header);
+            records.put(table, tableRecords);
+        }
+    }
+
+    @Override
+    public List<ConverterOptions> getConverterOptions() {
+        List<ConverterOptions> allConverterOptions = new ArrayList<>();
+        // If there is no Konvertierungsoptionen.csv file in the outputLocal directory (that was extracted
+        // from the Excel file) then only the default options are loaded from the resources. If the file
+        // exists then it is loaded after the defaults are loaded.
+        String converterOptionsFileNamePattern = fileNameBase + Konvertierungsoptionen.getTableNamePattern().toString() + ".csv";
+        for (File file : inputDirectory.listFiles()) {
+            String fileName = file.getName();
+            if (fileName.matches(converterOptionsFileNamePattern)) {
+                ConverterOptions converterOptions = new ConverterOptions(file.getAbsolutePath());
+                allConverterOptions.add(converterOptions);
+            }
+        }
+        return allConverterOptions;
+    }
+
+}
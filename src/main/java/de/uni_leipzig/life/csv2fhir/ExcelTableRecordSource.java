@@ -0,0 +1,239 @@
+package de.uni_leipzig.life.csv2fhir;
+
+import static de.uni_leipzig.life.csv2fhir.TableIdentifier.Konvertierungsoptionen;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Stopwatch;
+
+import de.uni_leipzig.imise.utils.Excel2Csv;
+import de.uni_leipzig.imise.utils.Excel2Csv.CsvSheetWriter;
+import de.uni_leipzig.imise.utils.Excel2Csv.ReadMode;
+import de.uni_leipzig.imise.utils.Excel2Csv.SheetHandler;
+
+/**
+ * Reads the tables directly from the sheets of an Excel file without writing
+ * and parsing intermediate csv files. Every row of a sheet becomes one
+ * {@link TableRecord} with the first row of the sheet as header.
+ *
+ * @author AXS (17.10.2026)
+ */
+public class ExcelTableRecordSource implements TableRecordSource {
+
+    /**  */
+    private static final Logger LOG = LoggerFactory.getLogger(ExcelTableRecordSource.class);
+
+    /** Sheet name -> header of the sheet */
+    private final Map<String, TableHeader> headers = new HashMap<>();
+
+    /** Sheet name -> records of the sheet */
+    private final Map<String, List<TableRecord>> records = new HashMap<>();
+
+    /** The options of all options sheets in the order of the sheets */
+    private final List<ConverterOptions> allConverterOptions = new ArrayList<>();
+
+    /**
+     * Use {@link #read(File, Collection, ReadMode, File, int)} to create the
+     * source.
+     */
+    private ExcelTableRecordSource() {
+    }
+
+    /**
+     * Reads all sheets of the Excel file into the memory.
+     *
+     * @param excelFile
+     * @param sheetNamePatterns if not <code>null</code> then only the sheets
+     *            with a name matching one of this patterns will be read
+     * @param readMode the way to read the Excel file
+     * @param csvDumpDirectory if not <code>null</code> then every read sheet is
+     *            also written as csv file to this directory (for debugging)
+     * @return the source with the records of all read sheets
+     * @throws IOException
+     */
+    public static ExcelTableRecordSource read(File excelFile, @Nullable Collection<String> sheetNamePatterns, ReadMode readMode, @Nullable File csvDumpDirectory) throws IOException {
+        return read(excelFile, sheetNamePatterns, readMode, csvDumpDirectory, 1);
+    }
+
+    /**
+     * Reads all sheets of the Excel file into the memory.
+     *
+     * @param excelFile
+     * @param sheetNamePatterns if not <code>null</code> then only the sheets
+     *            with a name matching one of this patterns will be read
+     * @param readMode the way to read the Excel file
+     * @param csvDumpDirectory if not <code>null</code> then every read sheet is
+     *            also written as csv file to this directory (for debugging)
+     * @param threadCount the count of threads that read the sheets in
+     *            parallel (only with {@link ReadMode#STREAMING})
+     * @return the source with the records of all read sheets
+     * @throws IOException
+     */
+    public static ExcelTableRecordSource read(File excelFile, @Nullable Collection<String> sheetNamePatterns, ReadMode readMode, @Nullable File csvDumpDirectory, int threadCount)
+            throws IOException {
+        LOG.info("Start reading Excel file " + excelFile + "...");
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        ExcelTableRecordSource source = new ExcelTableRecordSource();
+        // every sheet gets its own collector, so the sheets can be read in parallel
+        List<RecordCollector> recordCollectors = new ArrayList<>();
+        readMode.read(excelFile, sheetName -> {
+            CsvSheetWriter csvWriter = csvDumpDirectory == null ? null : new CsvSheetWriter(excelFile, null, csvDumpDirectory);
+            RecordCollector recordCollector = new RecordCollector(sheetNamePatterns, csvWriter);
+            recordCollectors.add(recordCollector);
+            return recordCollector;
+        }, threadCount);
+        // the results are added in the order of the sheets independent of the
+        // order in which the sheets were finished
+        for (RecordCollector recordCollector : recordCollectors) {
+            source.add(recordCollector);
+        }
+        LOG.info("Finished reading Excel file " + excelFile + " in " + stopwatch.stop());
+        return source;
+    }
+
+    /**
+     * Adds the header and the records or the options of a completely read
+     * sheet.
+     *
+     * @param recordCollector
+     */
+    private void add(RecordCollector recordCollector) {
+        if (!recordCollector.finished) {
+            return;
+        }
+        if (recordCollector.optionsSheet) {
+            allConverterOptions.add(recordCollector.converterOptions);
+        } else if (recordCollector.header != null) {
+            headers.put(recordCollector.sheetName, recordCollector.header);
+            records.put(recordCollector.sheetName, recordCollector.sheetRecords);
+        }
+    }
+
+    @Override
+    public TableHeader getHeader(TableIdentifier table) {
+        return headers.get(table.toString());
+    }
+
+    @Override
+    public List<TableRecord> getRecords(TableIdentifier table) {
+        return records.get(table.toString());
+    }
+
+    @Override
+    public List<ConverterOptions> getConverterOptions() {
+        return allConverterOptions;
+    }
+
+    /**
+     * Collects the rows of one sheet as records or as options.
+     */
+    private static class RecordCollector implements SheetHandler {
+
+        /**  */
+        private final Collection<String> sheetNamePatterns;
+
+        /** Optional writer for the csv debug dump */
+        private final CsvSheetWriter csvWriter;
+
+        /**  */
+        private String sheetName;
+
+        /** <code>true</code> if the current sheet contains converter options */
+        private boolean optionsSheet;
+
+        /** The header of the current sheet or null before the first row */
+        private TableHeader header;
+
+        /** The records of the current sheet */
+        private List<TableRecord> sheetRecords;
+
+        /** The csv content of the current options sheet */
+        private StringBuilder optionsContent;
+
+        /** The options of the sheet after the sheet was read */
+        private ConverterOptions converterOptions;
+
+        /** <code>true</code> after the last row of the sheet was read */
+        private boolean finished;
+
+        /**
+         * @param sheetNamePatterns
+         * @param csvWriter
+         */
+        public RecordCollector(Collection<String> sheetNamePatterns, @Nullable CsvSheetWriter csvWriter) {
+            this.sheetNamePatterns = sheetNamePatterns;
+            this.csvWriter = csvWriter;
+        }
+
+        @Override
+        public boolean startSheet(String sheetName) throws IOException {
+            if (!Excel2Csv.isAcceptedSheet(sheetName, sheetNamePatterns)) {
+                LOG.info("Skip sheet \"" + sheetName + "\"");
+                return false;
+            }
+            if (csvWriter != null) {
+                csvWriter.startSheet(sheetName);
+            }
+            this.sheetName = sheetName;
+            optionsSheet = sheetName.matches(Konvertierungsoptionen.getTableNamePattern().toString());
+            header = null;
+            sheetRecords = new ArrayList<>();
+            optionsContent = new StringBuilder();
+            return true;
+        }
+
+        @Override
+        public void row(String[] cellValues) throws IOException {
+            if (csvWriter != null) {
+                csvWriter.row(cellValues);
+            }
+            if (optionsSheet) {
+                // the options are parsed like the csv file with the same content
+                optionsContent.append(Excel2Csv.toCsvLine(cellValues)).append('\n');
+                return;
+            }
+            String[] values = new String[cellValues.length];
+            for (int i = 0; i < values.length; i++) {
+                String value = Excel2Csv.cleanCellValue(cellValues[i]);
+                values[i] = value.isEmpty() ? null : value;
+            }
+            if (header == null) {
+                header = new TableHeader(values);
+            } else {
+                sheetRecords.add(new TableRecord(header, values, sheetRecords.size() + 1));
+            }
+        }
+
+        @Override
+        public void endSheet() throws IOException {
+            if (csvWriter != null) {
+                csvWriter.endSheet();
+            }
+            if (optionsSheet) {
+                converterOptions = new ConverterOptions(new ByteArrayInputStream(optionsContent.toString().getBytes(UTF_8)));
+            }
+            finished = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (csvWriter != null) {
+                csvWriter.close();
+            }
+        }
+    }
+
+}
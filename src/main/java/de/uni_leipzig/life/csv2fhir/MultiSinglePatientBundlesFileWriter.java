@@ -1,15 +1,16 @@
 package de.uni_leipzig.life.csv2fhir;
 
 import static de.uni_leipzig.life.csv2fhir.OutputFileType.NDJSON;
+import static de.uni_leipzig.life.csv2fhir.OutputFileType.NDJSONGZIP;
 import static de.uni_leipzig.life.csv2fhir.OutputFileType.ZIPJSON;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
-import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
@@ -29,14 +30,26 @@ import de.uni_leipzig.imise.validate.FHIRValidator;
  */
 public class MultiSinglePatientBundlesFileWriter {
 
-    /** Buffered writer with a file writer in it. */
-    private BufferedWriter ndjsonWriter;
+    /**
+     * Buffered writer to the files of all ndjson file types (plain and gzip
+     * compressed).
+     */
+    private Writer ndjsonWriter;
+
+    /** <code>true</code> if at least one bundle was written to the ndjson files */
+    private boolean ndjsonWritten;
 
     /**  */
     private ZipOutputStream zipJsonOutputStream;
 
-    /** The ndjson file */
-    private final File ndjsonFile;
+    /** The requested ndjson file types (plain and gzip compressed) */
+    private final List<OutputFileType> ndjsonFileTypes;
+
+    /** Directory of the output files */
+    private final File outputDirectory;
+
+    /** The count of threads that compress the gzip files */
+    private final int compressionThreadCount;
 
     /** The zip file */
     private final File zipJsonFile;
@@ -54,42 +67,47 @@ public class MultiSinglePatientBundlesFileWriter {
      * @param outputDirectory
      * @param outputFileNameBase
      * @param validator
-     * @param writeNDJsonFile
+     * @param compressionThreadCount
+     * @param ndjsonFileTypes
      * @param writeZipFile
      * @throws Exception
      */
-    private MultiSinglePatientBundlesFileWriter(File outputDirectory, String outputFileNameBase, FHIRValidator validator, boolean writeNDJsonFile, boolean writeZipFile) throws Exception {
-        ndjsonFile = new File(outputDirectory, outputFileNameBase + NDJSON.getFileExtension());
+    private MultiSinglePatientBundlesFileWriter(File outputDirectory, String outputFileNameBase, FHIRValidator validator, int compressionThreadCount, List<OutputFileType> ndjsonFileTypes, boolean writeZipFile) throws Exception {
         zipJsonFile = new File(outputDirectory, outputFileNameBase + ZIPJSON.getFileExtension());
+        this.outputDirectory = outputDirectory;
+        this.ndjsonFileTypes = ndjsonFileTypes;
+        this.compressionThreadCount = compressionThreadCount;
         this.validator = validator;
         this.outputFileNameBase = outputFileNameBase;
-        resetInternal(writeNDJsonFile, writeZipFile);
+        resetInternal(!ndjsonFileTypes.isEmpty(), writeZipFile);
     }
 
     /**
      * @param outputDirectory
      * @param outputFileNameBase
      * @param validator
+     * @param compressionThreadCount the count of threads that compress the
+     *            ndjson.gz file
      * @param outputFileTypes
-     * @return a writer for json.zip and ndjson files, if the given
+     * @return a writer for json.zip, ndjson and ndjson.gz files, if the given
      *         outputFileTypes contains the keys of this files types. If no key
      *         found in the outputFileTypes then <code>null</code> is returned.
      * @throws Exception
      */
-    public static MultiSinglePatientBundlesFileWriter create(File outputDirectory, String outputFileNameBase, FHIRValidator validator, OutputFileType... outputFileTypes) throws Exception {
-        boolean writeNDJsonFile = false;
+    public static MultiSinglePatientBundlesFileWriter create(File outputDirectory, String outputFileNameBase, FHIRValidator validator, int compressionThreadCount, OutputFileType... outputFileTypes) throws Exception {
+        List<OutputFileType> ndjsonFileTypes = new ArrayList<>();
         boolean writeZipFile = false;
         for (OutputFileType outputFileType : outputFileTypes) {
-            if (outputFileType == NDJSON) {
-                writeNDJsonFile = true;
+            if (outputFileType == NDJSON || outputFileType == NDJSONGZIP) {
+                ndjsonFileTypes.add(outputFileType);
             } else if (outputFileType == ZIPJSON) {
                 writeZipFile = true;
             }
         }
-        if (!writeNDJsonFile && !writeZipFile) {
+        if (ndjsonFileTypes.isEmpty() && !writeZipFile) {
             return null;
         }
-        return new MultiSinglePatientBundlesFileWriter(outputDirectory, outputFileNameBase, validator, writeNDJsonFile, writeZipFile);
+        return new MultiSinglePatientBundlesFileWriter(outputDirectory, outputFileNameBase, validator, compressionThreadCount, ndjsonFileTypes, writeZipFile);
     }
 
     /**
@@ -112,7 +130,8 @@ public class MultiSinglePatientBundlesFileWriter {
         if (zipJsonOutputStream != null) {
             zipJsonOutputStream.close();
         }
-        ndjsonWriter = writeNDJsonFile ? new BufferedWriter(new FileWriter(ndjsonFile, true)) : null;
+        ndjsonWriter = writeNDJsonFile ? OutputFileType.createWriter(outputDirectory, outputFileNameBase, ndjsonFileTypes, compressionThreadCount) : null;
+        ndjsonWritten = false;
         zipJsonOutputStream = writeZipFile ? new ZipOutputStream(new FileOutputStream(zipJsonFile)) : null;
         if (zipJsonOutputStream != null) {
             zipJsonOutputStream.setLevel(Deflater.BEST_COMPRESSION);
@@ -131,15 +150,14 @@ public class MultiSinglePatientBundlesFileWriter {
             if (bundle != null && !bundle.getEntry().isEmpty()) {
                 if (validator == null || !validator.validateBundle(bundle).isError()) {
                     if (ndjsonWriter != null) {
-                        String encodedBundle = NDJSON.getParser()
-                                .setPrettyPrint(false)
+                        String encodedBundle = NDJSON.getParser(false)
                                 .encodeResourceToString(bundle);
                         ndjsonWriter.write(encodedBundle);
-                        ndjsonWriter.newLine();
+                        ndjsonWriter.write(System.lineSeparator());
+                        ndjsonWritten = true;
                     }
                     if (zipJsonOutputStream != null) {
-                        String encodedBundle = ZIPJSON.getParser()
-                                .setPrettyPrint(true)
+                        String encodedBundle = ZIPJSON.getParser(true)
                                 .encodeResourceToString(bundle);
                         try (InputStream bundleInputStream = new ByteArrayInputStream(encodedBundle.getBytes(UTF_8))) {
                             String pid = extractPatientID(bundle);
@@ -188,11 +206,16 @@ public class MultiSinglePatientBundlesFileWriter {
     public void closeWriterAndRenameOrDeleteIfEmpty(String nameExtension) throws Exception {
         if (ndjsonWriter != null) {
             ndjsonWriter.close();
-        }
-        if (!deleteIfEmpty(ndjsonFile)) {
-            String newFileName = getFileName(nameExtension, NDJSON);
-            File newFile = new File(ndjsonFile.getParentFile(), newFileName);
-            ndjsonFile.renameTo(newFile);
+            for (OutputFileType ndjsonFileType : ndjsonFileTypes) {
+                File ndjsonFile = new File(outputDirectory, outputFileNameBase + ndjsonFileType.getFileExtension());
+                if (ndjsonWritten) {
+                    String newFileName = getFileName(nameExtension, ndjsonFileType);
+                    File newFile = new File(outputDirectory, newFileName);
+                    ndjsonFile.renameTo(newFile);
+                } else {
+                    ndjsonFile.delete();
+                }
+            }
         }
         if (zipJsonOutputStream != null) {
             zipJsonOutputStream.close();
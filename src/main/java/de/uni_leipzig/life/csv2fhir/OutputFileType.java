@@ -1,10 +1,23 @@
 package de.uni_leipzig.life.csv2fhir;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.io.output.TeeWriter;
 
-import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.parser.IParser;
 import de.uni_leipzig.life.csv2fhir.utils.CompressFileUtils;
+import de.uni_leipzig.life.csv2fhir.utils.FhirParsers;
 
 /**
  * @author AXS (07.11.2021)
@@ -12,25 +25,35 @@ import de.uni_leipzig.life.csv2fhir.utils.CompressFileUtils;
 public enum OutputFileType {
     JSON,
     JSONGZIP {
+        @Override
+        public String getFileExtension() {
+            return ".json.gz";
+        }
+
         @Override
         public OutputFileType getBaseFileType() {
             return JSON;
         }
 
         @Override
-        public void compress(File file) throws Exception {
-            CompressFileUtils.compressGzip(file);
+        public OutputStream createOutputStream(File file, int compressionThreadCount) throws IOException {
+            return CompressFileUtils.createGzipOutputStream(file, compressionThreadCount);
         }
     },
     JSONBZ2 {
+        @Override
+        public String getFileExtension() {
+            return ".json.bz2";
+        }
+
         @Override
         public OutputFileType getBaseFileType() {
             return JSON;
         }
 
         @Override
-        public void compress(File file) throws Exception {
-            CompressFileUtils.compressBZ2(file);
+        public OutputStream createOutputStream(File file, int compressionThreadCount) throws IOException {
+            return CompressFileUtils.createBZ2OutputStream(file);
         }
     },
     NDJSON {
@@ -39,6 +62,27 @@ public enum OutputFileType {
             return true;
         }
     },
+    NDJSONGZIP {
+        @Override
+        public String getFileExtension() {
+            return ".ndjson.gz";
+        }
+
+        @Override
+        public OutputFileType getBaseFileType() {
+            return NDJSON;
+        }
+
+        @Override
+        public boolean isMultiSinglePatientBundlesFileType() {
+            return true;
+        }
+
+        @Override
+        public OutputStream createOutputStream(File file, int compressionThreadCount) throws IOException {
+            return CompressFileUtils.createGzipOutputStream(file, compressionThreadCount);
+        }
+    },
     ZIPJSON {
         @Override
         public String getFileExtension() {
@@ -57,8 +101,8 @@ public enum OutputFileType {
     },
     XML {
         @Override
-        public IParser getParser() {
-            return fhirContext.newXmlParser();
+        public IParser getParser(boolean prettyPrint) {
+            return FhirParsers.getXmlParser(prettyPrint);
         }
     };
 
@@ -66,20 +110,13 @@ public enum OutputFileType {
         return "." + toString().toLowerCase();
     }
 
-    /** The context to generate the parser */
-    private static final FhirContext fhirContext = FhirContext.forR4();
-
-    /** */
-    private IParser parser;
-
     /**
-     * @return the parser to write the bundles
+     * @param prettyPrint
+     * @return the parser of the current thread to write the bundles. The
+     *         parser must not be reconfigured.
      */
-    public IParser getParser() {
-        if (parser == null) {
-            parser = fhirContext.newJsonParser();
-        }
-        return parser;
+    public IParser getParser(boolean prettyPrint) {
+        return FhirParsers.getJsonParser(prettyPrint);
     }
 
     /**
@@ -106,10 +143,49 @@ public enum OutputFileType {
     }
 
     /**
-     * @return
+     * @param file
+     * @param compressionThreadCount the count of threads that compress the
+     *            data of gzip file types. If 1 then the data is compressed in
+     *            the writing thread.
+     * @return a buffered stream that writes (and for compressed file types
+     *         compresses) the data to the file
+     * @throws IOException
+     */
+    public OutputStream createOutputStream(File file, @SuppressWarnings("unused") int compressionThreadCount) throws IOException {
+        return new BufferedOutputStream(new FileOutputStream(file), CompressFileUtils.BUFFER_SIZE);
+    }
+
+    /**
+     * Creates one writer for the files of all given file types. All file
+     * types must have the same base file type, so that the data must only be
+     * encoded once and is then written (and compressed) to every file in the
+     * same pass.
+     *
+     * @param outputDirectory
+     * @param fileNameWithoutExtension the extensions of the file types are
+     *            appended to this name
+     * @param fileTypes
+     * @param compressionThreadCount the count of threads that compress the
+     *            data of gzip file types
+     * @return a writer for all files
+     * @throws IOException
      */
-    public void compress(@SuppressWarnings("unused") File file) throws Exception {
-        //default do nothing
+    public static Writer createWriter(File outputDirectory, String fileNameWithoutExtension, Collection<OutputFileType> fileTypes, int compressionThreadCount) throws IOException {
+        List<Writer> writers = new ArrayList<>();
+        try {
+            for (OutputFileType fileType : fileTypes) {
+                File file = new File(outputDirectory, fileNameWithoutExtension + fileType.getFileExtension());
+                //same charset as the FileWriter used before for the plain files
+                writers.add(new OutputStreamWriter(fileType.createOutputStream(file, compressionThreadCount), Charset.defaultCharset()));
+            }
+        } catch (IOException e) {
+            for (Writer writer : writers) {
+                writer.close();
+            }
+            throw e;
+        }
+        Writer writer = writers.size() == 1 ? writers.get(0) : new TeeWriter(writers);
+        return new BufferedWriter(writer, CompressFileUtils.BUFFER_SIZE);
     }
 
 }
@@ -0,0 +1,166 @@
+package de.uni_leipzig.life.csv2fhir;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the records of one table partitioned by the (upper case) patient
+ * ID. The index is built in one pass over all records and respects the rule
+ * that a record with an empty patient ID belongs to the patient of the
+ * previous record. Records with an empty patient ID and empty mandatory
+ * columns are not indexed.<br>
+ * For every patient ID the index stores the ranges of consecutive record
+ * positions, so the records of one patient can be fetched without scanning
+ * the whole table.
+ *
+ * @author AXS (17.10.2026)
+ */
+public class PIDRecordIndex {
+
+    /**  */
+    private static final Logger LOG = LoggerFactory.getLogger(PIDRecordIndex.class);
+
+    /** Empty ranges array for patient IDs without records in the table */
+    private static final int[] NO_RANGES = new int[0];
+
+    /** All records of the table */
+    private final List<TableRecord> records;
+
+    /**
+     * The PID that must be passed as previous PID to the converter for the
+     * record at the same position.
+     */
+    private final String[] previousPIDs;
+
+    /**
+     * Upper case PID -> flat array of record position ranges. Every range
+     * consists of two values, the inclusive start and the exclusive end.
+     */
+    private final Map<String, int[]> pidToRanges;
+
+    /**
+     * @param records
+     * @param previousPIDs
+     * @param pidToRanges
+     */
+    private PIDRecordIndex(List<TableRecord> records, String[] previousPIDs, Map<String, int[]> pidToRanges) {
+        this.records = records;
+        this.previousPIDs = previousPIDs;
+        this.pidToRanges = pidToRanges;
+    }
+
+    /**
+     * Creates the index for all records of the table.
+     *
+     * @param table
+     * @param records
+     * @return the index of the records
+     */
+    public static PIDRecordIndex create(TableIdentifier table, List<TableRecord> records) {
+        String pidColumnName = table.getPIDColumnIdentifier().toString();
+        Collection<String> mandatoryColumnNames = table.getMandatoryColumnNames();
+        String[] previousPIDs = new String[records.size()];
+        Map<String, int[]> pidToRanges = new HashMap<>();
+        Map<String, Integer> pidToRangesSize = new HashMap<>();
+        String previousPID = null;
+        String previousKey = null;
+        for (int i = 0; i < records.size(); i++) {
+            TableRecord record = records.get(i);
+            String pid = record.get(pidColumnName);
+            if (isNullOrEmpty(pid)) {
+                if (isRecordEmpty(record, mandatoryColumnNames)) {
+                    continue;
+                }
+                if (previousPID == null) {
+                    LOG.error("Error (missing patient ID) while converting file " + table + " in record " + record);
+                    continue;
+                }
+            } else {
+                previousPID = pid;
+            }
+            previousPIDs[i] = previousPID;
+            String key = previousPID.toUpperCase();
+            int[] ranges = pidToRanges.get(key);
+            int size = ranges == null ? 0 : pidToRangesSize.get(key);
+            if (key.equals(previousKey) && ranges[size - 1] == i) {
+                ranges[size - 1] = i + 1; //extend the current range
+                continue;
+            }
+            if (ranges == null) {
+                ranges = new int[2];
+            } else if (size == ranges.length) {
+                ranges = Arrays.copyOf(ranges, size * 2);
+            }
+            ranges[size] = i;
+            ranges[size + 1] = i + 1;
+            pidToRanges.put(key, ranges);
+            pidToRangesSize.put(key, size + 2);
+            previousKey = key;
+        }
+        for (Map.Entry<String, int[]> entry : pidToRanges.entrySet()) {
+            entry.setValue(Arrays.copyOf(entry.getValue(), pidToRangesSize.get(entry.getKey())));
+        }
+        return new PIDRecordIndex(records, previousPIDs, pidToRanges);
+    }
+
+    /**
+     * @param upperCasePID
+     * @return the flat array of the record position ranges of the patient.
+     *         Every range consists of two values, the inclusive start and the
+     *         exclusive end position. The array is empty if the table contains
+     *         no record for the patient.
+     */
+    public int[] getRanges(String upperCasePID) {
+        int[] ranges = pidToRanges.get(upperCasePID);
+        return ranges == null ? NO_RANGES : ranges;
+    }
+
+    /**
+     * @param position
+     * @return the record at the position
+     */
+    public TableRecord getRecord(int position) {
+        return records.get(position);
+    }
+
+    /**
+     * @param position
+     * @return the PID that must be passed as previous PID to the converter of
+     *         the record at the position
+     */
+    public String getPreviousPID(int position) {
+        return previousPIDs[position];
+    }
+
+    /**
+     * @return all records of the table
+     */
+    public List<TableRecord> getRecords() {
+        return records;
+    }
+
+    /**
+     * @param record
+     * @param mandatoryColumnsNames
+     * @return true if all values in the mandatory columns of the record are
+     *         empty
+     */
+    static boolean isRecordEmpty(TableRecord record, Collection<String> mandatoryColumnsNames) {
+        for (String columnName : mandatoryColumnsNames) {
+            String value = record.get(columnName);
+            if (!isNullOrEmpty(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,201 @@
+package de.uni_leipzig.life.csv2fhir;
+
+import static de.uni_leipzig.life.csv2fhir.OutputFileType.JSON;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
+import org.hl7.fhir.r4.model.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Strings;
+
+/**
+ * Writes one pretty printed JSON transaction bundle incrementally. The
+ * entries of every appended (single patient) bundle are encoded and written
+ * to the file immediately, so only the entries of one patient must be held in
+ * memory and not the entries of all patients of the bundle.<br>
+ * The appended bundles are encoded by the same parser as the complete bundle
+ * and only the envelope is written once, so the file content is identical to
+ * the encoding of one bundle with all entries.<br>
+ * The plain JSON file and the compressed JSON files are written in the same
+ * pass.
+ *
+ * @author AXS (17.10.2026)
+ */
+public class StreamingBundleFileWriter {
+
+    /**  */
+    private static final Logger LOG = LoggerFactory.getLogger(StreamingBundleFileWriter.class);
+
+    /**
+     * The start of the entry array of an encoded bundle. Values of the
+     * resources cannot contain a line break, so this is always the top level
+     * entry array.
+     */
+    private static final String ENTRY_ARRAY_START = "\n  \"entry\": [ ";
+
+    /** The end of the entry array and the bundle of an encoded bundle */
+    private static final String ENTRY_ARRAY_END = " ]\n}";
+
+    /** The separator between two entries of the entry array */
+    private static final String ENTRY_SEPARATOR = ", ";
+
+    /** Directory of the output files */
+    private final File outputDirectory;
+
+    /** Base name of all output files */
+    private final String outputFileNameBase;
+
+    /**
+     * The types of the written files. All types must have JSON as base file
+     * type.
+     */
+    private final List<OutputFileType> fileTypes;
+
+    /**
+     * Resources of this types are written only once per bundle, even if they
+     * are appended with multiple patients.
+     */
+    private final Set<Class<? extends Resource>> uniqueResourceTypes;
+
+    /** The count of threads that compress the gzip files */
+    private final int compressionThreadCount;
+
+    /** Type and ID of all written resources of the unique resource types */
+    private final Set<String> writtenUniqueResourceKeys = new HashSet<>();
+
+    /**
+     * Writer to the files of the current bundle or <code>null</code> if
+     * nothing written. Until the bundle is closed the files have the base
+     * name without extension.
+     */
+    private Writer writer;
+
+    /**
+     * @param outputDirectory directory of the output files
+     * @param outputFileNameBase base name of all output files
+     * @param fileTypes the types of the written files. All types must have
+     *            JSON as base file type.
+     * @param uniqueResourceTypes resources of this types are written only once
+     *            per bundle
+     * @param compressionThreadCount the count of threads that compress the
+     *            gzip files
+     */
+    public StreamingBundleFileWriter(File outputDirectory, String outputFileNameBase, List<OutputFileType> fileTypes, Set<Class<? extends Resource>> uniqueResourceTypes, int compressionThreadCount) {
+        this.outputDirectory = outputDirectory;
+        this.outputFileNameBase = outputFileNameBase;
+        this.fileTypes = fileTypes;
+        this.uniqueResourceTypes = uniqueResourceTypes;
+        this.compressionThreadCount = compressionThreadCount;
+    }
+
+    /**
+     * @param resource
+     * @return <code>true</code> if the resource has one of the unique resource
+     *         types and a resource with the same type and ID was already
+     *         written to the current bundle.
+     */
+    public boolean isWritten(Resource resource) {
+        return uniqueResourceTypes.contains(resource.getClass()) && writtenUniqueResourceKeys.contains(getKey(resource));
+    }
+
+    /**
+     * Writes all entries of the bundle to the current bundle file.
+     *
+     * @param bundle
+     * @throws IOException
+     */
+    public void appendEntries(Bundle bundle) throws IOException {
+        if (bundle.getEntry().isEmpty()) {
+            return;
+        }
+        String encodedBundle = JSON.getParser(true)
+                .encodeResourceToString(bundle);
+        int entryArrayStart = encodedBundle.indexOf(ENTRY_ARRAY_START);
+        if (entryArrayStart < 0 || !encodedBundle.endsWith(ENTRY_ARRAY_END)) {
+            throw new IOException("Unexpected encoding of bundle entries for " + outputFileNameBase);
+        }
+        int entriesStart = entryArrayStart + ENTRY_ARRAY_START.length();
+        if (writer == null) {
+            writer = OutputFileType.createWriter(outputDirectory, outputFileNameBase, fileTypes, compressionThreadCount);
+            writer.write(encodedBundle, 0, entriesStart);
+        } else {
+            writer.write(ENTRY_SEPARATOR);
+        }
+        writer.write(encodedBundle, entriesStart, encodedBundle.length() - ENTRY_ARRAY_END.length() - entriesStart);
+        for (BundleEntryComponent entry : bundle.getEntry()) {
+            Resource resource = entry.getResource();
+            if (uniqueResourceTypes.contains(resource.getClass())) {
+                writtenUniqueResourceKeys.add(getKey(resource));
+            }
+        }
+    }
+
+    /**
+     * Finishes the current bundle and renames its files with the given
+     * extension. After this the next bundle can be written.
+     *
+     * @param fileNameExtension this string will be inserted after the base
+     *            name and before the file extension.
+     * @throws IOException
+     */
+    public void closeBundle(String fileNameExtension) throws IOException {
+        writtenUniqueResourceKeys.clear();
+        if (writer == null) {
+            return;
+        }
+        writer.write(ENTRY_ARRAY_END);
+        writer.write("\n");
+        writer.close();
+        writer = null;
+        for (OutputFileType fileType : fileTypes) {
+            String fileName = outputFileNameBase + (Strings.isNullOrEmpty(fileNameExtension) ? "" : fileNameExtension) + fileType.getFileExtension();
+            LOG.info("writing file " + fileName);
+            Files.move(getFile(fileType).toPath(), new File(outputDirectory, fileName).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Closes and deletes the files of the current bundle if it was not finished
+     * by {@link #closeBundle(String)}.
+     *
+     * @throws IOException
+     */
+    public void discardBundle() throws IOException {
+        writtenUniqueResourceKeys.clear();
+        if (writer != null) {
+            writer.close();
+            writer = null;
+            for (OutputFileType fileType : fileTypes) {
+                Files.deleteIfExists(getFile(fileType).toPath());
+            }
+        }
+    }
+
+    /**
+     * @param fileType
+     * @return the file of the file type of the current bundle
+     */
+    private File getFile(OutputFileType fileType) {
+        return new File(outputDirectory, outputFileNameBase + fileType.getFileExtension());
+    }
+
+    /**
+     * @param resource
+     * @return type and ID of the resource
+     */
+    private static String getKey(Resource resource) {
+        return resource.getClass().getName() + "/" + resource.getId();
+    }
+
+}
@@ -0,0 +1,195 @@
+package de.uni_leipzig.life.csv2fhir;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The column names of a table. All {@link TableRecord}s of a table share the
+ * same header.<br>
+ * For every enum with column identifiers the header builds one
+ * {@link ColumnPlan} that binds the enum constants to the column indices, so
+ * the values can be read by index without looking up the column names for
+ * every record.
+ *
+ * @author AXS (17.10.2026)
+ */
+public class TableHeader {
+
+    /** The index of a column that does not exist in the table */
+    public static final int ABSENT = -1;
+
+    /** The column names in the order of the columns */
+    private final List<String> columnNames;
+
+    /** Column name -> column index */
+    private final Map<String, Integer> columnIndices;
+
+    /** The indices of the columns in the order of the {@link #columnNames} */
+    private final int[] namedColumnIndices;
+
+    /** Column enum class -> the plan of the enum */
+    private final Map<Class<?>, ColumnPlan> columnPlans = new ConcurrentHashMap<>();
+
+    /**
+     * The column indices of the constants of one enum in this table.
+     */
+    public static class ColumnPlan {
+
+        /** The enum of the plan */
+        private final Class<?> columnEnumClass;
+
+        /**
+         * Ordinal of the enum constant -> index of the column with the
+         * toString() of the constant as name or {@link TableHeader#ABSENT}
+         */
+        private final int[] indices;
+
+        /**
+         * Ordinal of the enum constant -> index of the column with the name()
+         * of the constant as name or {@link TableHeader#ABSENT}
+         */
+        private final int[] nameIndices;
+
+        /**
+         * @param header
+         * @param columnEnumClass
+         */
+        private ColumnPlan(TableHeader header, Class<?> columnEnumClass) {
+            this.columnEnumClass = columnEnumClass;
+            Object[] columns = columnEnumClass.getEnumConstants();
+            indices = new int[columns.length];
+            nameIndices = new int[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                indices[i] = header.getColumnIndexOrAbsent(columns[i].toString());
+                nameIndices[i] = header.getColumnIndexOrAbsent(((Enum<?>) columns[i]).name());
+            }
+        }
+
+        /**
+         * @return the enum of the plan
+         */
+        public Class<?> getColumnEnumClass() {
+            return columnEnumClass;
+        }
+
+        /**
+         * @param column a constant of the enum of this plan
+         * @return the index of the column with the toString() of the constant
+         *         as name or {@link TableHeader#ABSENT}
+         */
+        public int getIndex(Enum<?> column) {
+            return indices[column.ordinal()];
+        }
+
+        /**
+         * @param column a constant of the enum of this plan
+         * @return the index of the column with the name() of the constant as
+         *         name or {@link TableHeader#ABSENT}
+         */
+        public int getIndexByName(Enum<?> column) {
+            return nameIndices[column.ordinal()];
+        }
+    }
+
+    /**
+     * @param columnNames the names of the columns. Empty or <code>null</code>
+     *            names are ignored. If a name occurs multiple times the last
+     *            column with this name is mapped.
+     */
+    public TableHeader(String... columnNames) {
+        ImmutableList.Builder<String> names = ImmutableList.builder();
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < columnNames.length; i++) {
+            String columnName = columnNames[i];
+            if (columnName != null && !columnName.isEmpty()) {
+                names.add(columnName);
+                indices.put(columnName, i);
+            }
+        }
+        this.columnNames = names.build();
+        columnIndices = Collections.unmodifiableMap(indices);
+        namedColumnIndices = createNamedColumnIndices();
+    }
+
+    /**
+     * @param columnNamesToIndices
+     */
+    public TableHeader(Map<String, Integer> columnNamesToIndices) {
+        columnNames = ImmutableList.copyOf(columnNamesToIndices.keySet());
+        columnIndices = Collections.unmodifiableMap(new HashMap<>(columnNamesToIndices));
+        namedColumnIndices = createNamedColumnIndices();
+    }
+
+    /**
+     * @return the indices of the columns in the order of the
+     *         {@link #columnNames}
+     */
+    private int[] createNamedColumnIndices() {
+        int[] indices = new int[columnNames.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = columnIndices.get(columnNames.get(i));
+        }
+        return indices;
+    }
+
+    /**
+     * @return the names of the columns
+     */
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * @return column name -> column index
+     */
+    public Map<String, Integer> getColumnIndices() {
+        return columnIndices;
+    }
+
+    /**
+     * @param columnName
+     * @return the index of the column or <code>null</code> if the table has no
+     *         column with this name
+     */
+    public Integer getColumnIndex(String columnName) {
+        return columnIndices.get(columnName);
+    }
+
+    /**
+     * @param columnName
+     * @return the index of the column or {@link #ABSENT} if the table has no
+     *         column with this name
+     */
+    public int getColumnIndexOrAbsent(String columnName) {
+        Integer index = columnIndices.get(columnName);
+        return index == null ? ABSENT : index;
+    }
+
+    /**
+     * @param i
+     * @return the index of the column with the i-th name of
+     *         {@link #getColumnNames()}
+     */
+    public int getNamedColumnIndex(int i) {
+        return namedColumnIndices[i];
+    }
+
+    /**
+     * @param columnEnumClass an enum class with column identifiers
+     * @return the plan with the column indices of the constants of the enum
+     *         in this table. The plan is created only once per enum.
+     */
+    public ColumnPlan getColumnPlan(Class<?> columnEnumClass) {
+        ColumnPlan columnPlan = columnPlans.get(columnEnumClass);
+        if (columnPlan == null) {
+            columnPlan = columnPlans.computeIfAbsent(columnEnumClass, enumClass -> new ColumnPlan(this, enumClass));
+        }
+        return columnPlan;
+    }
+
+}
@@ -4,12 +4,11 @@ import static de.uni_leipzig.imise.validate.FHIRValidator.ValidationResultType.E
 import static de.uni_leipzig.imise.validate.FHIRValidator.ValidationResultType.VALID;
 import static de.uni_leipzig.life.csv2fhir.converter.EncounterConverter.DEFAULT_ENCOUNTER_ID_NUMBER;
 
-import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
-import org.apache.commons.csv.CSVRecord;
 import org.hl7.fhir.r4.model.Resource;
 
 import com.google.common.collect.ImmutableList;
@@ -40,27 +39,27 @@ import de.uni_leipzig.life.csv2fhir.converter.ProcedureConverter.Procedure_Colum
  */
 public enum TableIdentifier {
 
-    Person(Person_Columns.class, PatientConverter.class),
+    Person(Person_Columns.class, PatientConverter::new),
 
     //    Versorgungsfall(EncounterLevel1_Columns.class, EncounterLevel1Converter.class),
     //
     //    Abteilungsfall(EncounterLevel2_Columns.class, EncounterLevel2Converter.class),
     //
-    Fall(Encounter_Columns.class, EncounterConverter.class),
+    Fall(Encounter_Columns.class, EncounterConverter::new),
 
-    Laborbefund(ObservationLaboratory_Columns.class, ObservationLaboratoryConverter.class),
+    Laborbefund(ObservationLaboratory_Columns.class, ObservationLaboratoryConverter::new),
 
-    Diagnose(Diagnosis_Columns.class, ConditionConverter.class),
+    Diagnose(Diagnosis_Columns.class, ConditionConverter::new),
 
-    Prozedur(Procedure_Columns.class, ProcedureConverter.class),
+    Prozedur(Procedure_Columns.class, ProcedureConverter::new),
 
-    DocumentReference(DocumentReference_Columns.class, DocumentReferenceConverter.class),
+    DocumentReference(DocumentReference_Columns.class, DocumentReferenceConverter::new),
 
-    Medikation(Medication_Columns.class, MedicationConverter.class),
+    Medikation(Medication_Columns.class, MedicationConverter::new),
 
-    Klinische_Dokumentation(ObservationVitalSigns_Columns.class, ObservationVitalSignsConverter.class),
+    Klinische_Dokumentation(ObservationVitalSigns_Columns.class, ObservationVitalSignsConverter::new),
 
-    Consent(Consent_Columns.class, ConsentConverter.class) {
+    Consent(Consent_Columns.class, ConsentConverter::new) {
         @Override
         public String toString() {
             return Person.toString(); // Consent data are on the patient sheet
@@ -101,8 +100,8 @@ public enum TableIdentifier {
         };
     }
 
-    /** The class with the converter factory for this data type */
-    private Constructor<? extends Converter> converterConstructor = null;
+    /** Creates the converter for the records of this data type */
+    private final ConverterFactory converterFactory;
 
     /** The class with the enum with the definition of the table columns */
     private final Class<? extends Enum<? extends TableColumnIdentifier>> columnIdentifiersClass;
@@ -113,17 +112,11 @@ public enum TableIdentifier {
 
     /**
      * @param columnIdentifiersClass
-     * @param converterClass
+     * @param converterFactory
      */
-    private TableIdentifier(Class<? extends Enum<? extends TableColumnIdentifier>> columnIdentifiersClass, Class<? extends Converter> converterClass) {
+    private TableIdentifier(Class<? extends Enum<? extends TableColumnIdentifier>> columnIdentifiersClass, ConverterFactory converterFactory) {
         this.columnIdentifiersClass = columnIdentifiersClass;
-        try {
-            if (converterClass != null) {
-                converterConstructor = converterClass.getConstructor(CSVRecord.class, String.class, ConverterResult.class, FHIRValidator.class, ConverterOptions.class);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        this.converterFactory = converterFactory;
     }
 
     protected String getTableNamePattern() {
@@ -182,28 +175,46 @@ public enum TableIdentifier {
     }
 
     /**
-     * @param csvRecord
+     * @param record
      * @param previousPID
      * @param result
      * @param validator
      * @param options
-     * @return
-     * @throws Exception
+     * @return the valid resources of the record or an empty list if the
+     *         conversion has failed. Failures are added to the result (see
+     *         {@link ConverterResult#addFailure(TableIdentifier, TableRecord, String)}).
+     * @throws Exception only on unexpected errors and not on invalid records
      */
-    public List<? extends Resource> convert(CSVRecord csvRecord, String previousPID, ConverterResult result, FHIRValidator validator, ConverterOptions options) throws Exception {
-        Converter converter = converterConstructor.newInstance(csvRecord, previousPID, result, validator, options);
-        List<? extends Resource> resources = converter.convert(); //should never return null!
+    public List<? extends Resource> convert(TableRecord record, String previousPID, ConverterResult result, FHIRValidator validator, ConverterOptions options) throws Exception {
+        Converter converter = converterFactory.create(record, previousPID, result, validator, options);
+        List<? extends Resource> resources;
+        try {
+            resources = converter.convert(); //should never return null!
+        } catch (Exception e) {
+            // a follow-up error of a failed conversion -> report only the first error
+            if (!converter.isFailed()) {
+                throw e;
+            }
+            resources = null;
+        }
+        if (converter.isFailed()) {
+            result.addFailure(this, record, converter.getFailure());
+            return Collections.emptyList();
+        }
         //resources seems to be Immutable (we cannot remove elements) -> copy the valid elements to a new list
         List<Resource> validResources = new ArrayList<>();
-        //validate every resource and remove if invalid
-        for (int i = 0; i < resources.size(); i++) {
-            Resource resource = resources.get(i);
-            ValidationResultType validationResult = ERROR;
+        //validate every resource (in parallel if the validator has multiple threads) and remove if invalid
+        List<Resource> nonNullResources = new ArrayList<>(resources.size());
+        for (Resource resource : resources) {
             if (resource != null) {
-                validationResult = validator == null ? VALID : validator.validate(resource);
+                nonNullResources.add(resource);
             }
+        }
+        ValidationResultType[] validationResults = validator == null ? null : validator.validateAll(nonNullResources);
+        for (int i = 0; i < nonNullResources.size(); i++) {
+            ValidationResultType validationResult = validationResults == null ? VALID : validationResults[i];
             if (validationResult != ERROR) {
-                validResources.add(resource);
+                validResources.add(nonNullResources.get(i));
             }
         }
         result.addAll(this, validResources);
@@ -249,10 +260,18 @@ public enum TableIdentifier {
 
     /**
      * @return <code>true</code> if this table identifier has convertable
-     *         columns and a constructor fpr the converter.
+     *         columns and a factory for the converter.
      */
     public boolean isConvertableTableSheet() {
-        return columnIdentifiersClass != null && converterConstructor != null;
+        return columnIdentifiersClass != null && converterFactory != null;
+    }
+
+    /**
+     * @return the factory of the converters of this data type or
+     *         <code>null</code> if the table is not convertable
+     */
+    public ConverterFactory getConverterFactory() {
+        return converterFactory;
     }
 
 }
@@ -0,0 +1,127 @@
+package de.uni_leipzig.life.csv2fhir;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One row of a table with named columns. The values are already cleaned and
+ * unescaped. Empty values are <code>null</code>.
+ *
+ * @author AXS (17.10.2026)
+ */
+public class TableRecord {
+
+    /** The column names of the table */
+    private final TableHeader header;
+
+    /** The values of the row */
+    private final String[] values;
+
+    /** The number of the record in the table */
+    private final long recordNumber;
+
+    /**
+     * @param header
+     * @param values
+     * @param recordNumber
+     */
+    public TableRecord(TableHeader header, String[] values, long recordNumber) {
+        this.header = header;
+        this.values = values;
+        this.recordNumber = recordNumber;
+    }
+
+    /**
+     * @param columnName
+     * @return the value in the column with the name
+     * @throws IllegalArgumentException if the table has no column with this
+     *             name
+     */
+    public String get(String columnName) {
+        return get(header.getColumnIndexOrAbsent(columnName), columnName);
+    }
+
+    /**
+     * @param index the index of the column or {@link TableHeader#ABSENT}
+     * @param columnName the name of the column for the error message
+     * @return the value in the column with the index
+     * @throws IllegalArgumentException if the table has no column with this
+     *             name or the record has no value with this index
+     */
+    public String get(int index, String columnName) {
+        if (index == TableHeader.ABSENT) {
+            throw new IllegalArgumentException(String.format("Mapping for %s not found, expected one of %s", columnName, header.getColumnNames()));
+        }
+        if (index >= values.length) {
+            throw new IllegalArgumentException(String.format("Index for header '%s' is %d but the record only has %d values!", columnName, index, values.length));
+        }
+        return values[index];
+    }
+
+    /**
+     * @param index the index of the column or {@link TableHeader#ABSENT}
+     * @return <code>true</code> if the record has a value (maybe
+     *         <code>null</code>) with this index
+     */
+    public boolean contains(int index) {
+        return index >= 0 && index < values.length;
+    }
+
+    /**
+     * Like {@link org.apache.commons.csv.CSVRecord#get(Enum)} this uses the
+     * name() and not the toString() of the enum as column name.
+     *
+     * @param column
+     * @return the value in the column with the name of the enum
+     * @throws IllegalArgumentException if the table has no column with this
+     *             name
+     */
+    public String get(Enum<?> column) {
+        if (column == null) {
+            return get((String) null);
+        }
+        return get(header.getColumnPlan(column.getDeclaringClass()).getIndexByName(column), column.name());
+    }
+
+    /**
+     * @param columnName
+     * @return <code>true</code> if the table has a column with this name
+     */
+    public boolean isMapped(String columnName) {
+        return header.getColumnIndex(columnName) != null;
+    }
+
+    /**
+     * @return the names of the columns of the table
+     */
+    public List<String> getHeaderNames() {
+        return header.getColumnNames();
+    }
+
+    /**
+     * @return the column names of the table
+     */
+    public TableHeader getHeader() {
+        return header;
+    }
+
+    /**
+     * @return the number of the record in the table
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * @return the count of values
+     */
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public String toString() {
+        return "TableRecord [recordNumber=" + recordNumber + ", values=" + Arrays.toString(values) + "]";
+    }
+
+}
@@ -0,0 +1,41 @@
+package de.uni_leipzig.life.csv2fhir;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * Provides the records of all tables of one file set. The values of the
+ * records are already cleaned and unescaped, so the converters can use them
+ * directly.
+ *
+ * @author AXS (17.10.2026)
+ */
+public interface TableRecordSource {
+
+    /**
+     * @param table
+     * @return the column names of the table or <code>null</code> if the
+     *         source does not contain the table
+     * @throws IOException
+     */
+    @Nullable
+    public TableHeader getHeader(TableIdentifier table) throws IOException;
+
+    /**
+     * @param table
+     * @return all records of the table (without the header) or
+     *         <code>null</code> if the source does not contain the table
+     * @throws IOException
+     */
+    @Nullable
+    public List<TableRecord> getRecords(TableIdentifier table) throws IOException;
+
+    /**
+     * @return the options of all options tables of the source. Every options
+     *         table results in a separate conversion of all other tables.
+     */
+    public List<ConverterOptions> getConverterOptions();
+
+}
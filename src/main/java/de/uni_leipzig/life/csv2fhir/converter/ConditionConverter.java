@@ -18,7 +18,6 @@ import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import org.apache.commons.csv.CSVRecord;
 import org.apache.commons.lang3.StringUtils;
 import org.hl7.fhir.r4.model.CodeableConcept;
 import org.hl7.fhir.r4.model.Coding;
@@ -33,6 +32,7 @@ import de.uni_leipzig.life.csv2fhir.Converter;
 import de.uni_leipzig.life.csv2fhir.ConverterOptions;
 import de.uni_leipzig.life.csv2fhir.ConverterResult;
 import de.uni_leipzig.life.csv2fhir.TableColumnIdentifier;
+import de.uni_leipzig.life.csv2fhir.TableRecord;
 import de.uni_leipzig.life.csv2fhir.utils.DateUtil;
 
 /**
@@ -75,7 +75,7 @@ public class ConditionConverter extends Converter {
      * @param options
      * @throws Exception
      */
-    public ConditionConverter(CSVRecord record, String previousRecordPID, ConverterResult result, FHIRValidator validator, ConverterOptions options) throws Exception {
+    public ConditionConverter(TableRecord record, String previousRecordPID, ConverterResult result, FHIRValidator validator, ConverterOptions options) throws Exception {
         super(record, previousRecordPID, result, validator, options);
     }
 
@@ -106,6 +106,10 @@ public class ConditionConverter extends Converter {
                     condition.setEncounter(getEncounterReference());
                 }
 
+                if (isFailed()) { // the conditions are not converted -> the encounter must not reference them
+                    return conditions;
+                }
+
                 if (isValid(condition)) { //check validity before adding the refence from encounter to this
                     //usually this is true by default
                     if (converterOptions.is(SET_REFERENCE_FROM_ENCOUNTER_TO_CONDITION)) {
@@ -214,7 +218,7 @@ public class ConditionConverter extends Converter {
             //extract a date from an encounter
             DateTimeType encounterDate = getEncounterDate(result, getPatientId());
             if (encounterDate != null) {
-                warning("Can not parse " + Dokumentationsdatum + " for Record. Extract date from encounter. " + this);
+                warning("Can not parse " + Dokumentationsdatum + " for Record. Extract date from encounter.");
                 return encounterDate;
             }
         }
@@ -14,7 +14,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import org.apache.commons.csv.CSVRecord;
 import org.hl7.fhir.r4.model.CodeableConcept;
 import org.hl7.fhir.r4.model.Consent;
 import org.hl7.fhir.r4.model.Consent.ConsentPolicyComponent;
@@ -31,11 +30,12 @@ import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
 
 import de.uni_leipzig.imise.validate.FHIRValidator;
+import de.uni_leipzig.life.csv2fhir.CodeSystemMapperRegistry;
 import de.uni_leipzig.life.csv2fhir.Converter;
 import de.uni_leipzig.life.csv2fhir.ConverterOptions;
 import de.uni_leipzig.life.csv2fhir.ConverterResult;
 import de.uni_leipzig.life.csv2fhir.TableColumnIdentifier;
-import de.uni_leipzig.life.csv2fhir.utils.ResourceMapper;
+import de.uni_leipzig.life.csv2fhir.TableRecord;
 
 /**
  * @author AXS (18.01.2022)
@@ -74,7 +74,7 @@ public class ConsentConverter extends Converter {
     /**
      *
      */
-    private static final ResourceMapper CONSENT_RESOURCES = ResourceMapper.of("Consent.map");
+    private static final Map<String, String> CONSENT_RESOURCES = CodeSystemMapperRegistry.getProperties(CodeSystemMapperRegistry.CONSENT_MAP);
 
     /**
      *
@@ -89,7 +89,7 @@ public class ConsentConverter extends Converter {
      * @param options
      * @throws Exception
      */
-    public ConsentConverter(CSVRecord record, String previousRecordPID, ConverterResult result, FHIRValidator validator, ConverterOptions options) throws Exception {
+    public ConsentConverter(TableRecord record, String previousRecordPID, ConverterResult result, FHIRValidator validator, ConverterOptions options) throws Exception {
         super(record, previousRecordPID, result, validator, options);
     }
 
@@ -237,12 +237,11 @@ public class ConsentConverter extends Converter {
          *
          */
         public StaticConsentData() {
-            for (Object keyObject : CONSENT_RESOURCES.keySet()) {
-                String key = String.valueOf(keyObject);
+            for (String key : CONSENT_RESOURCES.keySet()) {
                 if (key.startsWith(CONSENT_PROVISION_GROUP_KEY_PREFIX)) {
                     String groupIndexString = key.substring(CONSENT_PROVISION_GROUP_KEY_PREFIX.length());
                     int groupIndex = Integer.parseInt(groupIndexString);
-                    String groupMembersResourceString = CONSENT_RESOURCES.getProperty(key);
+                    String groupMembersResourceString = CONSENT_RESOURCES.get(key);
                     String[] groupMembers = groupMembersResourceString.split("\\s"); //separated by spaces
                     for (String groupMember : groupMembers) {
                         int periodYearsStartIndex = groupMember.indexOf("("); //contains an other time perod than the standard 30 years
@@ -266,7 +265,7 @@ public class ConsentConverter extends Converter {
          */
         public String getProvisionGroupColumnName(int groupIndex) {
             String columnNameResourceKey = CONSENT_PROVISION_COLUMN_KEY_PREFIX + groupIndex;
-            return CONSENT_RESOURCES.getProperty(columnNameResourceKey);
+            return CONSENT_RESOURCES.get(columnNameResourceKey);
         }
 
         /**
@@ -275,7 +274,7 @@ public class ConsentConverter extends Converter {
          */
         public String getProvisionDisplayText(int provisionIndex) {
             String displayTextResourceKey = CONSENT_PROVISION_TEXT_KEY_PREFIX + provisionIndex;
-            return CONSENT_RESOURCES.getProperty(displayTextResourceKey);
+            return CONSENT_RESOURCES.get(displayTextResourceKey);
         }
 
         /**
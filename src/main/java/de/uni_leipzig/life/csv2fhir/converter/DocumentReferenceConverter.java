@@ -17,7 +17,6 @@ import java.nio.file.attribute.FileTime;
 import java.util.Date;
 import java.util.List;
 
-import org.apache.commons.csv.CSVRecord;
 import org.hl7.fhir.r4.model.Attachment;
 import org.hl7.fhir.r4.model.CodeableConcept;
 import org.hl7.fhir.r4.model.DocumentReference;
@@ -32,6 +31,7 @@ import de.uni_leipzig.life.csv2fhir.Converter;
 import de.uni_leipzig.life.csv2fhir.ConverterOptions;
 import de.uni_leipzig.life.csv2fhir.ConverterResult;
 import de.uni_leipzig.life.csv2fhir.TableColumnIdentifier;
+import de.uni_leipzig.life.csv2fhir.TableRecord;
 
 /**
  * @author FAM (24.07.2023), AXS (06.08.23)
@@ -61,7 +61,7 @@ public class DocumentReferenceConverter extends Converter {
      * @param options
      * @throws Exception
      */
-    public DocumentReferenceConverter(CSVRecord record, String previousRecordPID, ConverterResult result, FHIRValidator validator, ConverterOptions options) throws Exception {
+    public DocumentReferenceConverter(TableRecord record, String previousRecordPID, ConverterResult result, FHIRValidator validator, ConverterOptions options) throws Exception {
         super(record, previousRecordPID, result, validator, options);
     }
 
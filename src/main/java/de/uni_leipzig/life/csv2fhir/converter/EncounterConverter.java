@@ -21,7 +21,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.commons.csv.CSVRecord;
 import org.hl7.fhir.r4.model.CodeableConcept;
 import org.hl7.fhir.r4.model.Coding;
 import org.hl7.fhir.r4.model.Condition;
@@ -45,10 +44,12 @@ import com.google.common.collect.ImmutableList;
 import de.uni_leipzig.imise.utils.StringUtils;
 import de.uni_leipzig.imise.validate.FHIRValidator;
 import de.uni_leipzig.life.csv2fhir.CodeSystemMapper;
+import de.uni_leipzig.life.csv2fhir.CodeSystemMapperRegistry;
 import de.uni_leipzig.life.csv2fhir.Converter;
 import de.uni_leipzig.life.csv2fhir.ConverterOptions;
 import de.uni_leipzig.life.csv2fhir.ConverterResult;
 import de.uni_leipzig.life.csv2fhir.TableColumnIdentifier;
+import de.uni_leipzig.life.csv2fhir.TableRecord;
 
 /**
  * @author jheuschkel (19.10.2020), AXS (05.11.2021)
@@ -76,45 +77,58 @@ public class EncounterConverter extends Converter {
     public static final String DEFAULT_ENCOUNTER_ID_NUMBER = "1";
 
     /** Map with the encounter types and its displays. */
-    public static final CodeSystemMapper ENCOUNTER_TYPE_RESOURCES = new CodeSystemMapper("Encounter_Type.map");
+    public static final CodeSystemMapper ENCOUNTER_TYPE_RESOURCES = CodeSystemMapperRegistry.getCodeSystemMapper(CodeSystemMapperRegistry.ENCOUNTER_TYPE_MAP);
 
     /**
      * Maps from human readable encounter types to the correspondig code system
      * code and contains some more resources for the encounters.
      */
-    public static final CodeSystemMapper ENCOUNTER_LEVEL1_CLASS_RESOURCES = new CodeSystemMapper("EncounterLevel1_Class.map");
+    public static final CodeSystemMapper ENCOUNTER_LEVEL1_CLASS_RESOURCES = CodeSystemMapperRegistry.getCodeSystemMapper(CodeSystemMapperRegistry.ENCOUNTER_LEVEL1_CLASS_MAP);
 
     /**
      * Maps from human readable department description to the number code for
      * the department.
      */
-    private final CodeSystemMapper ENCOUNTER_LEVEL2_DEPARTMENT_RESOURCES = new CodeSystemMapper("EncounterLevel2_Department.map");
+    private static final CodeSystemMapper ENCOUNTER_LEVEL2_DEPARTMENT_RESOURCES = CodeSystemMapperRegistry.getCodeSystemMapper(CodeSystemMapperRegistry.ENCOUNTER_LEVEL2_DEPARTMENT_MAP);
 
     /**
      * Maps from human readable diagnosis role description to the correspondig
      * code system code.
      */
-    public static final CodeSystemMapper DIAGNOSIS_ROLE_RESOURCES = new CodeSystemMapper("Diagnosis_Role.map");
-
-    /**
-     * If the column with the PID is empty then the last valid PID of a previous
-     * record is taken. This enables that the tbale mu´st no be filled in all
-     * columns with the same values and is better structured and more readable.
-     */
-    //    private static String previousPatientReference;
-
-    private static Encounter previousEncounterLevel1;
-    private static Encounter previousEncounterLevel2;
+    public static final CodeSystemMapper DIAGNOSIS_ROLE_RESOURCES = CodeSystemMapperRegistry.getCodeSystemMapper(CodeSystemMapperRegistry.DIAGNOSIS_ROLE_MAP);
 
     private static final String RANDOM_DEFULT_VALUE = "" + System.nanoTime();
 
-    // random string to identify a null value in the first rows
-    private static String previousDepartmentName = RANDOM_DEFULT_VALUE;
-    //    private static String previousWardName = RANDOM_DEFULT_VALUE;
-    //    private static String previousRoomName = RANDOM_DEFULT_VALUE;
-    //    private static String previousBedName = RANDOM_DEFULT_VALUE;
+    /**
+     * The state that is passed from one record of the encounter table to the
+     * next. It is stored in the {@link ConverterResult}, so every conversion
+     * (normally one patient) has its own state and patients can be converted
+     * in parallel.
+     */
+    private static final class EncounterConverterState {
+
+        /**
+         * If the column with the PID is empty then the last valid PID of a
+         * previous record is taken. This enables that the tbale mu´st no be
+         * filled in all columns with the same values and is better structured
+         * and more readable.
+         */
+        //        private String previousPatientReference;
+
+        private Encounter previousEncounterLevel1;
+        private Encounter previousEncounterLevel2;
+
+        // random string to identify a null value in the first rows
+        private String previousDepartmentName = RANDOM_DEFULT_VALUE;
+        //        private String previousWardName = RANDOM_DEFULT_VALUE;
+        //        private String previousRoomName = RANDOM_DEFULT_VALUE;
+        //        private String previousBedName = RANDOM_DEFULT_VALUE;
+
+        private final Map<String, Location> locationIDToLocation = new HashMap<>();
+    }
 
-    private static final Map<String, Location> locationIDToLocation = new HashMap<>();
+    /** The state of the current conversion */
+    private final EncounterConverterState state;
 
     /**
      * Even if they (unfortunately) do not exist in the KDS, they are created
@@ -136,8 +150,9 @@ public class EncounterConverter extends Converter {
      * @param options
      * @throws Exception
      */
-    public EncounterConverter(CSVRecord record, String previousRecordPID, ConverterResult result, FHIRValidator validator, ConverterOptions options) throws Exception {
+    public EncounterConverter(TableRecord record, String previousRecordPID, ConverterResult result, FHIRValidator validator, ConverterOptions options) throws Exception {
         super(record, previousRecordPID, result, validator, options);
+        state = result.getConverterState(EncounterConverterState.class, EncounterConverterState::new);
     }
 
     @Override
@@ -150,12 +165,12 @@ public class EncounterConverter extends Converter {
         String wardName = get(Station);
         String roomName = get(Zimmer);
         String bedName = get(Bett);
-        String previousEncounterLevel1ID = previousEncounterLevel1 == null ? null : previousEncounterLevel1.getId();
-        String previousEncounterLevel2ID = previousEncounterLevel2 == null ? null : previousEncounterLevel2.getId();
+        String previousEncounterLevel1ID = state.previousEncounterLevel1 == null ? null : state.previousEncounterLevel1.getId();
+        String previousEncounterLevel2ID = state.previousEncounterLevel2 == null ? null : state.previousEncounterLevel2.getId();
 
         boolean recordHasLevel1EncounterID = !isNullOrEmpty(encounterLevel1Id);
         boolean createLevel1Encounter = recordHasLevel1EncounterID && encounterLevel1Id != previousEncounterLevel1ID;
-        boolean createLevel2Encounter = !isNullOrEmpty(departmentName) || departmentName != previousDepartmentName;
+        boolean createLevel2Encounter = !isNullOrEmpty(departmentName) || departmentName != state.previousDepartmentName;
         boolean createLevel3Encounter = createLevel2Encounter || !isNullOrEmpty(wardName) || !isNullOrEmpty(roomName) || !isNullOrEmpty(bedName);
         createLevel2Encounter = createLevel3Encounter; // even if there is no department we must create a Level2 Encounter if Level3 must be cretated
 
@@ -170,16 +185,20 @@ public class EncounterConverter extends Converter {
             encounterLevel1.setClass_(getEncounterLevel1Class());
             encounterLevel1.setType(getEncounterType(EncounterLevel1.class));
             setPeriodAndStatus(encounterLevel1);
+            if (isFailed()) { // don't pass an invalid encounter to the next records
+                return null;
+            }
 
             encountersAndLocations.add(encounterLevel1);
             previousEncounterLevel1ID = encounterLevel1Id;
-            previousEncounterLevel1 = encounterLevel1;
+            state.previousEncounterLevel1 = encounterLevel1;
         }
 
         if (!recordHasLevel1EncounterID) {
             String encounterLevel1Class = get(Einrichtungskontaktklasse);
             if (!isNullOrEmpty(encounterLevel1Class)) {
                 error("Encounter ID is empty but encounter class (" + Einrichtungskontaktklasse + ") is given as " + encounterLevel1Class + "for record " + toString());
+                return null;
             }
         }
 
@@ -200,11 +219,14 @@ public class EncounterConverter extends Converter {
                 encounterLevel2.setServiceType(createCodeableConcept(Fachabteilung, ENCOUNTER_LEVEL2_DEPARTMENT_RESOURCES));
             }
             setPeriodAndStatus(encounterLevel2);
+            if (isFailed()) {
+                return null;
+            }
 
             encountersAndLocations.add(encounterLevel2);
-            previousEncounterLevel2 = encounterLevel2;
+            state.previousEncounterLevel2 = encounterLevel2;
             previousEncounterLevel2ID = encounterLevel2Id;
-            previousDepartmentName = departmentName;
+            state.previousDepartmentName = departmentName;
         }
 
         if (createLevel3Encounter) {
@@ -220,6 +242,9 @@ public class EncounterConverter extends Converter {
             encounterLevel3.setMeta(getMeta());
             encounterLevel3.setClass_(getEncounterLevel3Class());
             encounterLevel3.setType(getEncounterType(EncounterLevel3.class));
+            if (isFailed()) {
+                return null;
+            }
             List<EncounterLocationComponent> locationComponents = getOrCreateLocations(departmentName, wardName, roomName, bedName);
             encounterLevel3.setLocation(locationComponents);
             // TODO: find out how to code a valid Servicetype for Encounters Level 3
@@ -235,10 +260,10 @@ public class EncounterConverter extends Converter {
     }
 
     /**
-     * @return
+     * @return the locations created in the current conversion
      */
-    public static final Collection<Location> getLocations() {
-        return locationIDToLocation.values();
+    public final Collection<Location> getLocations() {
+        return state.locationIDToLocation.values();
     }
 
     /**
@@ -246,7 +271,7 @@ public class EncounterConverter extends Converter {
      * @param wardName a not null value only creates a location
      * @return
      */
-    private static final EncounterLocationComponent getOrCreateLocationWard(String departmentName, String wardName) {
+    private EncounterLocationComponent getOrCreateLocationWard(String departmentName, String wardName) {
         return getOrCreateLocationInternal(LocationType.WARD, departmentName, wardName, null, null);
     }
 
@@ -256,7 +281,7 @@ public class EncounterConverter extends Converter {
      * @param roomName not null
      * @return
      */
-    private static final EncounterLocationComponent getOrCreateLocationRoom(String departmentName, String wardName, String roomName) {
+    private EncounterLocationComponent getOrCreateLocationRoom(String departmentName, String wardName, String roomName) {
         return getOrCreateLocationInternal(LocationType.ROOM, departmentName, wardName, roomName, null);
     }
 
@@ -267,7 +292,7 @@ public class EncounterConverter extends Converter {
      * @param bedName not null
      * @return
      */
-    private static final EncounterLocationComponent getOrCreateLocationBed(String departmentName, String wardName, String roomName, String bedName) {
+    private EncounterLocationComponent getOrCreateLocationBed(String departmentName, String wardName, String roomName, String bedName) {
         return getOrCreateLocationInternal(LocationType.BED, departmentName, wardName, roomName, bedName);
     }
 
@@ -279,11 +304,11 @@ public class EncounterConverter extends Converter {
      * @param bedName
      * @return
      */
-    private static final EncounterLocationComponent getOrCreateLocationInternal(LocationType locationType, String departmentName, String wardName, String roomName, String bedName) {
+    private EncounterLocationComponent getOrCreateLocationInternal(LocationType locationType, String departmentName, String wardName, String roomName, String bedName) {
         // null values will be ignored
         String locationID = StringUtils.concatenate("-", departmentName, wardName, roomName, bedName);
         locationID = locationID.replace(' ', '-'); // whitespaces are not allwoed in IDs
-        Location location = locationIDToLocation.get(locationID);
+        Location location = state.locationIDToLocation.get(locationID);
         if (location == null) {
             location = new Location();
             location.setId(locationID);
@@ -292,7 +317,7 @@ public class EncounterConverter extends Converter {
             location.setStatus(LocationStatus.ACTIVE);
             location.setPhysicalType(locationType.physicalType);
 
-            locationIDToLocation.put(locationID, location);
+            state.locationIDToLocation.put(locationID, location);
 
         }
         EncounterLocationComponent encounterLocationComponent = new EncounterLocationComponent();
@@ -312,7 +337,7 @@ public class EncounterConverter extends Converter {
      * @param bedName
      * @return
      */
-    private static final List<EncounterLocationComponent> getOrCreateLocations(String departmentName, String wardName, String roomName, String bedName) {
+    private List<EncounterLocationComponent> getOrCreateLocations(String departmentName, String wardName, String roomName, String bedName) {
         List<EncounterLocationComponent> locationComponents = new ArrayList<>();
         if (!isNullOrEmpty(wardName)) {
             locationComponents.add(getOrCreateLocationWard(departmentName, wardName));
@@ -366,12 +391,12 @@ public class EncounterConverter extends Converter {
         encounter.setStatus(status);
         Period parentPeriod = null;
         if (encounter instanceof EncounterLevel2 || encounter instanceof EncounterLevel3) {
-            parentPeriod = previousEncounterLevel1.getPeriod();
-            previousEncounterLevel1.setStatus(status);
+            parentPeriod = state.previousEncounterLevel1.getPeriod();
+            state.previousEncounterLevel1.setStatus(status);
         }
         if (encounter instanceof EncounterLevel3) {
-            parentPeriod = previousEncounterLevel2.getPeriod();
-            previousEncounterLevel2.setStatus(status);
+            parentPeriod = state.previousEncounterLevel2.getPeriod();
+            state.previousEncounterLevel2.setStatus(status);
         }
         if (parentPeriod != null) {
             // the top level encounter already has the maximum end
@@ -408,18 +433,18 @@ public class EncounterConverter extends Converter {
      * @return
      * @throws Exception
      */
-    private static Coding getEncounterLevel2Class() throws Exception {
+    private Coding getEncounterLevel2Class() throws Exception {
         // same as Level 1 here (see https://simplifier.net/packages/de.basisprofil.r4/1.4.0/files/656744)
-        return previousEncounterLevel1 != null ? previousEncounterLevel1.getClass_() : null;
+        return state.previousEncounterLevel1 != null ? state.previousEncounterLevel1.getClass_() : null;
     }
 
     /**
      * @return
      * @throws Exception
      */
-    private static Coding getEncounterLevel3Class() throws Exception {
+    private Coding getEncounterLevel3Class() throws Exception {
         // same as Level 1 here (see https://simplifier.net/packages/de.basisprofil.r4/1.4.0/files/656744)
-        return previousEncounterLevel1 != null ? previousEncounterLevel1.getClass_() : null;
+        return state.previousEncounterLevel1 != null ? state.previousEncounterLevel1.getClass_() : null;
     }
 
     /**
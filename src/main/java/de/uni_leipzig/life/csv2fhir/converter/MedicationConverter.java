@@ -25,7 +25,6 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.commons.csv.CSVRecord;
 import org.apache.commons.lang3.StringUtils;
 import org.hl7.fhir.r4.model.CodeType;
 import org.hl7.fhir.r4.model.CodeableConcept;
@@ -60,6 +59,7 @@ import de.uni_leipzig.life.csv2fhir.ConverterOptions;
 import de.uni_leipzig.life.csv2fhir.ConverterOptions.IntOption;
 import de.uni_leipzig.life.csv2fhir.ConverterResult;
 import de.uni_leipzig.life.csv2fhir.TableColumnIdentifier;
+import de.uni_leipzig.life.csv2fhir.TableRecord;
 import de.uni_leipzig.life.csv2fhir.utils.DateUtil;
 import de.uni_leipzig.life.csv2fhir.utils.StringEqualsIgnoreCase;
 
@@ -163,13 +163,17 @@ public class MedicationConverter extends Converter {
      * @param options
      * @throws Exception
      */
-    public MedicationConverter(CSVRecord record, String previousRecordPID, ConverterResult result, FHIRValidator validator, ConverterOptions options) throws Exception {
+    public MedicationConverter(TableRecord record, String previousRecordPID, ConverterResult result, FHIRValidator validator, ConverterOptions options) throws Exception {
         super(record, previousRecordPID, result, validator, options);
     }
 
     @Override
     protected List<Resource> convertInternal() throws Exception {
         List<Resource> resources = new ArrayList<>();
+        if (isBlank(get(Medikationstyp))) {
+            error(Medikationstyp + " empty");
+            return resources;
+        }
         String medicationId = getMedicationId();
 
         Medication medication = result.get(Medikation, Medication.class, medicationId);
@@ -180,9 +184,10 @@ public class MedicationConverter extends Converter {
             }
             resources.add(medication);
         }
-        if (matches(MedicationRequest, Medikationstyp)) {
+        Medikationstyp_Values medicationType = classify(Medikationstyp_Values.class, Medikationstyp);
+        if (medicationType == MedicationRequest) {
             resources.add(parseMedicationRequest());
-        } else if (matches(MedicationAdministration, Medikationstyp)) {
+        } else if (medicationType == MedicationAdministration) {
             resources.add(parseMedicationAdministration());
         } else {
             resources.add(parseMedicationStatement());
@@ -294,10 +299,16 @@ public class MedicationConverter extends Converter {
         } catch (Exception e) {
             warning("cannot set ASK");
         }
+        Ratio doseRate = null;
         try {
-            m.setStrength(getDoseRate());
+            doseRate = getDoseRate();
         } catch (Exception e) {
+            // handled like a missing dose rate
+        }
+        if (doseRate == null) {
             warning("cannot set strength");
+        } else {
+            m.setStrength(doseRate);
         }
         return m;
     }
@@ -432,7 +443,7 @@ public class MedicationConverter extends Converter {
             if (StringUtils.isBlank(s)) {
                 if (StringUtils.isBlank(e)) {
                     // no date given
-                    error("cannot administer without effective date");
+                    error("Can not parse " + Therapiestartdatum + " or " + Therapieendedatum);
                     return null;
                 }
                 // Period with only end date
@@ -454,33 +465,37 @@ public class MedicationConverter extends Converter {
     }
 
     /**
-     * @return
+     * A missing or invalid dose rate does not fail the conversion of the
+     * record, so this function does not call {@link #error(String)}.
+     *
+     * @return the dose rate or <code>null</code> if the unit is empty or the
+     *         dose is not a numerical value
      * @throws Exception
      */
     private Ratio getDoseRate() throws Exception {
         String ucumCode = get(Einheit);
-        if (ucumCode != null) {
-            return new Ratio()
-                    .setNumerator(
-                            getUcumQuantity(getDose(), ucumCode, null))
-                    .setDenominator(
-                            new Quantity().setValue(new BigDecimal(1))
-                                    .setSystem("http://XXX")
-                                    .setCode(get(Darreichungsform)));
+        BigDecimal dose = getDose();
+        if (ucumCode == null || dose == null) {
+            return null;
         }
-        error(Einheit + " empty for Record");
-        return null;
+        return new Ratio()
+                .setNumerator(
+                        getUcumQuantity(dose, ucumCode, null))
+                .setDenominator(
+                        new Quantity().setValue(new BigDecimal(1))
+                                .setSystem("http://XXX")
+                                .setCode(get(Darreichungsform)));
     }
 
     /**
-     * @return
+     * @return the dose or <code>null</code> if the dose is not a numerical
+     *         value
      * @throws Exception
      */
     private BigDecimal getDose() throws Exception {
         try {
             return parseDecimal(get(Einzeldosis));
         } catch (Exception e) {
-            error(Einzeldosis + " is not a numerical value for Record");
             return null;
         }
     }
@@ -12,7 +12,6 @@ import static org.hl7.fhir.r4.model.Observation.ObservationStatus.FINAL;
 import java.util.Collections;
 import java.util.List;
 
-import org.apache.commons.csv.CSVRecord;
 import org.hl7.fhir.r4.model.CodeableConcept;
 import org.hl7.fhir.r4.model.Coding;
 import org.hl7.fhir.r4.model.Meta;
@@ -26,6 +25,7 @@ import de.uni_leipzig.imise.validate.FHIRValidator;
 import de.uni_leipzig.life.csv2fhir.ConverterOptions;
 import de.uni_leipzig.life.csv2fhir.ConverterResult;
 import de.uni_leipzig.life.csv2fhir.TableColumnIdentifier;
+import de.uni_leipzig.life.csv2fhir.TableRecord;
 
 /**
  * @author jheuschkel (19.10.2020), AXS (05.11.2021)
@@ -60,7 +60,7 @@ public class ObservationVitalSignsConverter extends ObservationLaboratoryConvert
      * @param options
      * @throws Exception
      */
-    public ObservationVitalSignsConverter(CSVRecord record, String previousRecordPID, ConverterResult result, FHIRValidator validator, ConverterOptions options) throws Exception {
+    public ObservationVitalSignsConverter(TableRecord record, String previousRecordPID, ConverterResult result, FHIRValidator validator, ConverterOptions options) throws Exception {
         super(record, previousRecordPID, result, validator, options);
     }
 
@@ -80,7 +80,7 @@ public class ObservationVitalSignsConverter extends ObservationLaboratoryConvert
         observation.setValue(parseObservationValue(Wert, Einheit));
         observation.setIdentifier(getIdentifier(id, getDIZId()));
         observation.setCategory(LABORYTORY_OBSERVATION_FIXED_CATEGORY); //TODO: add the correct category if validator can accept it
-        //String resourceAsJson = OutputFileType.JSON.getParser().setPrettyPrint(true).encodeResourceToString(observation); // for debug
+        //String resourceAsJson = OutputFileType.JSON.getParser(true).encodeResourceToString(observation); // for debug
         return Collections.singletonList(observation);
     }
 
@@ -15,7 +15,6 @@ import static org.hl7.fhir.r4.model.Enumerations.AdministrativeGender.UNKNOWN;
 import java.util.Collections;
 import java.util.List;
 
-import org.apache.commons.csv.CSVRecord;
 import org.hl7.fhir.r4.model.Address;
 import org.hl7.fhir.r4.model.Address.AddressType;
 import org.hl7.fhir.r4.model.Enumerations.AdministrativeGender;
@@ -36,6 +35,7 @@ import de.uni_leipzig.life.csv2fhir.Converter;
 import de.uni_leipzig.life.csv2fhir.ConverterOptions;
 import de.uni_leipzig.life.csv2fhir.ConverterResult;
 import de.uni_leipzig.life.csv2fhir.TableColumnIdentifier;
+import de.uni_leipzig.life.csv2fhir.TableRecord;
 
 /**
  * @author jheuschkel (19.10.2020), AXS (05.11.2021)
@@ -67,7 +67,7 @@ public class PatientConverter extends Converter {
      * @param options
      * @throws Exception
      */
-    public PatientConverter(CSVRecord record, String previousRecordPID, ConverterResult result, FHIRValidator validator, ConverterOptions options) throws Exception {
+    public PatientConverter(TableRecord record, String previousRecordPID, ConverterResult result, FHIRValidator validator, ConverterOptions options) throws Exception {
         super(record, previousRecordPID, result, validator, options);
     }
 
@@ -82,7 +82,7 @@ public class PatientConverter extends Converter {
         patient.setBirthDateElement(parseDate(Geburtsdatum));
         patient.addAddress(parseAddress());
         patient.addGeneralPractitioner(parseHealthProvider());
-        //        String resourceAsJson = OutputFileType.JSON.getParser().setPrettyPrint(true).encodeResourceToString(patient); // for debug
+        //        String resourceAsJson = OutputFileType.JSON.getParser(true).encodeResourceToString(patient); // for debug
         //        Sys.out1(resourceAsJson);
         return Collections.singletonList(patient);
     }
@@ -203,7 +203,7 @@ public class PatientConverter extends Converter {
             }
             return addressResource.setType(AddressType.BOTH).setCountry("DE");
         }
-        warning("On " + Person + ": " + Anschrift + " empty. " + this);
+        warning("On " + Person + ": " + Anschrift + " empty.");
         return getDataAbsentAddress(); //needed to be KDS compliant
     }
 
@@ -13,7 +13,6 @@ import static org.apache.logging.log4j.util.Strings.isBlank;
 import java.util.Collections;
 import java.util.List;
 
-import org.apache.commons.csv.CSVRecord;
 import org.hl7.fhir.r4.model.CodeableConcept;
 import org.hl7.fhir.r4.model.Coding;
 import org.hl7.fhir.r4.model.Meta;
@@ -25,6 +24,7 @@ import de.uni_leipzig.life.csv2fhir.Converter;
 import de.uni_leipzig.life.csv2fhir.ConverterOptions;
 import de.uni_leipzig.life.csv2fhir.ConverterResult;
 import de.uni_leipzig.life.csv2fhir.TableColumnIdentifier;
+import de.uni_leipzig.life.csv2fhir.TableRecord;
 
 /**
  * @author jheuschkel (19.10.2020), AXS (05.11.2021)
@@ -53,7 +53,7 @@ public class ProcedureConverter extends Converter {
      * @param options
      * @throws Exception
      */
-    public ProcedureConverter(CSVRecord record, String previousRecordPID, ConverterResult result, FHIRValidator validator, ConverterOptions options) throws Exception {
+    public ProcedureConverter(TableRecord record, String previousRecordPID, ConverterResult result, FHIRValidator validator, ConverterOptions options) throws Exception {
         super(record, previousRecordPID, result, validator, options);
     }
 
@@ -82,6 +82,10 @@ public class ProcedureConverter extends Converter {
             procedure.setEncounter(getEncounterReference());
         }
 
+        if (isFailed()) { // the procedure is not converted -> the encounter must not reference it
+            return Collections.emptyList();
+        }
+
         if (!isValid(procedure)) { //check validity before adding the refence from encounter to this
             return Collections.emptyList();
         }
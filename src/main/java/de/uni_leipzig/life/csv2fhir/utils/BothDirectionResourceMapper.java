@@ -10,7 +10,15 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
 /**
+ * Maps the keys of one or more properties files in the resources to their
+ * (trimmed) values and the values back to the first key. After
+ * {@link #makeImmutable()} the mapper can not be changed anymore and can be
+ * shared by multiple threads.
+ *
  * @author AXS (03.12.2021)
  */
 public class BothDirectionResourceMapper implements Map<String, String> {
@@ -23,20 +31,23 @@ public class BothDirectionResourceMapper implements Map<String, String> {
     /**
      * Maps from a key from the loaded resource file to a value.
      */
-    private final HashMap<String, String> forwardMap = new HashMap<>();
+    private Map<String, String> forwardMap = new HashMap<>();
 
     /**
      * Maps from the values back to the keys. You will always get the very first
      * key in the map if the value is ambigious.
      */
-    private final HashMap<String, String> backwardMap = new HashMap<>();
+    private Map<String, String> backwardMap = new HashMap<>();
 
     /**
      * Stores the values of the map in the order in which they are added the
      * first time. If a value already exists in this map it will not be added
      * again.
      */
-    private final List<String> valuesAddingOrder = new ArrayList<>();
+    private List<String> valuesAddingOrder = new ArrayList<>();
+
+    /** <code>true</code> after {@link #makeImmutable()} */
+    private boolean immutable;
 
     /**
      *
@@ -68,6 +79,7 @@ public class BothDirectionResourceMapper implements Map<String, String> {
 
         @Override
         public synchronized String put(Object key, Object value) {
+            checkMutable();
             //Sys.out1(key + " -> " + value);
             String valueString = String.valueOf(value).trim(); //we trim!
             //the const value 'EMPTY_STRING' means the empty string "" :)
@@ -96,6 +108,36 @@ public class BothDirectionResourceMapper implements Map<String, String> {
         }
     }
 
+    /**
+     * Replaces the maps by compact immutable copies. After this call all
+     * methods that would change the mapper throw an
+     * {@link UnsupportedOperationException}.
+     */
+    public void makeImmutable() {
+        if (!immutable) {
+            forwardMap = ImmutableMap.copyOf(forwardMap);
+            backwardMap = ImmutableMap.copyOf(backwardMap);
+            valuesAddingOrder = ImmutableList.copyOf(valuesAddingOrder);
+            immutable = true;
+        }
+    }
+
+    /**
+     * @return <code>true</code> if {@link #makeImmutable()} was called
+     */
+    public boolean isImmutable() {
+        return immutable;
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the mapper is immutable
+     */
+    private void checkMutable() {
+        if (immutable) {
+            throw new UnsupportedOperationException("The mapper is immutable");
+        }
+    }
+
     /**
      * @return an iterable of {@link #valuesAddingOrder}
      */
@@ -169,6 +211,7 @@ public class BothDirectionResourceMapper implements Map<String, String> {
 
     @Override
     public String remove(Object key) {
+        checkMutable();
         return forwardMap.remove(key);
     }
 
@@ -181,6 +224,7 @@ public class BothDirectionResourceMapper implements Map<String, String> {
 
     @Override
     public void clear() {
+        checkMutable();
         forwardMap.clear();
         backwardMap.clear();
         valuesAddingOrder.clear();
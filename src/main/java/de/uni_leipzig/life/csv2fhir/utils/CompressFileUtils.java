@@ -1,9 +1,12 @@
 package de.uni_leipzig.life.csv2fhir.utils;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
@@ -13,20 +16,18 @@ import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream
  */
 public class CompressFileUtils {
 
+    /** Size of the buffers of the file and compressor streams */
+    public static final int BUFFER_SIZE = 1 << 16;
+
     /**
      * @param source
      * @throws IOException
      */
     public static void compressGzip(File source) throws IOException {
         File target = new File(source.getAbsolutePath() + ".gz");
-        try (GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream(target));
-                FileInputStream fis = new FileInputStream(source)) {
-            // copy file
-            byte[] buffer = new byte[1024];
-            int len;
-            while ((len = fis.read(buffer)) > 0) {
-                out.write(buffer, 0, len);
-            }
+        try (OutputStream out = createGzipOutputStream(target);
+                InputStream fis = new FileInputStream(source)) {
+            fis.transferTo(out);
         }
     }
 
@@ -36,15 +37,56 @@ public class CompressFileUtils {
      */
     public static void compressBZ2(File source) throws IOException {
         File target = new File(source.getAbsolutePath() + ".bz2");
-        try (BZip2CompressorOutputStream gos = new BZip2CompressorOutputStream(new FileOutputStream(target));
-                FileInputStream fis = new FileInputStream(source)) {
-            // copy file
-            byte[] buffer = new byte[1024];
-            int len;
-            while ((len = fis.read(buffer)) > 0) {
-                gos.write(buffer, 0, len);
+        try (OutputStream out = createBZ2OutputStream(target);
+                InputStream fis = new FileInputStream(source)) {
+            fis.transferTo(out);
+        }
+    }
+
+    /**
+     * @param target
+     * @return a buffered stream that writes the gzip compressed data to the
+     *         target file
+     * @throws IOException
+     */
+    public static OutputStream createGzipOutputStream(File target) throws IOException {
+        return createGzipOutputStream(target, 1);
+    }
+
+    /**
+     * @param target
+     * @param threadCount if greater than 1 then the data is compressed by a
+     *            {@link ParallelGzipOutputStream} with this count of threads
+     * @return a buffered stream that writes the gzip compressed data to the
+     *         target file
+     * @throws IOException
+     */
+    public static OutputStream createGzipOutputStream(File target, int threadCount) throws IOException {
+        OutputStream out = new FileOutputStream(target);
+        try {
+            if (threadCount > 1) {
+                return new ParallelGzipOutputStream(out, threadCount);
             }
+            return new GZIPOutputStream(out, BUFFER_SIZE);
+        } catch (IOException | RuntimeException e) {
+            // both constructors write the gzip header and can fail
+            try {
+                out.close();
+            } catch (IOException closeException) {
+                e.addSuppressed(closeException);
+            }
+            throw e;
         }
     }
 
+    /**
+     * @param target
+     * @return a stream that writes the bzip2 compressed data buffered to the
+     *         target file
+     * @throws IOException
+     */
+    public static OutputStream createBZ2OutputStream(File target) throws IOException {
+        return new BZip2CompressorOutputStream(new BufferedOutputStream(new FileOutputStream(target), BUFFER_SIZE));
+    }
+
 }
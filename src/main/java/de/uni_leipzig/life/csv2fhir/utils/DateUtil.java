@@ -5,6 +5,7 @@ import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.Month;
 import java.time.Year;
 import java.time.YearMonth;
 import java.time.ZoneId;
@@ -14,6 +15,8 @@ import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.hl7.fhir.r4.model.DateTimeType;
 import org.hl7.fhir.r4.model.DateType;
@@ -28,6 +31,54 @@ public class DateUtil {
     /**  */
     static List<String> formatStrings = Arrays.asList("dd.MM.yyyy hh:mm", "yyyy");
 
+    /**
+     * Values are only memoised until a memo has this size, so a lot of
+     * different timestamps cannot fill the memory.
+     */
+    private static final int MAX_MEMO_SIZE = 100_000;
+
+    /** Memo value for strings that cannot be parsed */
+    private static final Object UNPARSABLE = new Object();
+
+    /**
+     * Maps from the parsed strings to their {@link LocalDateTime} or to
+     * {@link #UNPARSABLE}
+     */
+    private static final Map<String, Object> LOCAL_DATE_TIME_MEMO = new ConcurrentHashMap<>();
+
+    /**
+     * Maps from the parsed strings to the milliseconds of their {@link Date} or
+     * to {@link #UNPARSABLE}
+     */
+    private static final Map<String, Object> DATE_MEMO = new ConcurrentHashMap<>();
+
+    /**
+     * The {@link SimpleDateFormat}s of the {@link #formatStrings} of the
+     * current thread, because the formats are not thread safe
+     */
+    private static final ThreadLocal<SimpleDateFormat[]> DATE_FORMATS = ThreadLocal.withInitial(() -> {
+        SimpleDateFormat[] dateFormats = new SimpleDateFormat[formatStrings.size()];
+        for (int i = 0; i < dateFormats.length; i++) {
+            dateFormats[i] = new SimpleDateFormat(formatStrings.get(i));
+        }
+        return dateFormats;
+    });
+
+    /**  */
+    private static final DateTimeFormatter DAY_FORMAT_4 = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
+    /**  */
+    private static final DateTimeFormatter DAY_FORMAT_5 = DateTimeFormatter.ofPattern("M/dd/yyyy");
+
+    /**  */
+    private static final DateTimeFormatter DAY_FORMAT_6 = DateTimeFormatter.ofPattern("M/d/yyyy");
+
+    /**  */
+    private static final DateTimeFormatter TIME_FORMAT_1 = DateTimeFormatter.ofPattern("dd.MM.yyyy, H:mm");
+
+    /**  */
+    private static final DateTimeFormatter TIME_FORMAT_2 = DateTimeFormatter.ofPattern("dd.MM.yyyy H:mm");
+
     /**
      * @param date
      * @return
@@ -39,15 +90,205 @@ public class DateUtil {
         //                        .atStartOfDay(ZoneId.systemDefault())
         //                        .toInstant()),
         //                TemporalPrecisionEnum.DAY);
-        for (String formatString : formatStrings) {
+        Object millis = DATE_MEMO.get(date);
+        if (millis == null) {
+            Date parsedDate = parseDate(date);
+            millis = parsedDate == null ? UNPARSABLE : (Object) parsedDate.getTime();
+            memoise(DATE_MEMO, date, millis);
+        }
+        return millis == UNPARSABLE ? null : new DateType(new Date((Long) millis));
+    }
+
+    /**
+     * @param date
+     * @return the date of the first matching {@link #formatStrings} or
+     *         <code>null</code> if no format matches
+     */
+    private static Date parseDate(String date) {
+        for (SimpleDateFormat dateFormat : DATE_FORMATS.get()) {
             try {
-                return new DateType(new SimpleDateFormat(formatString).parse(date));
+                return dateFormat.parse(date);
             } catch (ParseException e) {
             }
         }
         return null;
     }
 
+    /**
+     * @param date
+     * @return
+     * @throws Exception
+     */
+    public static DateTimeType parseDateTimeType(String date) throws Exception {
+        LocalDateTime parsedLocalDateTime = parseLocalDateTime(date);
+        ZoneId systemDefaultZoneId = ZoneId.systemDefault();
+        Instant instantDate = parsedLocalDateTime.atZone(systemDefaultZoneId).toInstant();
+        Date resultDate = Date.from(instantDate);
+        return new DateTimeType(resultDate, TemporalPrecisionEnum.SECOND);
+    }
+
+    /**
+     * Parses the supported formats in one pass over the characters (see
+     * {@link #parseSupportedFormat(String)}). Only strings in other or invalid
+     * formats are parsed with the {@link DateTimeFormatter}s. The results are
+     * memoised, so every distinct string is only parsed once.
+     *
+     * @param date
+     * @return
+     * @throws Exception if the string has no supported format
+     */
+    private static LocalDateTime parseLocalDateTime(String date) throws Exception {
+        if (date == null) {
+            return parseLocalDateTimeWithFormatters(date);
+        }
+        Object localDateTime = LOCAL_DATE_TIME_MEMO.get(date);
+        if (localDateTime == null) {
+            localDateTime = parseSupportedFormat(date);
+            if (localDateTime == null) {
+                try {
+                    localDateTime = parseLocalDateTimeWithFormatters(date);
+                } catch (Exception e) {
+                    localDateTime = UNPARSABLE;
+                }
+            }
+            memoise(LOCAL_DATE_TIME_MEMO, date, localDateTime);
+        }
+        if (localDateTime == UNPARSABLE) {
+            throw new Exception();
+        }
+        return (LocalDateTime) localDateTime;
+    }
+
+    /**
+     * @param memo
+     * @param key
+     * @param value
+     */
+    private static void memoise(Map<String, Object> memo, String key, Object value) {
+        if (memo.size() < MAX_MEMO_SIZE) {
+            memo.put(key, value);
+        }
+    }
+
+    /**
+     * Parses the valid values of the formats <code>yyyy</code>,
+     * <code>yyyy-MM</code>, <code>yyyy-MM-dd</code>, <code>M/d/yyyy</code>
+     * (with one or two digits for month and day), <code>dd.MM.yyyy H:mm</code>
+     * and <code>dd.MM.yyyy, H:mm</code> without exceptions and without
+     * temporary objects. The result is the same as the result of
+     * {@link #parseLocalDateTimeWithFormatters(String)}.
+     *
+     * @param s
+     * @return the parsed value or <code>null</code> if the string is not a
+     *         valid value of these formats. Then the string must be parsed
+     *         with {@link #parseLocalDateTimeWithFormatters(String)}.
+     */
+    static LocalDateTime parseSupportedFormat(String s) {
+        int length = s.length();
+        if (length < 4) {
+            return null;
+        }
+        if (length >= 10 && s.charAt(2) == '.' && s.charAt(5) == '.') {
+            // dd.MM.yyyy H:mm or dd.MM.yyyy, H:mm
+            int day = parseDigits(s, 0, 2);
+            int month = parseDigits(s, 3, 5);
+            int year = parseDigits(s, 6, 10);
+            int timeStart = length > 11 && s.charAt(10) == ',' && s.charAt(11) == ' ' ? 12 : length > 10 && s.charAt(10) == ' ' ? 11 : -1;
+            // yyyy is the year of the era in the formatter patterns -> no year 0
+            if (timeStart < 0 || year < 1 || !isValidDate(year, month, day)) {
+                return null;
+            }
+            int colon = s.indexOf(':', timeStart);
+            if (colon != length - 3 || colon == timeStart || colon > timeStart + 2) {
+                return null;
+            }
+            int hour = parseDigits(s, timeStart, colon);
+            int minute = parseDigits(s, colon + 1, length);
+            if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+                return null;
+            }
+            return LocalDateTime.of(year, month, day, hour, minute);
+        }
+        int year = parseDigits(s, 0, 4);
+        if (year < 0) {
+            // M/d/yyyy with one or two digits for month and day
+            int slash1 = s.indexOf('/');
+            int slash2 = slash1 < 0 ? -1 : s.indexOf('/', slash1 + 1);
+            if (slash1 < 1 || slash1 > 2 || slash2 - slash1 < 2 || slash2 - slash1 > 3 || slash2 != length - 5) {
+                return null;
+            }
+            int month = parseDigits(s, 0, slash1);
+            int day = parseDigits(s, slash1 + 1, slash2);
+            year = parseDigits(s, slash2 + 1, length);
+            return year >= 1 && isValidDate(year, month, day) ? LocalDate.of(year, month, day).atStartOfDay() : null;
+        }
+        if (length == 4) {
+            return LocalDateTime.of(year, 1, 1, 0, 0);
+        }
+        if (s.charAt(4) != '-' || (length != 7 && length != 10)) {
+            return null;
+        }
+        int month = parseDigits(s, 5, 7);
+        if (length == 7) {
+            return month >= 1 && month <= 12 ? LocalDateTime.of(year, month, 1, 0, 0) : null;
+        }
+        if (s.charAt(7) != '-') {
+            return null;
+        }
+        int day = parseDigits(s, 8, 10);
+        return isValidDate(year, month, day) ? LocalDate.of(year, month, day).atStartOfDay() : null;
+    }
+
+    /**
+     * @param s
+     * @param start
+     * @param end
+     * @return the non negative value of the ASCII digits between start and end
+     *         or -1 if there are other characters or the range is empty
+     */
+    private static int parseDigits(String s, int start, int end) {
+        if (start >= end || end > s.length()) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + c - '0';
+        }
+        return value;
+    }
+
+    /**
+     * @param year
+     * @param month
+     * @param day
+     * @return <code>true</code> if the date exists. Invalid dates are left to
+     *         the formatters, because some of them correct invalid days.
+     */
+    private static boolean isValidDate(int year, int month, int day) {
+        return year >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= Month.of(month).length(Year.isLeap(year));
+    }
+
+    /**
+     * Tries all supported formats one after the other with the
+     * {@link DateTimeFormatter}s.
+     *
+     * @param date
+     * @return
+     * @throws Exception
+     */
+    static LocalDateTime parseLocalDateTimeWithFormatters(String date) throws Exception {
+        try {
+            LocalDate localDate = parseLocalDate(date);
+            return localDate.atStartOfDay();
+        } catch (Exception e) {
+            return tryTimeFormat1(date);
+        }
+    }
+
     /**
      * @param dateTime
      * @return
@@ -106,8 +347,7 @@ public class DateUtil {
      */
     private static LocalDate tryDayFormat4(String dateTime) throws Exception {
         try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-            return LocalDate.parse(dateTime, formatter);
+            return LocalDate.parse(dateTime, DAY_FORMAT_4);
         } catch (DateTimeParseException e) {
             return tryDayFormat5(dateTime);
         }
@@ -120,8 +360,7 @@ public class DateUtil {
      */
     private static LocalDate tryDayFormat5(String dateTime) throws Exception {
         try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("M/dd/yyyy");
-            return LocalDate.parse(dateTime, formatter);
+            return LocalDate.parse(dateTime, DAY_FORMAT_5);
         } catch (DateTimeParseException e) {
             return tryDayFormat6(dateTime);
         }
@@ -134,40 +373,12 @@ public class DateUtil {
      */
     private static LocalDate tryDayFormat6(String dateTime) throws Exception {
         try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("M/d/yyyy");
-            return LocalDate.parse(dateTime, formatter);
+            return LocalDate.parse(dateTime, DAY_FORMAT_6);
         } catch (DateTimeParseException e) {
             throw new Exception();
         }
     }
 
-    /**
-     * @param date
-     * @return
-     * @throws Exception
-     */
-    public static DateTimeType parseDateTimeType(String date) throws Exception {
-        LocalDateTime parsedLocalDateTime = parseLocalDateTime(date);
-        ZoneId systemDefaultZoneId = ZoneId.systemDefault();
-        Instant instantDate = parsedLocalDateTime.atZone(systemDefaultZoneId).toInstant();
-        Date resultDate = Date.from(instantDate);
-        return new DateTimeType(resultDate, TemporalPrecisionEnum.SECOND);
-    }
-
-    /**
-     * @param date
-     * @return
-     * @throws Exception
-     */
-    private static LocalDateTime parseLocalDateTime(String date) throws Exception {
-        try {
-            LocalDate localDate = parseLocalDate(date);
-            return localDate.atStartOfDay();
-        } catch (Exception e) {
-            return tryTimeFormat1(date);
-        }
-    }
-
     /**
      * @param date
      * @return
@@ -175,8 +386,7 @@ public class DateUtil {
      */
     private static LocalDateTime tryTimeFormat1(String date) throws Exception {
         try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy, H:mm");
-            return LocalDateTime.parse(date, formatter);
+            return LocalDateTime.parse(date, TIME_FORMAT_1);
         } catch (DateTimeParseException e) {
             return tryTimeFormat2(date);
         }
@@ -189,8 +399,7 @@ public class DateUtil {
      */
     private static LocalDateTime tryTimeFormat2(String date) throws Exception {
         try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy H:mm");
-            return LocalDateTime.parse(date, formatter);
+            return LocalDateTime.parse(date, TIME_FORMAT_2);
         } catch (DateTimeParseException e) {
             throw new Exception();
         }
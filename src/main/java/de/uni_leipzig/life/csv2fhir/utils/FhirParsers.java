@@ -0,0 +1,96 @@
+package de.uni_leipzig.life.csv2fhir.utils;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+
+/**
+ * Holds the one {@link FhirContext} of the process and hands out configured
+ * parsers. Creating a context scans the whole FHIR model by reflection, so
+ * every class must use {@link #getContext()} instead of
+ * {@link FhirContext#forR4()}.<br>
+ * The context is thread safe but the parsers are not. So every thread gets its
+ * own parser for every {@link Format}. The returned parsers must not be
+ * reconfigured by the caller, because the next caller in the same thread would
+ * get the changed parser.
+ *
+ * @author AXS (17.10.2026)
+ */
+public class FhirParsers {
+
+    /**
+     * The configurations of the parsers
+     */
+    public static enum Format {
+        JSON,
+        JSON_PRETTY,
+        XML,
+        XML_PRETTY;
+
+        /**
+         * @return a new parser with this configuration
+         */
+        private IParser createParser() {
+            FhirContext fhirContext = getContext();
+            switch (this) {
+            case JSON:
+                return fhirContext.newJsonParser();
+            case JSON_PRETTY:
+                return fhirContext.newJsonParser().setPrettyPrint(true);
+            case XML:
+                return fhirContext.newXmlParser();
+            default:
+                return fhirContext.newXmlParser().setPrettyPrint(true);
+            }
+        }
+    }
+
+    /**
+     * Creates the context on the first call of {@link FhirParsers#getContext()}
+     * and not if only the class is loaded.
+     */
+    private static class ContextHolder {
+        /** The context of the process */
+        private static final FhirContext FHIR_CONTEXT = FhirContext.forR4();
+    }
+
+    /** The parsers of the current thread indexed by the {@link Format} */
+    private static final ThreadLocal<IParser[]> THREAD_PARSERS = ThreadLocal.withInitial(() -> new IParser[Format.values().length]);
+
+    /**
+     * @return the R4 context of the process
+     */
+    public static FhirContext getContext() {
+        return ContextHolder.FHIR_CONTEXT;
+    }
+
+    /**
+     * @param format
+     * @return the parser of the current thread with the given format
+     */
+    public static IParser getParser(Format format) {
+        IParser[] parsers = THREAD_PARSERS.get();
+        IParser parser = parsers[format.ordinal()];
+        if (parser == null) {
+            parser = format.createParser();
+            parsers[format.ordinal()] = parser;
+        }
+        return parser;
+    }
+
+    /**
+     * @param prettyPrint
+     * @return the JSON parser of the current thread
+     */
+    public static IParser getJsonParser(boolean prettyPrint) {
+        return getParser(prettyPrint ? Format.JSON_PRETTY : Format.JSON);
+    }
+
+    /**
+     * @param prettyPrint
+     * @return the XML parser of the current thread
+     */
+    public static IParser getXmlParser(boolean prettyPrint) {
+        return getParser(prettyPrint ? Format.XML_PRETTY : Format.XML);
+    }
+
+}
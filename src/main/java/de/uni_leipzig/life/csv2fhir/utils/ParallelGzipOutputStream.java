@@ -0,0 +1,248 @@
+package de.uni_leipzig.life.csv2fhir.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes the data in the gzip format and compresses it with multiple threads
+ * (like pigz). The data is split into blocks that are deflated independently
+ * by a thread pool. Every block uses the last 32 KB of the previous block as
+ * dictionary and all blocks but the last end with a sync flush, so the
+ * concatenated blocks are one standard deflate stream in one gzip member.
+ * The output can be read by every gzip decoder.
+ *
+ * @author AXS (17.10.2026)
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+    /** Size of the uncompressed blocks that are compressed independently */
+    public static final int BLOCK_SIZE = 1 << 17;
+
+    /** Size of the deflate dictionary taken from the previous block */
+    private static final int DICTIONARY_SIZE = 1 << 15;
+
+    /**
+     * Header of a gzip member without file name and modification time (same
+     * as the header of the {@link java.util.zip.GZIPOutputStream})
+     */
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    /** Counts the threads of all streams for the thread names */
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /** The stream for the compressed data */
+    private final OutputStream out;
+
+    /** Compresses the blocks */
+    private final ExecutorService executor;
+
+    /**
+     * Maximum count of blocks in the queue. Limits the memory if the blocks
+     * are written faster than compressed.
+     */
+    private final int maxPendingBlocks;
+
+    /** The compressed blocks in the order of the data */
+    private final Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+
+    /** Checksum of all uncompressed data */
+    private final CRC32 crc = new CRC32();
+
+    /** Size of all uncompressed data */
+    private long uncompressedSize = 0;
+
+    /** The current block which is filled by the write methods */
+    private byte[] block = new byte[BLOCK_SIZE];
+
+    /** The count of bytes in the current block */
+    private int blockLength = 0;
+
+    /**
+     * The last submitted block. Its end is the dictionary for the current
+     * block.
+     */
+    private byte[] previousBlock = null;
+
+    /**  */
+    private boolean closed = false;
+
+    /**
+     * @param out the stream for the compressed data
+     * @param threadCount the count of threads that compress the blocks
+     * @throws IOException
+     */
+    public ParallelGzipOutputStream(OutputStream out, int threadCount) throws IOException {
+        this.out = out;
+        // write the header before the threads are created to not leak them
+        out.write(HEADER);
+        executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "ParallelGzip-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        maxPendingBlocks = threadCount * 2;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (blockLength == BLOCK_SIZE) {
+            submitBlock(false);
+        }
+        block[blockLength++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        ensureOpen();
+        while (len > 0) {
+            if (blockLength == BLOCK_SIZE) {
+                submitBlock(false);
+            }
+            int length = Math.min(len, BLOCK_SIZE - blockLength);
+            System.arraycopy(b, off, block, blockLength, length);
+            blockLength += length;
+            off += length;
+            len -= length;
+        }
+    }
+
+    /**
+     * Flushes only the underlying stream. Like the
+     * {@link java.util.zip.GZIPOutputStream} the data of the current block is
+     * not compressed before the block is full or the stream is closed.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            try {
+                submitBlock(true);
+                while (!pendingBlocks.isEmpty()) {
+                    writeFirstPendingBlock();
+                }
+                byte[] trailer = new byte[8];
+                writeIntLittleEndian(trailer, 0, (int) crc.getValue());
+                writeIntLittleEndian(trailer, 4, (int) uncompressedSize);
+                out.write(trailer);
+            } finally {
+                executor.shutdownNow();
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Submits the current block to the compressing threads and writes the
+     * compressed blocks to the stream if too much blocks are waiting.
+     *
+     * @param last <code>true</code> if this is the last block of the stream
+     * @throws IOException
+     */
+    private void submitBlock(boolean last) throws IOException {
+        byte[] data = block;
+        int length = blockLength;
+        byte[] dictionary = previousBlock;
+        crc.update(data, 0, length);
+        uncompressedSize += length;
+        pendingBlocks.add(executor.submit(() -> deflate(data, length, dictionary, last)));
+        previousBlock = data;
+        block = last ? null : new byte[BLOCK_SIZE];
+        blockLength = 0;
+        while (pendingBlocks.size() > maxPendingBlocks) {
+            writeFirstPendingBlock();
+        }
+    }
+
+    /**
+     * Waits for the first pending block and writes it to the stream.
+     *
+     * @throws IOException
+     */
+    private void writeFirstPendingBlock() throws IOException {
+        try {
+            out.write(pendingBlocks.remove().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        } catch (ExecutionException e) {
+            throw new IOException("Error while compressing", e.getCause());
+        }
+    }
+
+    /**
+     * @param data
+     * @param length
+     * @param dictionary the previous (full) block or <code>null</code> for the
+     *            first block
+     * @param last <code>true</code> if this is the last block of the stream
+     * @return the raw deflate data of the block
+     */
+    private static byte[] deflate(byte[] data, int length, byte[] dictionary, boolean last) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary, dictionary.length - DICTIONARY_SIZE, DICTIONARY_SIZE);
+            }
+            deflater.setInput(data, 0, length);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 4 + 64);
+            byte[] buffer = new byte[1 << 14];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    compressed.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                //the sync flush ends the block at a byte boundary, so the next block can be appended
+                int compressedLength;
+                do {
+                    compressedLength = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    compressed.write(buffer, 0, compressedLength);
+                } while (compressedLength == buffer.length);
+            }
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @param bytes
+     * @param offset
+     * @param value
+     */
+    private static void writeIntLittleEndian(byte[] bytes, int offset, int value) {
+        for (int i = 0; i < 4; i++) {
+            bytes[offset + i] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    /**
+     * @throws IOException
+     */
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+}
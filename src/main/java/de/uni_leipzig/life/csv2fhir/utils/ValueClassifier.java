@@ -0,0 +1,162 @@
+package de.uni_leipzig.life.csv2fhir.utils;
+
+import static java.util.regex.Pattern.CASE_INSENSITIVE;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Classifies cell values into the constants of an enum whose toString()
+ * values are the patterns of the constants. The patterns of
+ * all constants are compiled once into one combined pattern, so a value is
+ * classified with one match instead of compiling and matching the pattern of
+ * every constant. The results are memoised per distinct value, because the
+ * classified columns usually contain only a few different values.<br>
+ * The classifiers are created once per enum class and can be used by multiple
+ * threads at the same time.
+ *
+ * @author AXS (17.10.2026)
+ */
+public final class ValueClassifier<E extends Enum<E>> {
+
+    /**
+     * Values are only memoised until the memo has this size, so free text
+     * columns cannot fill the memory.
+     */
+    private static final int MAX_MEMO_SIZE = 10_000;
+
+    /** The classifiers that find the toString() of the constant as pattern */
+    private static final ClassValue<ValueClassifier<?>> PATTERN_CLASSIFIERS = new ClassValue<>() {
+        @Override
+        protected ValueClassifier<?> computeValue(Class<?> enumClass) {
+            return create(enumClass);
+        }
+    };
+
+    /**  */
+    private final E[] constants;
+
+    /** The compiled pattern of every constant indexed by the ordinal */
+    private final Pattern[] patterns;
+
+    /**
+     * The patterns of all constants as alternatives in the order of the
+     * constants or <code>null</code> if the enum has no constants
+     */
+    private final Pattern combinedPattern;
+
+    /**
+     * The index of the empty group in the combined pattern that marks the
+     * alternative of the constant indexed by the ordinal
+     */
+    private final int[] markerGroups;
+
+    /** Maps from the classified values to their constant */
+    private final Map<String, Optional<E>> memo = new ConcurrentHashMap<>();
+
+    /**
+     * @param enumClass
+     */
+    private ValueClassifier(Class<E> enumClass) {
+        constants = enumClass.getEnumConstants();
+        patterns = new Pattern[constants.length];
+        markerGroups = new int[constants.length];
+        StringBuilder combinedPatternString = new StringBuilder("(?:");
+        int groupCount = 0;
+        for (int i = 0; i < constants.length; i++) {
+            String patternString = constants[i].toString();
+            patterns[i] = Pattern.compile(patternString, CASE_INSENSITIVE);
+            // The alternatives are tried in the order of the constants at the
+            // start of the value. The lookahead searches the pattern in the whole
+            // value and the empty group marks the successful alternative.
+            combinedPatternString.append(i == 0 ? "" : "|").append("(?=[\\s\\S]*?(?:").append(patternString).append("))()");
+            groupCount += patterns[i].matcher("").groupCount() + 1;
+            markerGroups[i] = groupCount;
+        }
+        combinedPattern = constants.length == 0 ? null : Pattern.compile(combinedPatternString.append(")").toString(), CASE_INSENSITIVE);
+    }
+
+    /**
+     * @param enumClass
+     * @return a new classifier of the enum
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ValueClassifier<?> create(Class<?> enumClass) {
+        return new ValueClassifier(enumClass.asSubclass(Enum.class));
+    }
+
+    /**
+     * @param <E>
+     * @param valuePatternClass enum whose toString() values are case
+     *            insensitive patterns that must be found in the values
+     * @return the classifier of the enum
+     */
+    @SuppressWarnings("unchecked")
+    public static <E extends Enum<E>> ValueClassifier<E> ofPatterns(Class<E> valuePatternClass) {
+        return (ValueClassifier<E>) PATTERN_CLASSIFIERS.get(valuePatternClass);
+    }
+
+    /**
+     * @param valuePattern the toString() value from this enum is the pattern
+     *            that must be found in the value
+     * @param value
+     * @return <code>true</code> if the pattern of the constant can be found in
+     *         the value
+     */
+    public static boolean matchesPattern(Enum<?> valuePattern, String value) {
+        return PATTERN_CLASSIFIERS.get(valuePattern.getDeclaringClass()).matches(valuePattern, value);
+    }
+
+    /**
+     * @param value
+     * @return the first constant (in the order of the enum) whose pattern
+     *         matches the value or <code>null</code> if no pattern matches or
+     *         the value is <code>null</code>
+     */
+    public E classify(String value) {
+        if (value == null) {
+            return null;
+        }
+        Optional<E> constant = memo.get(value);
+        if (constant == null) {
+            constant = Optional.ofNullable(classifyUncached(value));
+            if (memo.size() < MAX_MEMO_SIZE) {
+                memo.put(value, constant);
+            }
+        }
+        return constant.orElse(null);
+    }
+
+    /**
+     * @param value
+     * @return the first constant whose pattern matches the value
+     */
+    private E classifyUncached(String value) {
+        if (combinedPattern == null) {
+            return null;
+        }
+        Matcher matcher = combinedPattern.matcher(value);
+        if (matcher.lookingAt()) {
+            for (int i = 0; i < constants.length; i++) {
+                if (matcher.start(markerGroups[i]) >= 0) {
+                    return constants[i];
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param constant
+     * @param value
+     * @return <code>true</code> if the pattern of the constant matches the
+     *         value
+     */
+    public boolean matches(Enum<?> constant, String value) {
+        return value != null && patterns[constant.ordinal()].matcher(value).find();
+    }
+
+}
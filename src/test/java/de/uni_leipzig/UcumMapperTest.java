@@ -0,0 +1,35 @@
+package de.uni_leipzig;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+import de.uni_leipzig.UcumMapper.NormalisedUcumCode;
+
+public class UcumMapperTest {
+
+    @Test
+    public void normaliseTest() throws Exception {
+        NormalisedUcumCode celsius = UcumMapper.normalise("°C");
+        assertSame(UcumMapper.normalise("°C"), celsius);
+        assertTrue(celsius.isValid());
+        assertEquals(celsius.getCode(), "Cel");
+        assertEquals(celsius.getUnit(), "degree Celsius");
+        assertEquals(UcumMapper.normalise("mmHg").getCode(), "mm[Hg]");
+        assertEquals(UcumMapper.normalise("mg / dL").getCode(), "mg/dL");
+        assertEquals(UcumMapper.getValidUcumCode("mg/dL"), "mg/dL");
+        assertEquals(UcumMapper.getUcumUnit("mg/dL"), "milligram per deciliter");
+
+        int invalidCount = UcumMapper.getInvalidUcumCodes().count("no unit");
+        NormalisedUcumCode invalid = UcumMapper.normalise("no unit");
+        assertFalse(invalid.isValid());
+        assertEquals(invalid.getCode(), "no unit");
+        assertEquals(invalid.getUnit(), "no unit");
+        assertEquals(UcumMapper.getUcumUnit("no unit"), "no unit");
+        assertEquals(UcumMapper.getInvalidUcumCodes().count("no unit"), invalidCount + 2);
+    }
+
+}
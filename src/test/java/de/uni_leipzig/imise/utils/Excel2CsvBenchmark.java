@@ -0,0 +1,114 @@
+package de.uni_leipzig.imise.utils;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the creation of the csv lines of 1000 rows like the rows of the
+ * laboratory sheet (mostly clean values, some with non-breaking spaces and
+ * commas) with the former regex based cleaning and the single pass cleaning
+ * in {@link Excel2Csv}.<br>
+ * Run with<br>
+ * <code>java -cp target/test-classes:target/classes:&lt;dependencies&gt; org.openjdk.jmh.Main Excel2CsvBenchmark</code>
+ *
+ * @author AXS (17.10.2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class Excel2CsvBenchmark {
+
+    /**  */
+    private static final int ROW_COUNT = 1000;
+
+    /**  */
+    private String[][] rows;
+
+    /**  */
+    private double[] numbers;
+
+    /**
+     *
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        rows = new String[ROW_COUNT][];
+        numbers = new double[ROW_COUNT];
+        for (int i = 0; i < ROW_COUNT; i++) {
+            rows[i] = new String[] {
+                    "Projekt_XY_Patient_" + i,
+                    "" + random.nextInt(5),
+                    "12.03.2019 07:00",
+                    random.nextInt(10) == 0 ? "H\u00E4moglobin\u00A0 im Blut" : "H\u00E4moglobin",
+                    "" + random.nextInt(200) / 10.0,
+                    random.nextInt(10) == 0 ? "g/dl, ven\u00F6s" : "g/dl"};
+            numbers[i] = random.nextInt(2) == 0 ? random.nextInt(1000) : random.nextInt(10000) / 100.0;
+        }
+    }
+
+    /**
+     * @param blackhole
+     */
+    @Benchmark
+    public void formerCsvLines(Blackhole blackhole) {
+        for (String[] row : rows) {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < row.length; i++) {
+                String cellValue = row[i].replaceAll("[\u00A0\u2007\u202F\\s]+", " ").trim();
+                cellValue = "#NV".equals(cellValue) ? "" : cellValue;
+                cellValue = cellValue.replace("\"", Excel2Csv.QUOTE_ESCAPE);
+                line.append(cellValue.contains(",") ? "\"" + cellValue + "\"" : cellValue).append(i < row.length - 1 ? "," : "");
+            }
+            blackhole.consume(line.toString());
+        }
+    }
+
+    /**
+     * @param blackhole
+     */
+    @Benchmark
+    public void singlePassCsvLines(Blackhole blackhole) {
+        for (String[] row : rows) {
+            blackhole.consume(Excel2Csv.toCsvLine(row));
+        }
+    }
+
+    /**
+     * @param blackhole
+     */
+    @Benchmark
+    public void formerNumericValues(Blackhole blackhole) {
+        for (double d : numbers) {
+            long l = (long) d;
+            String cellValue = d - l == 0 ? "" + l : "" + d;
+            blackhole.consume(cellValue.replace(",", ".").replaceAll("\\.0$", ""));
+        }
+    }
+
+    /**
+     * @param blackhole
+     */
+    @Benchmark
+    public void numericValues(Blackhole blackhole) {
+        for (double d : numbers) {
+            blackhole.consume(Excel2Csv.toNumericCellValue(d));
+        }
+    }
+
+}
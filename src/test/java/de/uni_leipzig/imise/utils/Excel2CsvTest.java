@@ -0,0 +1,55 @@
+package de.uni_leipzig.imise.utils;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+public class Excel2CsvTest {
+
+    /**
+     * Compares the cleaning and the formatting with the former regex based
+     * implementation on random values.
+     */
+    @Test
+    public void sameValuesAsRegexTest() {
+        Random random = new Random(3);
+        char[] chars = {'a', 'Z', '1', ',', '"', '#', 'N', 'V', '.', ' ', '\t', '\n', '\r', '\f', '\u000B', '\u0001', '\u00A0', '\u2007', '\u202F', '\u2003', '\u00E4'};
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder value = new StringBuilder();
+            int length = random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                value.append(chars[random.nextInt(chars.length)]);
+            }
+            String cellValue = random.nextInt(10) == 0 ? " #NV " : value.toString();
+            assertEquals(Excel2Csv.cleanCellValue(cellValue), formerCleanCellValue(cellValue), cellValue);
+            assertEquals(Excel2Csv.toCsvLine(new String[] {cellValue, "x"}), formerToCsvValue(cellValue) + ",x", cellValue);
+        }
+        double[] numbers = {0, -0.0, 1, -1, 0.5, 11715311, 1.1715311E7, 123456789012.25, 1e-5, 1e20, -1e20, 1e7, 12.0000001, Double.NaN, Double.POSITIVE_INFINITY, Long.MAX_VALUE};
+        for (double d : numbers) {
+            assertEquals(Excel2Csv.toNumericCellValue(d), formerToNumericCellValue(d), String.valueOf(d));
+        }
+        for (int i = 0; i < 20000; i++) {
+            double d = random.nextInt(3) == 0 ? random.nextInt(100000) : random.nextDouble() * Math.pow(10, random.nextInt(30) - 10);
+            assertEquals(Excel2Csv.toNumericCellValue(d), formerToNumericCellValue(d), String.valueOf(d));
+        }
+    }
+
+    private static String formerCleanCellValue(String cellValue) {
+        cellValue = cellValue.replaceAll("[\u00A0\u2007\u202F\\s]+", " ").trim();
+        return "#NV".equals(cellValue) ? "" : cellValue;
+    }
+
+    private static String formerToCsvValue(String cellValue) {
+        cellValue = formerCleanCellValue(cellValue).replace("\"", Excel2Csv.QUOTE_ESCAPE);
+        return cellValue.contains(",") ? "\"" + cellValue + "\"" : cellValue;
+    }
+
+    private static String formerToNumericCellValue(double d) {
+        long l = (long) d;
+        String cellValue = d - l == 0 ? "" + l : "" + d;
+        return cellValue.replace(",", ".").replaceAll("\\.0$", "");
+    }
+
+}
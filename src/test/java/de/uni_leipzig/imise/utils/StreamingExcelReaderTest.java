@@ -0,0 +1,110 @@
+package de.uni_leipzig.imise.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import de.uni_leipzig.imise.utils.Excel2Csv.ReadMode;
+import de.uni_leipzig.imise.utils.Excel2Csv.SheetHandler;
+
+public class StreamingExcelReaderTest {
+
+    /**  */
+    private static final File SAMPLE_EXCEL_FILE = new File("input/FHIR_Testdatengenerator_Vorlage.xlsx");
+
+    @Test
+    public void readSameRowsAsWorkbookTest() throws Exception {
+        List<String> workbookRows = readAllRows(ReadMode.WORKBOOK);
+        List<String> streamingRows = readAllRows(ReadMode.STREAMING);
+        assertFalse(workbookRows.isEmpty());
+        assertEquals(streamingRows, workbookRows);
+    }
+
+    @Test
+    public void readSheetsInParallelTest() throws Exception {
+        List<String> sequentialRows = readAllRows(ReadMode.STREAMING);
+        List<List<String>> sheetRows = new ArrayList<>();
+        StreamingExcelReader.read(SAMPLE_EXCEL_FILE, sheetName -> {
+            List<String> rows = new ArrayList<>();
+            sheetRows.add(rows);
+            return new RowCollector(rows);
+        }, 4);
+        List<String> parallelRows = new ArrayList<>();
+        sheetRows.forEach(parallelRows::addAll);
+        assertEquals(parallelRows, sequentialRows);
+    }
+
+    @Test
+    public void closeSheetOnErrorTest() throws Exception {
+        for (ReadMode readMode : ReadMode.values()) {
+            List<String> rows = new ArrayList<>();
+            try {
+                readMode.read(SAMPLE_EXCEL_FILE, new RowCollector(rows) {
+                    @Override
+                    public void row(String[] cellValues) {
+                        throw new IllegalStateException("row failed");
+                    }
+                });
+                fail("The exception of the handler was not thrown by " + readMode);
+            } catch (IllegalStateException e) {
+                assertEquals(e.getMessage(), "row failed");
+            }
+            assertEquals(rows.size(), 2, rows.toString());
+            assertEquals(rows.get(1), "close");
+        }
+    }
+
+    /**
+     * @param readMode
+     * @return all rows of all sheets as strings
+     * @throws IOException
+     */
+    private static List<String> readAllRows(ReadMode readMode) throws IOException {
+        List<String> rows = new ArrayList<>();
+        readMode.read(SAMPLE_EXCEL_FILE, new RowCollector(rows));
+        return rows;
+    }
+
+    /**
+     * Collects the rows of the sheets as strings.
+     */
+    private static class RowCollector implements SheetHandler {
+
+        private final List<String> rows;
+
+        private RowCollector(List<String> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public boolean startSheet(String sheetName) {
+            rows.add("sheet " + sheetName);
+            // the workbook reader fails on sheets without header row
+            return !sheetName.equals("Codes");
+        }
+
+        @Override
+        public void row(String[] cellValues) {
+            rows.add(Arrays.toString(cellValues));
+        }
+
+        @Override
+        public void endSheet() {
+            rows.add("end");
+        }
+
+        @Override
+        public void close() {
+            rows.add("close");
+        }
+    }
+
+}
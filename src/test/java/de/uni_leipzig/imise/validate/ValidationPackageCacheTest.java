@@ -0,0 +1,44 @@
+package de.uni_leipzig.imise.validate;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.StructureDefinition;
+import org.testng.annotations.Test;
+
+import ca.uhn.fhir.context.FhirContext;
+
+public class ValidationPackageCacheTest {
+
+    @Test
+    public void saveAndLoadTest() throws IOException {
+        FhirContext fhirContext = FhirContext.forR4();
+        File cacheFile = Files.createTempFile("validation-packages", ".ndjson.gz").toFile();
+        try {
+            StructureDefinition profile = new StructureDefinition();
+            profile.setUrl("http://example.org/StructureDefinition/Test");
+            profile.getText().getDiv().setValue("<div>narrative</div>");
+            profile.getSnapshot().addElement().setPath("Patient");
+            new ValidationPackageCache(cacheFile, "fingerprint").save(fhirContext, List.of(profile));
+
+            List<IBaseResource> resources = new ValidationPackageCache(cacheFile, "fingerprint").load(fhirContext);
+            assertEquals(resources.size(), 1);
+            StructureDefinition loadedProfile = (StructureDefinition) resources.get(0);
+            assertEquals(loadedProfile.getUrl(), profile.getUrl());
+            assertEquals(loadedProfile.getSnapshot().getElementFirstRep().getPath(), "Patient");
+            assertFalse(loadedProfile.hasText());
+
+            assertNull(new ValidationPackageCache(cacheFile, "other fingerprint").load(fhirContext));
+        } finally {
+            cacheFile.delete();
+        }
+    }
+
+}
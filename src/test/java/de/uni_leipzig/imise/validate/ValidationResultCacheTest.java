@@ -0,0 +1,54 @@
+package de.uni_leipzig.imise.validate;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import ca.uhn.fhir.validation.ResultSeverityEnum;
+import ca.uhn.fhir.validation.SingleValidationMessage;
+import de.uni_leipzig.imise.validate.FHIRValidator.ValidationResultType;
+import de.uni_leipzig.imise.validate.ValidationResultCache.Verdict;
+
+public class ValidationResultCacheTest {
+
+    @Test
+    public void saveAndLoadTest() throws IOException {
+        File cacheFile = Files.createTempFile("validation-cache", ".bin").toFile();
+        try {
+            String key = ValidationResultCache.getKey("{\"resourceType\":\"Medication\",\"id\":\"1\"}", false);
+            assertNotEquals(ValidationResultCache.getKey("{\"resourceType\":\"Medication\",\"id\":\"1\"}", true), key);
+
+            ValidationResultCache cache = new ValidationResultCache(cacheFile, "fingerprint");
+            assertNull(cache.get(key));
+            SingleValidationMessage message = new SingleValidationMessage();
+            message.setSeverity(ResultSeverityEnum.ERROR);
+            message.setLocationString("Medication.code");
+            message.setLocationLine(1);
+            message.setMessage("Unknown code");
+            SingleValidationMessage ignoredMessage = new SingleValidationMessage();
+            ignoredMessage.setSeverity(ResultSeverityEnum.WARNING);
+            ignoredMessage.setLocationString("Medication.form");
+            ignoredMessage.setLocationCol(7);
+            ignoredMessage.setMessage("Ignored warning");
+            cache.put(key, new Verdict(ValidationResultType.ERROR, List.of(message), List.of(ignoredMessage, message)));
+            cache.save();
+
+            Verdict verdict = new ValidationResultCache(cacheFile, "fingerprint").get(key);
+            assertEquals(verdict.resultType, ValidationResultType.ERROR);
+            assertEquals(verdict.ignoredMessages, List.of(ignoredMessage, message));
+            assertEquals(verdict.messages, List.of(message));
+
+            assertNull(new ValidationResultCache(cacheFile, "other fingerprint").get(key));
+        } finally {
+            cacheFile.delete();
+        }
+    }
+
+}
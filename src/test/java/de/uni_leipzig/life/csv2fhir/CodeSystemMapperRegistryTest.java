@@ -0,0 +1,33 @@
+package de.uni_leipzig.life.csv2fhir;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+public class CodeSystemMapperRegistryTest {
+
+    @Test
+    public void loadOnceTest() {
+        CodeSystemMapperRegistry.loadAll();
+        CodeSystemMapper mapper = CodeSystemMapperRegistry.getCodeSystemMapper(CodeSystemMapperRegistry.DIAGNOSIS_ROLE_MAP);
+        assertSame(CodeSystemMapperRegistry.getCodeSystemMapper(CodeSystemMapperRegistry.DIAGNOSIS_ROLE_MAP), mapper);
+        assertTrue(mapper.isImmutable());
+        assertNotNull(mapper.getCodeSystem());
+        String code = mapper.get("DEFAULT_DIAGNOSIS_ROLE_CODE");
+        assertEquals(mapper.getHumanToCode(mapper.getCodeToHuman(code)), code);
+        assertThrows(UnsupportedOperationException.class, () -> mapper.put("key", "value"));
+        assertThrows(UnsupportedOperationException.class, () -> mapper.clear());
+
+        Map<String, String> consentResources = CodeSystemMapperRegistry.getProperties(CodeSystemMapperRegistry.CONSENT_MAP);
+        assertSame(CodeSystemMapperRegistry.getProperties(CodeSystemMapperRegistry.CONSENT_MAP), consentResources);
+        assertNotNull(consentResources.get("CONSENT_PROVISION_SYSTEM"));
+        assertThrows(UnsupportedOperationException.class, () -> consentResources.put("key", "value"));
+    }
+
+}
@@ -0,0 +1,47 @@
+package de.uni_leipzig.life.csv2fhir;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import de.uni_leipzig.life.csv2fhir.ConversionDiagnostics.Entry;
+import de.uni_leipzig.life.csv2fhir.ConversionDiagnostics.Level;
+import de.uni_leipzig.life.csv2fhir.converter.PatientConverter;
+
+public class ConversionDiagnosticsTest {
+
+    @Test
+    public void aggregationTest() {
+        ConversionDiagnostics diagnostics = new ConversionDiagnostics(2);
+        TableHeader header = new TableHeader("Patient-ID", "Vorname");
+        TableRecord[] records = new TableRecord[5];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = new TableRecord(header, new String[] {"PID" + i, null}, i + 1);
+        }
+        AtomicInteger locationCalls = new AtomicInteger();
+        assertEquals(diagnostics.add(PatientConverter.class, Level.WARNING, "Empty Vorname", records[0], () -> "location" + locationCalls.incrementAndGet()), 1);
+        assertEquals(diagnostics.add(PatientConverter.class, Level.WARNING, "Empty Vorname", records[0], () -> "location" + locationCalls.incrementAndGet()), 2);
+        for (int i = 1; i < records.length; i++) {
+            diagnostics.add(PatientConverter.class, Level.WARNING, "Empty Vorname", records[i], () -> "location" + locationCalls.incrementAndGet());
+        }
+        diagnostics.add(PatientConverter.class, Level.ERROR, "Empty Vorname", records[4], () -> "error location");
+
+        Entry entry = diagnostics.getEntry(PatientConverter.class, Level.WARNING, "Empty Vorname");
+        assertEquals(entry.getCount(), 6);
+        assertEquals(entry.getLocation(), "location1");
+        assertEquals(locationCalls.get(), 1);
+        assertEquals(entry.getSamples(), List.of(records[0], records[1]));
+        assertEquals(diagnostics.getEntry(PatientConverter.class, Level.ERROR, "Empty Vorname").getCount(), 1);
+        assertNull(diagnostics.getEntry(PatientConverter.class, Level.INFO, "Empty Vorname"));
+        assertTrue(diagnostics.toString().startsWith("ERROR Patient: Empty Vorname (1 time, at error location)"));
+
+        diagnostics.reset();
+        assertTrue(diagnostics.isEmpty());
+    }
+
+}
@@ -0,0 +1,102 @@
+package de.uni_leipzig.life.csv2fhir;
+
+import static de.uni_leipzig.life.csv2fhir.TableIdentifier.Person;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.uni_leipzig.imise.validate.FHIRValidator;
+import de.uni_leipzig.life.csv2fhir.converter.PatientConverter;
+
+/**
+ * Measures the creation of the converters for the records of a patient table
+ * like {@link TableIdentifier#convert(TableRecord, String, ConverterResult, FHIRValidator, ConverterOptions)}
+ * does it for every record. The reflective variant is the former way with
+ * {@link Constructor#newInstance(Object...)} and the search of the column
+ * enum in every converter constructor.<br>
+ * Run with<br>
+ * <code>java -cp target/test-classes:target/classes:&lt;dependencies&gt; org.openjdk.jmh.Main ConverterFactoryBenchmark</code>
+ *
+ * @author AXS (17.10.2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ConverterFactoryBenchmark {
+
+    /** The count of records of the table */
+    private static final int RECORD_COUNT = 1000;
+
+    /**  */
+    private TableRecord[] records;
+
+    /**  */
+    private ConverterResult result;
+
+    /**  */
+    private ConverterOptions options;
+
+    /**  */
+    private Constructor<? extends Converter> converterConstructor;
+
+    /**
+     * @throws IOException
+     * @throws ReflectiveOperationException
+     */
+    @Setup
+    public void setup() throws IOException, ReflectiveOperationException {
+        options = new ConverterOptions(new ByteArrayInputStream(new byte[0]));
+        result = new ConverterResult(options);
+        TableHeader header = new TableHeader("Patient-ID", "Vorname", "Nachname");
+        records = new TableRecord[RECORD_COUNT];
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            records[i] = new TableRecord(header, new String[] {"Patient-" + i, "Max", "Mustermann"}, i);
+        }
+        converterConstructor = PatientConverter.class.getConstructor(TableRecord.class, String.class, ConverterResult.class, FHIRValidator.class, ConverterOptions.class);
+    }
+
+    /**
+     * @param blackhole
+     * @throws Exception
+     */
+    @Benchmark
+    public void reflectiveConstructor(Blackhole blackhole) throws Exception {
+        for (TableRecord record : records) {
+            Converter converter = converterConstructor.newInstance(record, null, result, null, options);
+            blackhole.consume(converter);
+            blackhole.consume(Converter.reflectColumnIdentifiersClass(converter.getClass()));
+        }
+    }
+
+    /**
+     * @param blackhole
+     * @throws Exception
+     */
+    @Benchmark
+    public void converterFactory(Blackhole blackhole) throws Exception {
+        ConverterFactory converterFactory = Person.getConverterFactory();
+        for (TableRecord record : records) {
+            Converter converter = converterFactory.create(record, null, result, null, options);
+            blackhole.consume(converter);
+            blackhole.consume(converter.getColumnIdentifiersClass());
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package de.uni_leipzig.life.csv2fhir;
+
+import static de.uni_leipzig.life.csv2fhir.TableIdentifier.Medikation;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.hl7.fhir.r4.model.Medication;
+import org.hl7.fhir.r4.model.MedicationStatement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the lookups in a {@link ConverterResult} the way the
+ * MedicationConverter uses it: for every medication record the existing
+ * medication is looked up by its ID and only added if it does not exist yet.
+ * Every medication is referenced by two records.<br>
+ * Run with<br>
+ * <code>java -cp target/test-classes:target/classes:&lt;dependencies&gt; org.openjdk.jmh.Main ConverterResultBenchmark</code>
+ *
+ * @author AXS (17.10.2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ConverterResultBenchmark {
+
+    /** The count of different medications of one patient bundle */
+    @Param({"1000", "10000"})
+    public int medicationCount;
+
+    /**  */
+    private ConverterOptions options;
+
+    /** The medications with the IDs in the order of the records */
+    private Medication[] medications;
+
+    /**
+     * @throws IOException
+     */
+    @Setup
+    public void setup() throws IOException {
+        options = new ConverterOptions(new ByteArrayInputStream(new byte[0]));
+        medications = new Medication[medicationCount * 2];
+        for (int i = 0; i < medications.length; i++) {
+            Medication medication = new Medication();
+            medication.setId("PID-1-MED-" + (i % medicationCount));
+            medications[i] = medication;
+        }
+    }
+
+    /**
+     * @return the result to prevent dead code elimination
+     */
+    @Benchmark
+    public ConverterResult addAndLookupMedications() {
+        ConverterResult result = new ConverterResult(options);
+        for (Medication medication : medications) {
+            String id = medication.getId();
+            if (result.get(Medikation, Medication.class, "Medication/" + id) == null) {
+                result.add(Medikation, medication);
+            }
+            MedicationStatement medicationStatement = new MedicationStatement();
+            medicationStatement.setId(id + "-MS-" + result.getNextId(Medikation, MedicationStatement.class, ConverterOptions.IntOption.START_ID_MEDICATION_STATEMENT));
+            result.add(Medikation, medicationStatement);
+        }
+        return result;
+    }
+
+}
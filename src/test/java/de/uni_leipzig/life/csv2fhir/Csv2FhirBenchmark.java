@@ -0,0 +1,117 @@
+package de.uni_leipzig.life.csv2fhir;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.uni_leipzig.imise.utils.Excel2Csv;
+
+/**
+ * Measures the conversion time of a whole file set depending on the patient
+ * count and the count of converter threads. The patients of the sample
+ * workbook are copied with new patient IDs, so the time per patient should
+ * stay nearly constant with a growing patient count.<br>
+ * Run with<br>
+ * <code>java -cp target/test-classes:target/classes:&lt;dependencies&gt; org.openjdk.jmh.Main Csv2FhirBenchmark</code>
+ *
+ * @author AXS (17.10.2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class Csv2FhirBenchmark {
+
+    /** The sample workbook with 10 patients */
+    private static final File SAMPLE_EXCEL_FILE = new File("input/FHIR_Testdatengenerator_Vorlage.xlsx");
+
+    /** The file base name of all CSV files extracted from the sample workbook */
+    private static final String FILE_BASE_NAME = "FHIR_Testdatengenerator_Vorlage_";
+
+    /** The prefix of all patient IDs in the sample workbook */
+    private static final String PID_PREFIX = "Projekt_XY_Patient_";
+
+    /** How often the patients of the sample workbook are copied */
+    @Param({"10", "40", "160"})
+    public int copies;
+
+    /** The count of threads that convert the patients */
+    @Param({"1", "4"})
+    public int threads;
+
+    /**  */
+    private File inputDirectory;
+
+    /**  */
+    private File outputDirectory;
+
+    /**
+     * @throws IOException
+     */
+    @Setup
+    public void setup() throws IOException {
+        File sampleDirectory = Files.createTempDirectory("csv2fhir-sample").toFile();
+        inputDirectory = Files.createTempDirectory("csv2fhir-input").toFile();
+        outputDirectory = Files.createTempDirectory("csv2fhir-output").toFile();
+        Excel2Csv.splitExcel(SAMPLE_EXCEL_FILE, TableIdentifier.getExcelSheetNamePatterns(), sampleDirectory);
+        for (File sampleFile : sampleDirectory.listFiles()) {
+            File inputFile = new File(inputDirectory, sampleFile.getName());
+            if (sampleFile.getName().startsWith(FILE_BASE_NAME + TableIdentifier.Konvertierungsoptionen)) {
+                FileUtils.copyFile(sampleFile, inputFile);
+                continue;
+            }
+            List<String> lines = Files.readAllLines(sampleFile.toPath(), UTF_8);
+            List<String> copiedLines = new ArrayList<>();
+            copiedLines.add(lines.get(0));
+            for (int copy = 0; copy < copies; copy++) {
+                for (String line : lines.subList(1, lines.size())) {
+                    copiedLines.add(line.replace(PID_PREFIX, PID_PREFIX + copy + "_"));
+                }
+            }
+            Files.write(inputFile.toPath(), copiedLines, UTF_8);
+        }
+        FileUtils.deleteDirectory(sampleDirectory);
+    }
+
+    /**
+     * @throws IOException
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(inputDirectory);
+        FileUtils.deleteDirectory(outputDirectory);
+    }
+
+    /**
+     * @return the statistics to prevent dead code elimination
+     * @throws Exception
+     */
+    @Benchmark
+    public Object convertFiles() throws Exception {
+        Csv2Fhir converter = new Csv2Fhir(inputDirectory, outputDirectory, FILE_BASE_NAME, null);
+        converter.setThreadCount(threads);
+        return converter.convertFiles(Integer.MAX_VALUE, OutputFileType.JSON);
+    }
+
+}
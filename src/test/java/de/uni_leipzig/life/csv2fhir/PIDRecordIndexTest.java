@@ -0,0 +1,93 @@
+package de.uni_leipzig.life.csv2fhir;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static org.testng.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+public class PIDRecordIndexTest {
+
+    /** Table with the PID column and some mandatory columns */
+    private static final TableIdentifier TABLE = TableIdentifier.Diagnose;
+
+    @Test
+    public void indexEqualsScanTest() {
+        List<String> columnNames = new ArrayList<>();
+        columnNames.add(TABLE.getPIDColumnName());
+        columnNames.addAll(TABLE.getMandatoryColumnNames());
+        TableHeader header = new TableHeader(columnNames.toArray(new String[0]));
+        String[][] values = {
+                {null, "no PID and no previous PID", null, null, null},
+                {"pid1", "A", null, null, null},
+                {"", "inherits pid1", null, null, null},
+                {"PID2", "B", null, null, null},
+                {null, null, null, null, null}, // empty record -> not indexed
+                {"", "inherits PID2 after the empty record", null, null, null},
+                {"Pid1", "pid1 again in another case", null, null, null},
+                {null, "inherits Pid1", null, null, null},
+                {"pid3", "C", null, null, null},
+                {"pid2", "D", null, null, null},
+        };
+        List<TableRecord> records = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            records.add(new TableRecord(header, values[i], i + 1));
+        }
+        PIDRecordIndex index = PIDRecordIndex.create(TABLE, records);
+        for (String upperCasePID : new String[] {"PID1", "PID2", "PID3", "PID4"}) {
+            assertEquals(getIndexedRecords(index, upperCasePID), scanRecords(records, upperCasePID), upperCasePID);
+        }
+        assertEquals(getIndexedRecords(index, "PID1"), List.of("2:pid1", "3:pid1", "7:Pid1", "8:Pid1"));
+        assertEquals(getIndexedRecords(index, "PID2"), List.of("4:PID2", "6:PID2", "10:pid2"));
+        assertEquals(getIndexedRecords(index, "PID4"), List.of());
+        assertEquals(index.getRanges("PID1"), new int[] {1, 3, 6, 8});
+    }
+
+    /**
+     * @param index
+     * @param upperCasePID
+     * @return the record numbers with the previous PIDs of all records of the
+     *         patient in the index
+     */
+    private static List<String> getIndexedRecords(PIDRecordIndex index, String upperCasePID) {
+        List<String> result = new ArrayList<>();
+        int[] ranges = index.getRanges(upperCasePID);
+        for (int r = 0; r < ranges.length; r += 2) {
+            for (int i = ranges[r]; i < ranges[r + 1]; i++) {
+                result.add(index.getRecord(i).getRecordNumber() + ":" + index.getPreviousPID(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The former scan over all records of the table for every patient.
+     *
+     * @param records
+     * @param upperCasePID
+     * @return the record numbers with the previous PIDs of all records of the
+     *         patient
+     */
+    private static List<String> scanRecords(List<TableRecord> records, String upperCasePID) {
+        List<String> result = new ArrayList<>();
+        String previousPID = null;
+        for (TableRecord record : records) {
+            String pid = record.get(TABLE.getPIDColumnName());
+            if (isNullOrEmpty(pid)) {
+                if (PIDRecordIndex.isRecordEmpty(record, TABLE.getMandatoryColumnNames())) {
+                    continue;
+                }
+                pid = previousPID;
+            } else {
+                previousPID = pid;
+            }
+            if (pid != null && pid.toUpperCase().equals(upperCasePID)) {
+                result.add(record.getRecordNumber() + ":" + previousPID);
+            }
+        }
+        return result;
+    }
+
+}
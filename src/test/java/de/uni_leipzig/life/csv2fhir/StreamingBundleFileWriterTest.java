@@ -0,0 +1,139 @@
+package de.uni_leipzig.life.csv2fhir;
+
+import static de.uni_leipzig.life.csv2fhir.OutputFileType.JSON;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
+import org.hl7.fhir.r4.model.Bundle.HTTPVerb;
+import org.hl7.fhir.r4.model.Medication;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.Resource;
+import org.testng.annotations.Test;
+
+public class StreamingBundleFileWriterTest {
+
+    /**  */
+    private static final String FILE_NAME_BASE = "Bundle_";
+
+    @Test
+    public void sameBytesAsCompleteBundleTest() throws IOException {
+        File directory = Files.createTempDirectory("streaming-bundle").toFile();
+        try {
+            Medication medication = createMedication("Ibuprofen");
+            List<List<Resource>> patients = List.of(
+                    createPatient("PID-1", "Müller \"Hans\"", medication),
+                    createPatient("PID-2", "Zeile 1\nZeile 2", medication),
+                    createPatient("PID-3", "Ärztin ß €", createMedication("Paracetamol")));
+
+            Bundle completeBundle = createTransactionBundle();
+            StreamingBundleFileWriter streamingWriter = new StreamingBundleFileWriter(directory, FILE_NAME_BASE, List.of(JSON), Set.of(Medication.class), 1);
+            for (List<Resource> patientResources : patients) {
+                Bundle patientBundle = createTransactionBundle();
+                for (Resource resource : patientResources) {
+                    if (!(resource instanceof Medication) || completeBundle.getEntry().stream().noneMatch(entry -> entry.getResource() == resource)) {
+                        addEntry(completeBundle, resource);
+                    }
+                    if (!streamingWriter.isWritten(resource)) {
+                        addEntry(patientBundle, resource);
+                    }
+                }
+                streamingWriter.appendEntries(patientBundle);
+            }
+            streamingWriter.closeBundle("streamed");
+
+            // the former encoding of the complete bundle at the end
+            File completeFile = new File(directory, FILE_NAME_BASE + "complete" + JSON.getFileExtension());
+            try (Writer writer = OutputFileType.createWriter(directory, FILE_NAME_BASE + "complete", List.of(JSON), 1)) {
+                JSON.getParser(true).encodeResourceToWriter(completeBundle, writer);
+                writer.write("\n");
+            }
+
+            byte[] expected = Files.readAllBytes(completeFile.toPath());
+            byte[] streamed = Files.readAllBytes(new File(directory, FILE_NAME_BASE + "streamed" + JSON.getFileExtension()).toPath());
+            assertEquals(completeBundle.getEntry().size(), 8);
+            assertEquals(streamed, expected);
+            assertFalse(new File(directory, FILE_NAME_BASE + JSON.getFileExtension()).exists());
+        } finally {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void discardBundleTest() throws IOException {
+        File directory = Files.createTempDirectory("streaming-bundle").toFile();
+        try {
+            StreamingBundleFileWriter streamingWriter = new StreamingBundleFileWriter(directory, FILE_NAME_BASE, List.of(JSON), Set.of(Medication.class), 1);
+            Bundle patientBundle = createTransactionBundle();
+            for (Resource resource : createPatient("PID-1", "Hans", createMedication("Ibuprofen"))) {
+                addEntry(patientBundle, resource);
+            }
+            streamingWriter.appendEntries(patientBundle);
+            streamingWriter.discardBundle();
+            assertEquals(directory.list().length, 0);
+        } finally {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @param pid
+     * @param note
+     * @param medication
+     * @return the patient with an observation and the medication
+     */
+    private static List<Resource> createPatient(String pid, String note, Medication medication) {
+        Patient patient = new Patient();
+        patient.setId(pid);
+        patient.addName().setFamily(note);
+        Observation observation = new Observation();
+        observation.setId(pid + "-obs");
+        observation.setSubject(new Reference("Patient/" + pid));
+        observation.getCode().setText(note);
+        return List.of(patient, observation, medication);
+    }
+
+    /**
+     * @param name
+     * @return the medication
+     */
+    private static Medication createMedication(String name) {
+        Medication medication = new Medication();
+        medication.setId(name);
+        medication.getCode().setText(name);
+        return medication;
+    }
+
+    /**
+     * @return
+     */
+    private static Bundle createTransactionBundle() {
+        Bundle bundle = new Bundle();
+        bundle.setType(Bundle.BundleType.TRANSACTION);
+        return bundle;
+    }
+
+    /**
+     * @param bundle
+     * @param resource
+     */
+    private static void addEntry(Bundle bundle, Resource resource) {
+        BundleEntryComponent entry = bundle.addEntry();
+        String url = resource.getResourceType() + "/" + resource.getId();
+        entry.setResource(resource);
+        entry.getRequest().setMethod(HTTPVerb.PUT).setUrl(url);
+        entry.setFullUrl(url);
+    }
+
+}
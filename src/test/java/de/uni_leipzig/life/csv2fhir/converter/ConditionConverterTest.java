@@ -3,22 +3,25 @@ package de.uni_leipzig.life.csv2fhir.converter;
 import static de.uni_leipzig.life.csv2fhir.TableIdentifier.Fall;
 import static de.uni_leipzig.life.csv2fhir.converter.ConditionConverter.Diagnosis_Columns.Dokumentationsdatum;
 import static de.uni_leipzig.life.csv2fhir.converter.ConditionConverter.Diagnosis_Columns.ICD;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
-import org.apache.commons.csv.CSVRecord;
 import org.hl7.fhir.r4.model.CodeableConcept;
 import org.hl7.fhir.r4.model.Coding;
 import org.hl7.fhir.r4.model.Condition;
 import org.hl7.fhir.r4.model.Encounter;
 import org.hl7.fhir.r4.model.Resource;
-import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
@@ -27,39 +30,42 @@ import org.mockito.junit.MockitoJUnitRunner;
 import de.uni_leipzig.life.csv2fhir.ConverterOptions;
 import de.uni_leipzig.life.csv2fhir.ConverterOptions.BooleanOption;
 import de.uni_leipzig.life.csv2fhir.ConverterResult;
+import de.uni_leipzig.life.csv2fhir.TableHeader;
+import de.uni_leipzig.life.csv2fhir.TableRecord;
+import de.uni_leipzig.life.csv2fhir.converter.ConditionConverter.Diagnosis_Columns;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ConditionConverterTest {
 
     @Test
     public void convertTest() throws Exception {
-        CSVRecord recordMock = mock(CSVRecord.class);
-        doReturn("PID1").when(recordMock).get("Patient-ID");
+        TableRecord recordMock = mock(TableRecord.class);
+        //the converter reads the values by the column indices of the header
+        List<String> columnNames = new ArrayList<>(List.of("Patient-ID", "Fall-Nr"));
+        for (Diagnosis_Columns column : Diagnosis_Columns.values()) {
+            columnNames.add(column.toString());
+        }
+        doReturn(new TableHeader(columnNames.toArray(new String[0]))).when(recordMock).getHeader();
+        doReturn("PID1").when(recordMock).get(anyInt(), eq("Patient-ID"));
         ConverterResult resultMock = mock(ConverterResult.class);
         ConverterOptions optionsMock = mock(ConverterOptions.class);
         //doReturn(true).when(optionsMock).is(BooleanOption.SET_REFERENCE_FROM_CONDITION_TO_ENCOUNTER);
         doReturn(true).when(optionsMock).is(Mockito.any(BooleanOption.class));
         doReturn(optionsMock).when(resultMock).getConverterOptions();
 
-        doReturn("PID1").when(recordMock).get("Patient-ID");
+        doReturn("PID1").when(recordMock).get(anyInt(), eq("Patient-ID"));
         //FHIRValidator validator = mock(FHIRValidator.class);
         ConditionConverter diagnosisConverterUnderTest = new ConditionConverter(recordMock, null, resultMock, null, new ConverterOptions(""));
 
         //doReturn(null).when(recordMock).get("ICD");
-        when(recordMock.get("ICD")).thenReturn(null);
-        Assertions.assertThrows(Exception.class, () -> {
-            diagnosisConverterUnderTest.convertInternal();
-        });
+        when(recordMock.get(anyInt(), eq("ICD"))).thenReturn(null);
+        testFailedConvert(recordMock, resultMock);
 
-        when(recordMock.get("ICD")).thenReturn("");
-        Assertions.assertThrows(Exception.class, () -> {
-            diagnosisConverterUnderTest.convertInternal();
-        });
+        when(recordMock.get(anyInt(), eq("ICD"))).thenReturn("");
+        testFailedConvert(recordMock, resultMock);
 
-        when(recordMock.get("ICD")).thenReturn(" \t ");
-        Assertions.assertThrows(Exception.class, () -> {
-            diagnosisConverterUnderTest.convertInternal();
-        });
+        when(recordMock.get(anyInt(), eq("ICD"))).thenReturn(" \t ");
+        testFailedConvert(recordMock, resultMock);
 
         testConvert(diagnosisConverterUnderTest, recordMock, resultMock, "A12.34", "A12.34");
         testConvert(diagnosisConverterUnderTest, recordMock, resultMock, "A12.3", "A12.3");
@@ -77,6 +83,21 @@ public class ConditionConverterTest {
 
     }
 
+    /**
+     * Invalid records do not throw an exception but mark the conversion as
+     * failed.
+     *
+     * @param recordMock
+     * @param resultMock
+     */
+    private static void testFailedConvert(TableRecord recordMock, ConverterResult resultMock) throws Exception {
+        ConditionConverter diagnosisConverter = new ConditionConverter(recordMock, null, resultMock, null, new ConverterOptions(""));
+        assertFalse(diagnosisConverter.isFailed());
+        diagnosisConverter.convertInternal();
+        assertTrue(diagnosisConverter.isFailed());
+        assertTrue(diagnosisConverter.getFailure().contains("ICD empty for record"));
+    }
+
     /**
      * @param diagnosisConverter
      * @param recordMock
@@ -84,11 +105,11 @@ public class ConditionConverterTest {
      * @param codeInput
      * @param resultCodes
      */
-    private static void testConvert(ConditionConverter diagnosisConverter, CSVRecord recordMock, ConverterResult resultMock, String codeInput, String... expectedResultCodes) throws Exception {
+    private static void testConvert(ConditionConverter diagnosisConverter, TableRecord recordMock, ConverterResult resultMock, String codeInput, String... expectedResultCodes) throws Exception {
         String recordedDate = "02.10.2020 00:00";
-        doReturn(recordedDate).when(recordMock).get(Dokumentationsdatum.toString());
+        doReturn(recordedDate).when(recordMock).get(anyInt(), eq(Dokumentationsdatum.toString()));
 
-        when(recordMock.get(ICD.toString())).thenReturn(codeInput);
+        when(recordMock.get(anyInt(), eq(ICD.toString()))).thenReturn(codeInput);
         when(resultMock.get(Fall, Encounter.class, diagnosisConverter.getEncounterId())).thenReturn(new Encounter());
         List<Resource> convertedResources = diagnosisConverter.convertInternal();
         int convertedResourcesCount = convertedResources == null ? 0 : convertedResources.size();
@@ -0,0 +1,62 @@
+package de.uni_leipzig.life.csv2fhir.converter;
+
+import static de.uni_leipzig.life.csv2fhir.converter.MedicationConverter.Medication_Columns.Medikationstyp;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import de.uni_leipzig.life.csv2fhir.ConverterOptions;
+import de.uni_leipzig.life.csv2fhir.ConverterResult;
+import de.uni_leipzig.life.csv2fhir.TableHeader;
+import de.uni_leipzig.life.csv2fhir.TableRecord;
+import de.uni_leipzig.life.csv2fhir.converter.MedicationConverter.Medication_Columns;
+
+public class MedicationConverterTest {
+
+    @Test
+    public void emptyMedicationTypeTest() throws Exception {
+        TableRecord recordMock = mock(TableRecord.class);
+        //the converter reads the values by the column indices of the header
+        List<String> columnNames = new ArrayList<>(List.of("Patient-ID", "Fall-Nr"));
+        for (Medication_Columns column : Medication_Columns.values()) {
+            columnNames.add(column.toString());
+        }
+        doReturn(new TableHeader(columnNames.toArray(new String[0]))).when(recordMock).getHeader();
+        doReturn("PID1").when(recordMock).get(anyInt(), eq("Patient-ID"));
+        ConverterResult resultMock = mock(ConverterResult.class);
+
+        when(recordMock.get(anyInt(), eq(Medikationstyp.toString()))).thenReturn(null);
+        testFailedConvert(recordMock, resultMock);
+
+        when(recordMock.get(anyInt(), eq(Medikationstyp.toString()))).thenReturn("");
+        testFailedConvert(recordMock, resultMock);
+
+        when(recordMock.get(anyInt(), eq(Medikationstyp.toString()))).thenReturn(" \t ");
+        testFailedConvert(recordMock, resultMock);
+    }
+
+    /**
+     * A record without medication type is not converted to a
+     * MedicationStatement but marks the conversion as failed.
+     *
+     * @param recordMock
+     * @param resultMock
+     */
+    private static void testFailedConvert(TableRecord recordMock, ConverterResult resultMock) throws Exception {
+        MedicationConverter medicationConverter = new MedicationConverter(recordMock, null, resultMock, null, new ConverterOptions(""));
+        assertFalse(medicationConverter.isFailed());
+        assertTrue(medicationConverter.convertInternal().isEmpty());
+        assertTrue(medicationConverter.isFailed());
+        assertTrue(medicationConverter.getFailure().contains("Medikationstyp empty"), medicationConverter.getFailure());
+    }
+
+}
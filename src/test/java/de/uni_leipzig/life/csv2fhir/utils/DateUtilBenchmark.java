@@ -0,0 +1,167 @@
+package de.uni_leipzig.life.csv2fhir.utils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.hl7.fhir.r4.model.DateTimeType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ca.uhn.fhir.model.api.TemporalPrecisionEnum;
+
+/**
+ * Measures the parsing of a timestamp column like the one of the laboratory
+ * table: 1000 records in the format <code>dd.MM.yyyy H:mm</code> with about
+ * 300 distinct values, a few ISO dates and some invalid values. The former
+ * variant is the former implementation of {@link DateUtil} that tried all
+ * formats one after the other with new formatters and exceptions as control
+ * flow.<br>
+ * Run with<br>
+ * <code>java -cp target/test-classes:target/classes:&lt;dependencies&gt; org.openjdk.jmh.Main DateUtilBenchmark</code>
+ *
+ * @author AXS (17.10.2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class DateUtilBenchmark {
+
+    /** The count of records of the column */
+    private static final int RECORD_COUNT = 1000;
+
+    /**  */
+    private String[] timestamps;
+
+    /**
+     *
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        timestamps = new String[RECORD_COUNT];
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            int day = 1 + random.nextInt(28);
+            int month = 1 + random.nextInt(12);
+            int kind = random.nextInt(20);
+            if (kind == 0) {
+                timestamps[i] = String.format("2019-%02d-%02d", month, day);
+            } else if (kind == 1) {
+                timestamps[i] = "bad";
+            } else {
+                // the laboratory samples are taken at a few times of the day
+                timestamps[i] = String.format("%02d.%02d.2019 %d:00", day, month, 6 + random.nextInt(2));
+            }
+        }
+    }
+
+    /**
+     * @param blackhole
+     */
+    @Benchmark
+    public void formerParser(Blackhole blackhole) {
+        for (String timestamp : timestamps) {
+            try {
+                blackhole.consume(formerParseLocalDateTime(timestamp));
+            } catch (Exception e) {
+                blackhole.consume(e);
+            }
+        }
+    }
+
+    /**
+     * @param blackhole
+     */
+    @Benchmark
+    public void singlePassParser(Blackhole blackhole) {
+        for (String timestamp : timestamps) {
+            blackhole.consume(DateUtil.parseSupportedFormat(timestamp));
+        }
+    }
+
+    /**
+     * @param blackhole
+     */
+    @Benchmark
+    public void formerDateTimeType(Blackhole blackhole) {
+        for (String timestamp : timestamps) {
+            try {
+                LocalDateTime localDateTime = formerParseLocalDateTime(timestamp);
+                blackhole.consume(new DateTimeType(Date.from(localDateTime.atZone(ZoneId.systemDefault()).toInstant()), TemporalPrecisionEnum.SECOND));
+            } catch (Exception e) {
+                blackhole.consume(e);
+            }
+        }
+    }
+
+    /**
+     * @param blackhole
+     */
+    @Benchmark
+    public void memoisedDateTimeType(Blackhole blackhole) {
+        for (String timestamp : timestamps) {
+            try {
+                blackhole.consume(DateUtil.parseDateTimeType(timestamp));
+            } catch (Exception e) {
+                blackhole.consume(e);
+            }
+        }
+    }
+
+    /**
+     * The former implementation of the parsing in {@link DateUtil}
+     *
+     * @param date
+     * @return
+     * @throws Exception
+     */
+    private static LocalDateTime formerParseLocalDateTime(String date) throws Exception {
+        if (!date.isBlank()) {
+            try {
+                return Year.parse(date).atDay(1).atStartOfDay();
+            } catch (DateTimeParseException e) {
+            }
+            try {
+                return YearMonth.parse(date).atDay(1).atStartOfDay();
+            } catch (DateTimeParseException e) {
+            }
+            try {
+                return LocalDate.parse(date).atStartOfDay();
+            } catch (DateTimeParseException e) {
+            }
+            for (String pattern : new String[] {"MM/dd/yyyy", "M/dd/yyyy", "M/d/yyyy"}) {
+                try {
+                    return LocalDate.parse(date, DateTimeFormatter.ofPattern(pattern)).atStartOfDay();
+                } catch (DateTimeParseException e) {
+                }
+            }
+        }
+        for (String pattern : new String[] {"dd.MM.yyyy, H:mm", "dd.MM.yyyy H:mm"}) {
+            try {
+                return LocalDateTime.parse(date, DateTimeFormatter.ofPattern(pattern));
+            } catch (DateTimeParseException e) {
+            }
+        }
+        throw new Exception();
+    }
+
+}
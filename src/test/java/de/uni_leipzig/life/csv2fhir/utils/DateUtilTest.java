@@ -0,0 +1,71 @@
+package de.uni_leipzig.life.csv2fhir.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+public class DateUtilTest {
+
+    @Test
+    public void parseSupportedFormatTest() throws Exception {
+        assertEquals(DateUtil.parseSupportedFormat("2019"), LocalDateTime.of(2019, 1, 1, 0, 0));
+        assertEquals(DateUtil.parseSupportedFormat("2019-03"), LocalDateTime.of(2019, 3, 1, 0, 0));
+        assertEquals(DateUtil.parseSupportedFormat("2019-03-24"), LocalDateTime.of(2019, 3, 24, 0, 0));
+        assertEquals(DateUtil.parseSupportedFormat("3/4/2019"), LocalDateTime.of(2019, 3, 4, 0, 0));
+        assertEquals(DateUtil.parseSupportedFormat("12/24/2019"), LocalDateTime.of(2019, 12, 24, 0, 0));
+        assertEquals(DateUtil.parseSupportedFormat("24.03.2019 7:05"), LocalDateTime.of(2019, 3, 24, 7, 5));
+        assertEquals(DateUtil.parseSupportedFormat("24.03.2019, 17:05"), LocalDateTime.of(2019, 3, 24, 17, 5));
+        // invalid or unusual values are left to the formatters
+        assertNull(DateUtil.parseSupportedFormat("30.02.2019 00:00"));
+        assertNull(DateUtil.parseSupportedFormat("4/31/2019"));
+        assertNull(DateUtil.parseSupportedFormat("24.03.2019"));
+        assertNull(DateUtil.parseSupportedFormat("bad"));
+
+        assertNotNull(DateUtil.parseDateTimeType("24.03.2019 00:00"));
+        assertThrows(Exception.class, () -> DateUtil.parseDateTimeType("24.03.2019"));
+        // the memoised failure must be thrown again
+        assertThrows(Exception.class, () -> DateUtil.parseDateTimeType("24.03.2019"));
+    }
+
+    /**
+     * Compares the single pass parser with the formatters on random strings
+     * similar to the supported formats.
+     */
+    @Test
+    public void sameResultAsFormattersTest() {
+        Random random = new Random(7);
+        String[] templates = {"dddd", "dddd-dd", "dddd-dd-dd", "d/d/dddd", "dd/d/dddd", "d/dd/dddd", "dd/dd/dddd", "dd.dd.dddd d:dd", "dd.dd.dddd dd:dd", "dd.dd.dddd, dd:dd", "dd.dd.ddddd dd:dd", "ddd"};
+        List<String> values = new ArrayList<>();
+        for (String template : templates) {
+            for (int i = 0; i < 2000; i++) {
+                StringBuilder value = new StringBuilder();
+                for (char c : template.toCharArray()) {
+                    // mostly small digits to get many valid dates
+                    value.append(c == 'd' ? (char) ('0' + (random.nextInt(3) == 0 ? random.nextInt(10) : random.nextInt(3))) : c);
+                }
+                values.add(value.toString());
+            }
+        }
+        for (String value : values) {
+            LocalDateTime expected;
+            try {
+                expected = DateUtil.parseLocalDateTimeWithFormatters(value);
+            } catch (Exception e) {
+                expected = null;
+            }
+            LocalDateTime actual = DateUtil.parseSupportedFormat(value);
+            if (actual != null) {
+                assertEquals(actual, expected, value);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package de.uni_leipzig.life.csv2fhir.utils;
+
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.hl7.fhir.r4.model.Patient;
+import org.testng.annotations.Test;
+
+import ca.uhn.fhir.parser.IParser;
+
+public class FhirParsersTest {
+
+    @Test
+    public void parsersPerThreadTest() throws Exception {
+        IParser parser = FhirParsers.getJsonParser(true);
+        assertSame(FhirParsers.getJsonParser(true), parser);
+        assertNotSame(FhirParsers.getJsonParser(false), parser);
+        IParser otherThreadParser = CompletableFuture.supplyAsync(() -> FhirParsers.getJsonParser(true)).get();
+        assertNotSame(otherThreadParser, parser);
+
+        Patient patient = new Patient();
+        patient.setId("1");
+        assertTrue(FhirParsers.getJsonParser(true).encodeResourceToString(patient).contains("\n"));
+        assertTrue(!FhirParsers.getJsonParser(false).encodeResourceToString(patient).contains("\n"));
+        assertTrue(FhirParsers.getXmlParser(false).encodeResourceToString(patient).startsWith("<Patient"));
+    }
+
+}
@@ -0,0 +1,79 @@
+package de.uni_leipzig.life.csv2fhir.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the throughput of the single threaded {@link GZIPOutputStream}
+ * (the existing path of {@link CompressFileUtils}) with the
+ * {@link ParallelGzipOutputStream}. Both compress 32 MB of pretty printed
+ * JSON like data in 8 KB writes (like the output writers) into a null
+ * stream.<br>
+ * Run with<br>
+ * <code>java -cp target/test-classes:target/classes:&lt;dependencies&gt; org.openjdk.jmh.Main ParallelGzipOutputStreamBenchmark</code>
+ *
+ * @author AXS (17.10.2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ParallelGzipOutputStreamBenchmark {
+
+    /** Size of the compressed data */
+    private static final int DATA_SIZE = 32 << 20;
+
+    /** Size of the single writes */
+    private static final int WRITE_SIZE = 8 << 10;
+
+    /** The count of compressing threads. 1 is the single threaded gzip. */
+    @Param({"1", "2", "4"})
+    public int threadCount;
+
+    /**  */
+    private byte[] data;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(DATA_SIZE + 200);
+        while (sb.length() < DATA_SIZE) {
+            sb.append("  }, {\n    \"fullUrl\": \"Observation/Projekt-XY-Patient-").append(random.nextInt(100000))
+                    .append("-OL-").append(random.nextInt(1000)).append("\",\n    \"resource\": {\n      \"valueQuantity\": {\n        \"value\": ")
+                    .append(random.nextInt(10000) / 100.0).append(",\n        \"unit\": \"mg/dL\"\n      }\n    }\n");
+        }
+        sb.setLength(DATA_SIZE);
+        data = sb.toString().getBytes();
+    }
+
+    /**
+     * @throws IOException
+     */
+    @Benchmark
+    public void compress() throws IOException {
+        try (OutputStream out = threadCount > 1 ? new ParallelGzipOutputStream(OutputStream.nullOutputStream(), threadCount)
+                : new GZIPOutputStream(OutputStream.nullOutputStream(), CompressFileUtils.BUFFER_SIZE)) {
+            for (int offset = 0; offset < data.length; offset += WRITE_SIZE) {
+                out.write(data, offset, Math.min(WRITE_SIZE, data.length - offset));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package de.uni_leipzig.life.csv2fhir.utils;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.testng.annotations.Test;
+
+public class ParallelGzipOutputStreamTest {
+
+    @Test
+    public void roundTripTest() throws IOException {
+        int blockSize = ParallelGzipOutputStream.BLOCK_SIZE;
+        for (int size : new int[] {0, 1, 1000, blockSize, blockSize + 1, 10 * blockSize + 12345}) {
+            byte[] data = createData(size);
+            assertEquals(decompress(compress(data, 4)), data, "size " + size);
+        }
+    }
+
+    @Test
+    public void singleByteWritesTest() throws IOException {
+        byte[] data = createData(3 * ParallelGzipOutputStream.BLOCK_SIZE + 7);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream out = new ParallelGzipOutputStream(compressed, 2)) {
+            for (byte b : data) {
+                out.write(b);
+            }
+        }
+        assertEquals(decompress(compressed.toByteArray()), data);
+    }
+
+    /**
+     * @param size
+     * @return JSON like data with repetitions and some random values
+     */
+    private static byte[] createData(int size) {
+        Random random = new Random(size);
+        StringBuilder sb = new StringBuilder(size + 100);
+        while (sb.length() < size) {
+            sb.append("{\"resourceType\": \"Observation\", \"id\": \"").append(random.nextInt(100000)).append("\"}\n");
+        }
+        sb.setLength(size);
+        return sb.toString().getBytes();
+    }
+
+    /**
+     * @param data
+     * @param threadCount
+     * @return
+     * @throws IOException
+     */
+    private static byte[] compress(byte[] data, int threadCount) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream out = new ParallelGzipOutputStream(compressed, threadCount)) {
+            out.write(data);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * @param compressed
+     * @return
+     * @throws IOException
+     */
+    private static byte[] decompress(byte[] compressed) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package de.uni_leipzig.life.csv2fhir.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+import de.uni_leipzig.life.csv2fhir.converter.MedicationConverter.Medikationstyp_Values;
+
+public class ValueClassifierTest {
+
+    private static enum GroupPatterns {
+        First("(a|b)c"),
+        Second("c(d)"),
+        Third("e");
+
+        private final String pattern;
+
+        private GroupPatterns(String pattern) {
+            this.pattern = pattern;
+        }
+
+        @Override
+        public String toString() {
+            return pattern;
+        }
+    }
+
+    @Test
+    public void classifyPatternsTest() {
+        ValueClassifier<Medikationstyp_Values> classifier = ValueClassifier.ofPatterns(Medikationstyp_Values.class);
+        assertSame(ValueClassifier.ofPatterns(Medikationstyp_Values.class), classifier);
+        assertEquals(classifier.classify("Verordnung (MedicationRequest)"), Medikationstyp_Values.MedicationRequest);
+        assertEquals(classifier.classify("Gabe (medicationadministration)"), Medikationstyp_Values.MedicationAdministration);
+        assertEquals(classifier.classify("Gabe (medicationadministration)"), Medikationstyp_Values.MedicationAdministration);
+        // the order of the constants decides and not the position in the value
+        assertEquals(classifier.classify("MedicationStatement or MedicationRequest"), Medikationstyp_Values.MedicationRequest);
+        assertNull(classifier.classify("Verordnung"));
+        assertNull(classifier.classify(null));
+
+        assertTrue(ValueClassifier.matchesPattern(Medikationstyp_Values.MedicationStatement, "MedicationStatement or MedicationRequest"));
+        assertFalse(ValueClassifier.matchesPattern(Medikationstyp_Values.MedicationAdministration, "MedicationStatement or MedicationRequest"));
+        assertFalse(ValueClassifier.matchesPattern(Medikationstyp_Values.MedicationAdministration, null));
+    }
+
+    @Test
+    public void classifyPatternsWithGroupsTest() {
+        ValueClassifier<GroupPatterns> classifier = ValueClassifier.ofPatterns(GroupPatterns.class);
+        assertEquals(classifier.classify("xbc"), GroupPatterns.First);
+        assertEquals(classifier.classify("xcd"), GroupPatterns.Second);
+        assertEquals(classifier.classify("x\ne"), GroupPatterns.Third);
+        assertNull(classifier.classify("x"));
+    }
+
+}